@@ -12,8 +12,47 @@ repositories {
     mavenCentral()
 }
 
+// Векторное ядро аналитики (VectorSumKernel) использует инкубаторный модуль
+// jdk.incubator.vector и компилируется отдельно: основной код собирается без флага
+// и предупреждений об инкубаторе. SumKernel.best() загружает ядро через рефлексию;
+// без флага при запуске приложение работает со скалярным ядром.
+val vector: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+}
+
+// Ручные замеры (AnalyticsKernelBenchmark) — не тесты: ./gradlew benchmark --args="[строк]"
+val benchmark: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += sourceSets.main.get().runtimeClasspath
+}
+
+// Нативная память хранилища вне кучи (ForeignChunkMemory) — инкубаторный
+// jdk.incubator.foreign из JDK 17, тоже в своем наборе исходников. ChunkMemory.best()
+// загружает его через рефлексию, без модуля остаются direct ByteBuffer.
+val foreign: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+}
+
+tasks.named<JavaCompile>(vector.compileJavaTaskName) {
+    options.compilerArgs.addAll(listOf("--add-modules", "jdk.incubator.vector"))
+}
+
+tasks.named<JavaCompile>(foreign.compileJavaTaskName) {
+    options.compilerArgs.addAll(listOf("--add-modules", "jdk.incubator.foreign"))
+}
+
+tasks.register<JavaExec>("benchmark") {
+    group = "verification"
+    description = "Сравнение ядер суммирования аналитики"
+    classpath = benchmark.runtimeClasspath
+    mainClass.set("ru.tigerbank.AnalyticsKernelBenchmark")
+}
+
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter")
+    // Классы инкубаторных наборов нужны только при запуске (приложение, тесты, bootJar)
+    runtimeOnly(vector.output)
+    runtimeOnly(foreign.output)
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     implementation("org.springframework.boot:spring-boot-starter-json")
     implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-yaml")
@@ -28,6 +67,13 @@ dependencies {
     testAnnotationProcessor("org.projectlombok:lombok:1.18.42")
 }
 
+val incubatorModules = listOf("--add-modules", "jdk.incubator.vector,jdk.incubator.foreign")
+
+tasks.withType<JavaExec>().configureEach {
+    jvmArgs(incubatorModules)
+}
+
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+    jvmArgs(incubatorModules)
+}
@@ -0,0 +1,82 @@
+package ru.tigerbank;
+
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.columnar.SumKernel;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+// Грубое сравнение суммирования за период: stream по списку операций против скалярного
+// и векторного ядра по колонкам. Не тест, запускается вручную:
+// ./gradlew benchmark --args="[строк]"
+public final class AnalyticsKernelBenchmark {
+
+    private static final int ROUNDS = 20;
+
+    private AnalyticsKernelBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        Random random = new Random(1);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+
+        List<Operation> operations = new ArrayList<>(size);
+        int[] days = new int[size];
+        int[] types = new int[size];
+        int[] accounts = new int[size];
+        long[] amounts = new long[size];
+        for (int row = 0; row < size; row++) {
+            OperationType type = random.nextInt(3) == 0 ? OperationType.INCOME : OperationType.EXPENSE;
+            LocalDate date = start.plusDays(random.nextInt(730));
+            long amount = 1 + random.nextInt(10_000_000);
+            int account = 1 + random.nextInt(50);
+            operations.add(new Operation(row + 1, type, account, 1, amount, date, null));
+            days[row] = (int) date.toEpochDay();
+            types[row] = type.ordinal();
+            accounts[row] = account;
+            amounts[row] = amount;
+        }
+
+        LocalDate from = LocalDate.of(2024, 4, 1);
+        LocalDate to = LocalDate.of(2025, 3, 31);
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+
+        LongSupplier stream = () -> operations.stream()
+                .filter(op -> !op.getDate().isBefore(from) && !op.getDate().isAfter(to))
+                .mapToLong(op -> op.getType() == OperationType.EXPENSE ? -op.getAmount() : op.getAmount())
+                .sum();
+        SumKernel best = SumKernel.best();
+        LongSupplier scalar = () -> SumKernel.scalar()
+                .sum(0, size, days, types, accounts, amounts, fromDay, toDay, SumKernel.ANY, SumKernel.ANY, true);
+        LongSupplier vector = () -> best
+                .sum(0, size, days, types, accounts, amounts, fromDay, toDay, SumKernel.ANY, SumKernel.ANY, true);
+
+        System.out.printf("Строк: %d, лучшее ядро: %s%n", size, best.getName());
+        double streamTime = measure("stream", stream);
+        double scalarTime = measure("scalar", scalar);
+        double bestTime = measure(best.getName(), vector);
+        System.out.printf("Ускорение: scalar %.1fx, %s %.1fx к stream%n",
+                streamTime / scalarTime, best.getName(), streamTime / bestTime);
+    }
+
+    // Среднее время прохода в миллисекундах после прогрева
+    private static double measure(String name, LongSupplier task) {
+        long result = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            result += task.getAsLong();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            result += task.getAsLong();
+        }
+        double millis = (System.nanoTime() - started) / 1e6 / ROUNDS;
+        System.out.printf("%-16s %8.2f мс (контроль %d)%n", name, millis, result);
+        return millis;
+    }
+}
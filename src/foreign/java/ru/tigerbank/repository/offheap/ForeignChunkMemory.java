@@ -0,0 +1,28 @@
+package ru.tigerbank.repository.offheap;
+
+import jdk.incubator.foreign.MemorySegment;
+import jdk.incubator.foreign.ResourceScope;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Блоки — нативные сегменты jdk.incubator.foreign (JDK 17) в одной общей области:
+// close() закрывает область и сразу освобождает всю память, не дожидаясь сборщика
+// мусора. Обращение к буферу после close() бросает IllegalStateException.
+// Загружается только через ChunkMemory.best().
+final class ForeignChunkMemory implements ChunkMemory {
+
+    private final ResourceScope scope = ResourceScope.newSharedScope();
+
+    @Override
+    public ByteBuffer allocate(int bytes) {
+        return MemorySegment.allocateNative(bytes, scope).asByteBuffer().order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public void close() {
+        if (scope.isAlive()) {
+            scope.close();
+        }
+    }
+}
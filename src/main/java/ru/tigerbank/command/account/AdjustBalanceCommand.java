@@ -3,6 +3,7 @@ package ru.tigerbank.command.account;
 import ru.tigerbank.command.Command;
 import ru.tigerbank.console.utils.ConsoleReader;
 import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Money;
 import ru.tigerbank.service.account.BankAccountService;
 
 import java.util.Optional;
@@ -27,11 +28,11 @@ public class AdjustBalanceCommand implements Command {
             return;
         }
 
-        Double amount = reader.readDouble("Введите новый баланс");
+        Long amount = reader.readAmount("Введите новый баланс");
         if (amount == null) return;
 
         service.adjustBalance(id, amount);
-        System.out.printf("✅ Баланс счета %d скорректирован до %.2f%n", id, amount);
+        System.out.printf("✅ Баланс счета %d скорректирован до %s%n", id, Money.format(amount));
     }
 
     @Override
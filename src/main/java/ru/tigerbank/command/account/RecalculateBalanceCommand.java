@@ -3,6 +3,7 @@ package ru.tigerbank.command.account;
 import ru.tigerbank.command.Command;
 import ru.tigerbank.console.utils.ConsoleReader;
 import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Money;
 import ru.tigerbank.service.account.BankAccountService;
 
 import java.util.Optional;
@@ -27,8 +28,8 @@ public class RecalculateBalanceCommand implements Command {
             return;
         }
 
-        double newBalance = service.recalculateBalance(id);
-        System.out.printf("✅ Баланс пересчитан. Новый баланс: %.2f%n", newBalance);
+        long newBalance = service.recalculateBalance(id);
+        System.out.printf("✅ Баланс пересчитан. Новый баланс: %s%n", Money.format(newBalance));
     }
 
     @Override
@@ -0,0 +1,26 @@
+package ru.tigerbank.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import ru.tigerbank.repository.ParallelScan;
+
+// Режим выполнения аналитики по профилю хранилища. Колоночное и off-heap хранилища
+// рассчитаны на большие журналы и считают отчеты параллельно; в памяти — последовательно.
+// Свойства tigerbank.analytics.parallel, .parallelism и .parallel-threshold
+// переопределяют значения профиля.
+@Configuration
+public class AnalyticsConfig {
+
+    @Bean
+    @Profile("columnar | offheap")
+    public ParallelScan parallelScan() {
+        return ParallelScan.fromProperties(true);
+    }
+
+    @Bean
+    @Profile("!columnar & !offheap")
+    public ParallelScan sequentialScan() {
+        return ParallelScan.fromProperties(false);
+    }
+}
@@ -3,26 +3,39 @@ package ru.tigerbank.console;
 import org.springframework.stereotype.Component;
 import ru.tigerbank.console.utils.ConsoleReader;
 import ru.tigerbank.console.utils.TablePrinter;
+import ru.tigerbank.domain.Money;
+import ru.tigerbank.domain.OperationType;
 import ru.tigerbank.service.account.BankAccountService;
+import ru.tigerbank.service.analytics.AnalyticsReport;
 import ru.tigerbank.service.analytics.AnalyticsService;
+import ru.tigerbank.service.analytics.CachingAnalyticsService;
+import ru.tigerbank.service.analytics.Granularity;
+import ru.tigerbank.service.analytics.TimeSeries;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.Map;
 
 @Component
 public class AnalyticsMenu {
 
+    private static final int SERIES_BAR_WIDTH = 40;
+    private static final int FREQUENT_DESCRIPTIONS = 10;
+
     private final AnalyticsService analyticsService;
+    private final CachingAnalyticsService analyticsCache;
     private final BankAccountService accountService;
     private final ConsoleReader reader;
     private final TablePrinter tablePrinter;
 
     public AnalyticsMenu(
             AnalyticsService analyticsService,
+            CachingAnalyticsService analyticsCache,
             BankAccountService accountService,
             ConsoleReader reader,
             TablePrinter tablePrinter) {
         this.analyticsService = analyticsService;
+        this.analyticsCache = analyticsCache;
         this.accountService = accountService;
         this.reader = reader;
         this.tablePrinter = tablePrinter;
@@ -40,6 +53,11 @@ public class AnalyticsMenu {
                 case "3" -> incomeByCategory();
                 case "4" -> expenseByCategory();
                 case "5" -> totalIncomeExpense();
+                case "6" -> dashboard();
+                case "7" -> cacheStats();
+                case "8" -> series();
+                case "9" -> topCategories();
+                case "10" -> approximate();
                 case "0" -> back = true;
                 default -> System.out.println("❌ Неверный выбор.");
             }
@@ -53,6 +71,11 @@ public class AnalyticsMenu {
         System.out.println("3. Доходы по категориям");
         System.out.println("4. Расходы по категориям");
         System.out.println("5. Общая сумма доходов и расходов");
+        System.out.println("6. Сводный отчет за период");
+        System.out.println("7. Статистика кэша аналитики");
+        System.out.println("8. Динамика по дням, неделям или месяцам");
+        System.out.println("9. Категории с наибольшими расходами/доходами");
+        System.out.println("10. Приблизительная аналитика по всей истории");
         System.out.println("0. Назад");
     }
 
@@ -70,8 +93,8 @@ public class AnalyticsMenu {
         LocalDate[] period = readDatePeriod();
         if (period == null) return;
 
-        double balance = analyticsService.getNetBalance(period[0], period[1]);
-        System.out.printf("\n💰 Разница доходов и расходов за период: %.2f%n", balance);
+        long balance = analyticsService.getNetBalance(period[0], period[1]);
+        System.out.printf("\n💰 Разница доходов и расходов за период: %s%n", Money.format(balance));
 
         if (balance > 0) {
             System.out.println("📈 Положительный баланс (доходы > расходы)");
@@ -97,8 +120,8 @@ public class AnalyticsMenu {
         if (period == null) return;
 
         try {
-            double balance = analyticsService.getNetBalanceByAccount(accountId, period[0], period[1]);
-            System.out.printf("\n💰 Разница доходов и расходов по счету за период: %.2f%n", balance);
+            long balance = analyticsService.getNetBalanceByAccount(accountId, period[0], period[1]);
+            System.out.printf("\n💰 Разница доходов и расходов по счету за период: %s%n", Money.format(balance));
         } catch (IllegalArgumentException e) {
             System.out.println("❌ " + e.getMessage());
         }
@@ -108,73 +131,224 @@ public class AnalyticsMenu {
         LocalDate[] period = readDatePeriod();
         if (period == null) return;
 
-        Map<String, Double> incomeByCategory = analyticsService.getIncomeByCategory(period[0], period[1]);
+        Map<String, Long> incomeByCategory = analyticsService.getIncomeByCategory(period[0], period[1]);
 
         if (incomeByCategory.isEmpty()) {
             System.out.println("📭 Нет доходов за указанный период");
             return;
         }
 
-        System.out.println("\n📊 ДОХОДЫ ПО КАТЕГОРИЯМ:");
-        System.out.println("┌──────────────────────┬────────────┐");
-        System.out.println("│ Категория            │ Сумма      │");
-        System.out.println("├──────────────────────┼────────────┤");
-
-        double total = 0;
-        for (Map.Entry<String, Double> entry : incomeByCategory.entrySet()) {
-            System.out.printf("│ %-20s │ %10.2f │%n",
-                    truncate(entry.getKey(), 20),
-                    entry.getValue());
-            total += entry.getValue();
-        }
-
-        System.out.println("├──────────────────────┼────────────┤");
-        System.out.printf("│ %-20s │ %10.2f │%n", "ИТОГО:", total);
-        System.out.println("└──────────────────────┴────────────┘");
+        printCategoryTable("ДОХОДЫ ПО КАТЕГОРИЯМ", incomeByCategory);
     }
 
     private void expenseByCategory() {
         LocalDate[] period = readDatePeriod();
         if (period == null) return;
 
-        Map<String, Double> expenseByCategory = analyticsService.getExpenseByCategory(period[0], period[1]);
+        Map<String, Long> expenseByCategory = analyticsService.getExpenseByCategory(period[0], period[1]);
 
         if (expenseByCategory.isEmpty()) {
             System.out.println("📭 Нет расходов за указанный период");
             return;
         }
 
-        System.out.println("\n📊 РАСХОДЫ ПО КАТЕГОРИЯМ:");
+        printCategoryTable("РАСХОДЫ ПО КАТЕГОРИЯМ", expenseByCategory);
+    }
+
+    private void totalIncomeExpense() {
+        LocalDate[] period = readDatePeriod();
+        if (period == null) return;
+
+        // Доходы и расходы из одного прохода, а не двумя запросами
+        AnalyticsReport report = analyticsService.report(period[0], period[1], null);
+
+        System.out.println("\n💰 ОБЩИЕ СУММЫ ЗА ПЕРИОД:");
+        System.out.printf("Доходы:  %s%n", Money.format(report.totalIncome()));
+        System.out.printf("Расходы: %s%n", Money.format(report.totalExpense()));
+        System.out.printf("Разница: %s%n", Money.format(report.net()));
+    }
+
+    private void dashboard() {
+        LocalDate[] period = readDatePeriod();
+        if (period == null) return;
+
+        Integer accountId = null;
+        String input = reader.readString("Введите ID счета (Enter — все счета)");
+        if (!input.isEmpty()) {
+            try {
+                accountId = Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                System.out.println("❌ Некорректный ввод. Ожидается целое число.");
+                return;
+            }
+        }
+
+        AnalyticsReport report = analyticsService.report(period[0], period[1], accountId);
+
+        System.out.println(accountId == null
+                ? "\n📋 СВОДНЫЙ ОТЧЕТ (все счета):"
+                : "\n📋 СВОДНЫЙ ОТЧЕТ (счет " + accountId + "):");
+        System.out.printf("Доходы:  %s (операций: %d)%n", Money.format(report.totalIncome()), report.incomeCount());
+        System.out.printf("Расходы: %s (операций: %d)%n", Money.format(report.totalExpense()), report.expenseCount());
+        System.out.printf("Разница: %s%n", Money.format(report.net()));
+
+        if (!report.incomeByCategory().isEmpty()) {
+            printCategoryTable("ДОХОДЫ ПО КАТЕГОРИЯМ", report.incomeByCategory());
+        }
+        if (!report.expenseByCategory().isEmpty()) {
+            printCategoryTable("РАСХОДЫ ПО КАТЕГОРИЯМ", report.expenseByCategory());
+        }
+        if (report.operationCount() == 0) {
+            System.out.println("📭 Нет операций за указанный период");
+        }
+    }
+
+    private void series() {
+        LocalDate[] period = readDatePeriod();
+        if (period == null) return;
+
+        Granularity granularity = switch (reader.readString("Шаг: 1 — день, 2 — неделя, 3 — месяц")) {
+            case "1" -> Granularity.DAY;
+            case "2" -> Granularity.WEEK;
+            case "3" -> Granularity.MONTH;
+            default -> null;
+        };
+        if (granularity == null) {
+            System.out.println("❌ Неверный выбор.");
+            return;
+        }
+        OperationType type;
+        switch (reader.readString("Суммы: 1 — доходы, 2 — расходы, Enter — разница")) {
+            case "1" -> type = OperationType.INCOME;
+            case "2" -> type = OperationType.EXPENSE;
+            case "" -> type = null;
+            default -> {
+                System.out.println("❌ Неверный выбор.");
+                return;
+            }
+        }
+
+        TimeSeries series = analyticsService.getSeries(period[0], period[1], granularity, type, null);
+        if (series.size() == 0) {
+            System.out.println("📭 Пустой период");
+            return;
+        }
+
+        long max = 1;
+        for (int bucket = 0; bucket < series.size(); bucket++) {
+            max = Math.max(max, Math.abs(series.sum(bucket)));
+        }
+        DateTimeFormatter format = DateTimeFormatter.ofPattern(granularity == Granularity.MONTH ? "MM.yyyy" : "dd.MM.yyyy");
+
+        System.out.println(type == OperationType.INCOME ? "\n📈 ДОХОДЫ ПО ПЕРИОДАМ:"
+                : type == OperationType.EXPENSE ? "\n📉 РАСХОДЫ ПО ПЕРИОДАМ:"
+                : "\n⚖️ РАЗНИЦА ДОХОДОВ И РАСХОДОВ ПО ПЕРИОДАМ:");
+        for (int bucket = 0; bucket < series.size(); bucket++) {
+            long sum = series.sum(bucket);
+            int width = (int) (Math.abs(sum) * SERIES_BAR_WIDTH / max);
+            System.out.printf("%-10s %12s %s%s%n",
+                    series.bucketStart(bucket).format(format),
+                    Money.format(sum),
+                    sum < 0 ? "-" : "",
+                    "█".repeat(width));
+        }
+        System.out.printf("%-10s %12s%n", "ИТОГО:", Money.format(series.total()));
+    }
+
+    private void topCategories() {
+        LocalDate[] period = readDatePeriod();
+        if (period == null) return;
+
+        OperationType type = reader.readString("Тип: 1 — доходы, 2 — расходы").equals("1")
+                ? OperationType.INCOME
+                : OperationType.EXPENSE;
+        Integer limit = reader.readInt("Сколько категорий показать");
+        if (limit == null) return;
+        if (limit <= 0) {
+            System.out.println("❌ Число категорий должно быть положительным");
+            return;
+        }
+
+        Map<String, Long> top = analyticsService.getTopCategories(type, period[0], period[1], null, limit);
+        if (top.isEmpty()) {
+            System.out.println(type == OperationType.INCOME
+                    ? "📭 Нет доходов за указанный период"
+                    : "📭 Нет расходов за указанный период");
+            return;
+        }
+
+        printCategoryTable((type == OperationType.INCOME ? "ТОП ДОХОДОВ" : "ТОП РАСХОДОВ") + " ПО КАТЕГОРИЯМ", top);
+    }
+
+    // Оценки по скетчам: без обхода операций, с погрешностью (см. OperationSketches)
+    private void approximate() {
+        OperationType type = reader.readString("Тип: 1 — доходы, 2 — расходы").equals("1")
+                ? OperationType.INCOME
+                : OperationType.EXPENSE;
+        Integer categoryId = null;
+        Integer accountId = null;
+        String input = reader.readString("Разрез: к<ID> — категория, с<ID> — счет, Enter — все операции");
+        try {
+            if (input.startsWith("к")) {
+                categoryId = Integer.parseInt(input.substring(1).trim());
+            } else if (input.startsWith("с")) {
+                accountId = Integer.parseInt(input.substring(1).trim());
+            } else if (!input.isEmpty()) {
+                System.out.println("❌ Неверный выбор.");
+                return;
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("❌ Некорректный ввод. Ожидается целое число.");
+            return;
+        }
+
+        long count = analyticsService.getOperationCount(type, categoryId, accountId);
+        System.out.println("\n🧮 ПРИБЛИЗИТЕЛЬНАЯ АНАЛИТИКА (погрешность сумм до 1%):");
+        System.out.printf("Операций: %d%n", count);
+        if (count > 0) {
+            System.out.printf("Медиана: %s, 90%%: %s, 99%%: %s%n",
+                    Money.format(analyticsService.getAmountQuantile(type, categoryId, accountId, 0.5)),
+                    Money.format(analyticsService.getAmountQuantile(type, categoryId, accountId, 0.9)),
+                    Money.format(analyticsService.getAmountQuantile(type, categoryId, accountId, 0.99)));
+        }
+        System.out.printf("Различных описаний: ~%d%n", analyticsService.getDistinctDescriptions(accountId));
+
+        Map<String, Long> frequent = analyticsService.getFrequentDescriptions(FREQUENT_DESCRIPTIONS);
+        if (!frequent.isEmpty()) {
+            System.out.printf("Частые описания (все счета, завышение до %d):%n",
+                    analyticsService.getFrequencyErrorBound());
+            frequent.forEach((description, times) ->
+                    System.out.printf("  %-30s ~%d%n", truncate(description, 30), times));
+        }
+    }
+
+    private void cacheStats() {
+        CachingAnalyticsService.Stats stats = analyticsCache.getStats();
+        System.out.println("\n🗄️ КЭШ АНАЛИТИКИ:");
+        System.out.printf("Попадания: %d, промахи: %d (%.1f%%)%n", stats.hits(), stats.misses(), stats.hitRate() * 100);
+        System.out.printf("Вытеснено: %d, сброшено изменениями: %d%n", stats.evictions(), stats.invalidations());
+        System.out.printf("Результатов в кэше: %d%n", stats.size());
+    }
+
+    private void printCategoryTable(String title, Map<String, Long> sumByCategory) {
+        System.out.println("\n📊 " + title + ":");
         System.out.println("┌──────────────────────┬────────────┐");
         System.out.println("│ Категория            │ Сумма      │");
         System.out.println("├──────────────────────┼────────────┤");
 
-        double total = 0;
-        for (Map.Entry<String, Double> entry : expenseByCategory.entrySet()) {
-            System.out.printf("│ %-20s │ %10.2f │%n",
+        long total = 0;
+        for (Map.Entry<String, Long> entry : sumByCategory.entrySet()) {
+            System.out.printf("│ %-20s │ %10s │%n",
                     truncate(entry.getKey(), 20),
-                    entry.getValue());
+                    Money.format(entry.getValue()));
             total += entry.getValue();
         }
 
         System.out.println("├──────────────────────┼────────────┤");
-        System.out.printf("│ %-20s │ %10.2f │%n", "ИТОГО:", total);
+        System.out.printf("│ %-20s │ %10s │%n", "ИТОГО:", Money.format(total));
         System.out.println("└──────────────────────┴────────────┘");
     }
 
-    private void totalIncomeExpense() {
-        LocalDate[] period = readDatePeriod();
-        if (period == null) return;
-
-        double income = analyticsService.getTotalIncome(period[0], period[1]);
-        double expense = analyticsService.getTotalExpense(period[0], period[1]);
-
-        System.out.println("\n💰 ОБЩИЕ СУММЫ ЗА ПЕРИОД:");
-        System.out.printf("Доходы:  %.2f%n", income);
-        System.out.printf("Расходы: %.2f%n", expense);
-        System.out.printf("Разница: %.2f%n", income - expense);
-    }
-
     private String truncate(String str, int length) {
         if (str == null) return "";
         if (str.length() <= length) return str;
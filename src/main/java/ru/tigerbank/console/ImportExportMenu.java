@@ -4,10 +4,12 @@ import org.springframework.stereotype.Component;
 import ru.tigerbank.console.utils.ConsoleReader;
 import ru.tigerbank.service.importexport.ImportExportService;
 import ru.tigerbank.service.importexport.model.DataSnapshot;
+import ru.tigerbank.service.operation.OperationResult;
 
 import java.io.*;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 
 @Component
 public class ImportExportMenu {
@@ -35,6 +37,7 @@ public class ImportExportMenu {
                 case "4" -> importJson();
                 case "5" -> importCsv();
                 case "6" -> importYaml();
+                case "7" -> saveCheckpoint();
                 case "0" -> back = true;
                 default -> System.out.println("❌ Неверный выбор.");
             }
@@ -49,6 +52,7 @@ public class ImportExportMenu {
         System.out.println("4. Импорт из JSON");
         System.out.println("5. Импорт из CSV");
         System.out.println("6. Импорт из YAML");
+        System.out.println("7. Сохранить контрольную точку");
         System.out.println("0. Назад");
     }
 
@@ -84,6 +88,15 @@ public class ImportExportMenu {
         }
     }
 
+    private void saveCheckpoint() {
+        try {
+            importExportService.saveCheckpoint();
+            System.out.println("✅ Контрольная точка сохранена");
+        } catch (UncheckedIOException e) {
+            System.out.println("❌ Ошибка при сохранении контрольной точки: " + e.getMessage());
+        }
+    }
+
     private void importJson() {
         importData("json");
     }
@@ -128,9 +141,19 @@ public class ImportExportMenu {
             boolean overwrite = reader.confirm("Заменить существующие данные? (нет - добавить к существующим)");
 
             // Применяем
-            importExportService.applySnapshot(snapshot, overwrite);
+            List<OperationResult> results = importExportService.applySnapshot(snapshot, overwrite);
             System.out.println("✅ Данные импортированы");
 
+            List<OperationResult> rejected = results.stream()
+                    .filter(result -> !result.isSuccess())
+                    .toList();
+            if (!rejected.isEmpty()) {
+                System.out.println("⚠️ Пропущено операций: " + rejected.size());
+                rejected.stream()
+                        .limit(5)
+                        .forEach(result -> System.out.println("  - " + result.getError()));
+            }
+
         } catch (IOException e) {
             System.out.println("❌ Ошибка при импорте: " + e.getMessage());
         } catch (IllegalArgumentException e) {
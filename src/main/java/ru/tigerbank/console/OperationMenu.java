@@ -5,19 +5,26 @@ import ru.tigerbank.console.utils.ConsoleReader;
 import ru.tigerbank.console.utils.TablePrinter;
 import ru.tigerbank.domain.BankAccount;
 import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.Money;
 import ru.tigerbank.domain.Operation;
 import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.OperationQuery;
 import ru.tigerbank.service.account.BankAccountService;
 import ru.tigerbank.service.category.CategoryService;
 import ru.tigerbank.service.operation.OperationService;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
 
 @Component
 public class OperationMenu {
 
+    private static final int PAGE_SIZE = 20;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
     private final OperationService operationService;
     private final BankAccountService accountService;
     private final CategoryService categoryService;
@@ -53,6 +60,8 @@ public class OperationMenu {
                 case "7" -> updateDescription();
                 case "8" -> changeCategory();
                 case "9" -> deleteOperation();
+                case "10" -> searchOperations();
+                case "11" -> largestOperations();
                 case "0" -> back = true;
                 default -> System.out.println("❌ Неверный выбор.");
             }
@@ -70,6 +79,8 @@ public class OperationMenu {
         System.out.println("7. Изменить описание");
         System.out.println("8. Изменить категорию");
         System.out.println("9. Удалить операцию");
+        System.out.println("10. Поиск по нескольким условиям");
+        System.out.println("11. Самые крупные операции за период");
         System.out.println("0. Назад");
     }
 
@@ -131,7 +142,7 @@ public class OperationMenu {
             return;
         }
 
-        Double amount = reader.readDouble("Введите сумму");
+        Long amount = reader.readAmount("Введите сумму");
         if (amount == null || amount <= 0) {
             System.out.println("❌ Сумма должна быть положительным числом");
             return;
@@ -159,43 +170,134 @@ public class OperationMenu {
     }
 
     private void listAllOperations() {
-        tablePrinter.printOperations(operationService.getAllOperations());
+        printPages(OperationQuery.all());
     }
 
     private void listOperationsByAccount() {
         Integer accountId = reader.readInt("Введите ID счета");
         if (accountId == null) return;
 
-        try {
-            List<Operation> operations = operationService.getOperationsByAccount(accountId);
-            tablePrinter.printOperations(operations);
-        } catch (IllegalArgumentException e) {
-            System.out.println("❌ " + e.getMessage());
+        if (accountService.getAccount(accountId).isEmpty()) {
+            System.out.println("❌ Счет не найден");
+            return;
         }
+        printPages(OperationQuery.all().withAccount(accountId));
     }
 
     private void listOperationsByCategory() {
         Integer categoryId = reader.readInt("Введите ID категории");
         if (categoryId == null) return;
 
+        if (categoryService.getCategory(categoryId).isEmpty()) {
+            System.out.println("❌ Категория не найдена");
+            return;
+        }
+        printPages(OperationQuery.all().withCategory(categoryId));
+    }
+
+    // Выводит операции страницами: следующая страница читается только по запросу
+    private void printPages(OperationQuery query) {
+        Integer afterId = null;
+        while (true) {
+            List<Operation> page = operationService.getOperationsPage(afterId, PAGE_SIZE, query);
+            if (page.isEmpty() && afterId != null) {
+                System.out.println("Больше операций нет");
+                return;
+            }
+            tablePrinter.printOperations(page);
+            if (page.size() < PAGE_SIZE) {
+                return;
+            }
+            afterId = page.get(page.size() - 1).getId();
+            if (!reader.confirm("Показать следующие " + PAGE_SIZE + "?")) {
+                return;
+            }
+        }
+    }
+
+    private void listOperationsByDateRange() {
+        LocalDate from = reader.readDate("Введите начальную дату");
+        if (from == null) return;
+
+        LocalDate to = reader.readDate("Введите конечную дату");
+        if (to == null) return;
+
         try {
-            List<Operation> operations = operationService.getOperationsByCategory(categoryId);
+            List<Operation> operations = operationService.getOperationsByDateRange(from, to);
             tablePrinter.printOperations(operations);
         } catch (IllegalArgumentException e) {
             System.out.println("❌ " + e.getMessage());
         }
     }
 
-    private void listOperationsByDateRange() {
+    private void largestOperations() {
         LocalDate from = reader.readDate("Введите начальную дату");
         if (from == null) return;
 
         LocalDate to = reader.readDate("Введите конечную дату");
         if (to == null) return;
 
+        OperationQuery query = OperationQuery.all().withDateRange(from, to);
+        String type = reader.readString("Тип: 1 — доход, 2 — расход (Enter — любой)");
+        if (type.equals("1")) {
+            query = query.withType(OperationType.INCOME);
+        } else if (type.equals("2")) {
+            query = query.withType(OperationType.EXPENSE);
+        }
+
+        Integer limit = reader.readInt("Сколько операций показать");
+        if (limit == null) return;
+
         try {
-            List<Operation> operations = operationService.getOperationsByDateRange(from, to);
-            tablePrinter.printOperations(operations);
+            tablePrinter.printOperations(operationService.getLargestOperations(query, limit));
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ " + e.getMessage());
+        }
+    }
+
+    // Каждое условие необязательно: пустой ввод означает «любое значение»
+    private void searchOperations() {
+        OperationQuery query = OperationQuery.all();
+        try {
+            String account = reader.readString("ID счета (Enter — любой)");
+            if (!account.isEmpty()) {
+                query = query.withAccount(Integer.parseInt(account));
+            }
+            String category = reader.readString("ID категории (Enter — любая)");
+            if (!category.isEmpty()) {
+                query = query.withCategory(Integer.parseInt(category));
+            }
+            String type = reader.readString("Тип: 1 — доход, 2 — расход (Enter — любой)");
+            if (type.equals("1")) {
+                query = query.withType(OperationType.INCOME);
+            } else if (type.equals("2")) {
+                query = query.withType(OperationType.EXPENSE);
+            }
+            String from = reader.readString("Начальная дата дд.мм.гггг (Enter — без ограничения)");
+            String to = reader.readString("Конечная дата дд.мм.гггг (Enter — без ограничения)");
+            if (!from.isEmpty() || !to.isEmpty()) {
+                query = query.withDateRange(
+                        from.isEmpty() ? LocalDate.MIN : LocalDate.parse(from, DATE_FORMAT),
+                        to.isEmpty() ? LocalDate.MAX : LocalDate.parse(to, DATE_FORMAT));
+            }
+            String min = reader.readString("Минимальная сумма (Enter — без ограничения)");
+            String max = reader.readString("Максимальная сумма (Enter — без ограничения)");
+            if (!min.isEmpty() || !max.isEmpty()) {
+                query = query.withAmountRange(
+                        min.isEmpty() ? Long.MIN_VALUE : Money.parse(min),
+                        max.isEmpty() ? Long.MAX_VALUE : Money.parse(max));
+            }
+            String text = reader.readString("Текст в описании (Enter — любой)").toLowerCase();
+            if (!text.isEmpty()) {
+                query = query.withDescription(d -> d != null && d.toLowerCase().contains(text));
+            }
+        } catch (IllegalArgumentException | ArithmeticException | DateTimeParseException e) {
+            System.out.println("❌ Некорректный ввод");
+            return;
+        }
+
+        try {
+            tablePrinter.printOperations(operationService.findOperations(query));
         } catch (IllegalArgumentException e) {
             System.out.println("❌ " + e.getMessage());
         }
@@ -1,6 +1,8 @@
 package ru.tigerbank.console;
 
 import org.springframework.stereotype.Component;
+import ru.tigerbank.repository.checkpoint.CheckpointManager;
+import ru.tigerbank.repository.checkpoint.RestoreResult;
 
 @Component
 public class TigerBankConsole {
@@ -10,24 +12,28 @@ public class TigerBankConsole {
     private final OperationMenu operationMenu;
     private final AnalyticsMenu analyticsMenu;
     private final ImportExportMenu importExportMenu;
+    private final CheckpointManager checkpointManager;
 
     public TigerBankConsole(
             AccountMenu accountMenu,
             CategoryMenu categoryMenu,
             OperationMenu operationMenu,
             AnalyticsMenu analyticsMenu,
-            ImportExportMenu importExportMenu) {
+            ImportExportMenu importExportMenu,
+            CheckpointManager checkpointManager) {
         this.accountMenu = accountMenu;
         this.categoryMenu = categoryMenu;
         this.operationMenu = operationMenu;
         this.analyticsMenu = analyticsMenu;
         this.importExportMenu = importExportMenu;
+        this.checkpointManager = checkpointManager;
     }
 
     public void start() {
         System.out.println("=====================================");
         System.out.println("🐯 Добро пожаловать в ТигрБанк!");
         System.out.println("=====================================");
+        printRestoreResult();
 
         boolean running = true;
         while (running) {
@@ -49,6 +55,16 @@ public class TigerBankConsole {
         }
     }
 
+    private void printRestoreResult() {
+        RestoreResult result = checkpointManager.getRestoreResult();
+        if (result.fromCheckpoint()) {
+            System.out.println("✅ Загружена контрольная точка: " + result.checkpointOperations() + " операций");
+        }
+        if (result.replayedRecords() > 0) {
+            System.out.println("✅ Восстановлено записей из журнала: " + result.replayedRecords());
+        }
+    }
+
     private void printMainMenu() {
         System.out.println("\n-------------------------------------");
         System.out.println("ГЛАВНОЕ МЕНЮ:");
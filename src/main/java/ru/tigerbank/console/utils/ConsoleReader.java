@@ -1,6 +1,7 @@
 package ru.tigerbank.console.utils;
 
 import org.springframework.stereotype.Component;
+import ru.tigerbank.domain.Money;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -27,12 +28,13 @@ public class ConsoleReader {
         }
     }
 
-    public Double readDouble(String prompt) {
+    // Сумма в копейках (см. Money)
+    public Long readAmount(String prompt) {
         System.out.print(prompt + ": ");
         try {
-            return Double.parseDouble(scanner.nextLine().trim().replace(',', '.'));
-        } catch (NumberFormatException e) {
-            System.out.println("❌ Некорректный ввод. Ожидается число.");
+            return Money.parse(scanner.nextLine().trim());
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            System.out.println("❌ Некорректный ввод. Ожидается сумма, например 1250.50");
             return null;
         }
     }
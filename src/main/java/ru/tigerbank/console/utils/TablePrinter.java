@@ -2,6 +2,7 @@ package ru.tigerbank.console.utils;
 
 import org.springframework.stereotype.Component;
 import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Money;
 
 import java.util.List;
 
@@ -20,10 +21,10 @@ public class TablePrinter {
         System.out.println("├──────┼──────────────────────┼────────────┤");
 
         for (var acc : accounts) {
-            System.out.printf("│ %-4d │ %-20s │ %10.2f │%n",
+            System.out.printf("│ %-4d │ %-20s │ %10s │%n",
                     acc.getId(),
                     truncate(acc.getName(), 20),
-                    acc.getBalance());
+                    Money.format(acc.getBalance()));
         }
 
         System.out.println("└──────┴──────────────────────┴────────────┘");
@@ -62,12 +63,12 @@ public class TablePrinter {
         System.out.println("├──────┼────────┼──────────┼──────────┼────────────┼──────────────────────┤");
 
         for (var op : operations) {
-            System.out.printf("│ %-4d │ %-6s │ %-8d │ %-8d │ %10.2f │ %-10s │ %-20s │%n",
+            System.out.printf("│ %-4d │ %-6s │ %-8d │ %-8d │ %10s │ %-10s │ %-20s │%n",
                     op.getId(),
                     op.getType(),
                     op.getBankAccountId(),
                     op.getCategoryId(),
-                    op.getAmount(),
+                    Money.format(op.getAmount()),
                     op.getDate(),
                     truncate(op.getDescription() != null ? op.getDescription() : "", 20));
         }
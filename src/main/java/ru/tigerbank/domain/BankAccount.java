@@ -3,7 +3,8 @@ package ru.tigerbank.domain;
 public class BankAccount {
     private Integer id;
     private String name;
-    private double balance;
+    // В копейках (см. Money)
+    private long balance;
 
     public BankAccount() { }
 
@@ -13,14 +14,14 @@ public class BankAccount {
         }
         this.id = id;
         this.name = name;
-        this.balance = 0.0;
+        this.balance = 0;
     }
 
     public Integer getId() { return id; }
     public String getName() { return name; }
-    public double getBalance() { return balance; }
+    public long getBalance() { return balance; }
 
-    public void setBalance(double balance) {
+    public void setBalance(long balance) {
         this.balance = balance;
     }
 }
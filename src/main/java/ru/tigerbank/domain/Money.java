@@ -0,0 +1,72 @@
+package ru.tigerbank.domain;
+
+// Денежные суммы хранятся как long в копейках: сложение точное, без упаковки
+// и без накопления ошибки округления. Разбор и форматирование идут по символам,
+// без BigDecimal и double.
+public final class Money {
+
+    public static final int SCALE = 100;
+    private static final int FRACTION_DIGITS = 2;
+
+    private Money() {
+    }
+
+    public static long ofMajor(long major) {
+        return Math.multiplyExact(major, SCALE);
+    }
+
+    // "1234", "-12.5", "0,05"; больше двух знаков после разделителя — ошибка
+    public static long parse(CharSequence text) {
+        int length = text.length();
+        int position = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            position++;
+        }
+        long major = 0;
+        int majorDigits = 0;
+        for (; position < length && isDigit(text.charAt(position)); position++) {
+            major = Math.addExact(Math.multiplyExact(major, 10), text.charAt(position) - '0');
+            majorDigits++;
+        }
+        long minor = 0;
+        int fractionDigits = 0;
+        if (position < length && (text.charAt(position) == '.' || text.charAt(position) == ',')) {
+            position++;
+            for (; position < length && isDigit(text.charAt(position)); position++) {
+                if (++fractionDigits > FRACTION_DIGITS) {
+                    throw new IllegalArgumentException("Too many fraction digits in amount: " + text);
+                }
+                minor = minor * 10 + (text.charAt(position) - '0');
+            }
+        }
+        if (position != length || majorDigits + fractionDigits == 0) {
+            throw new IllegalArgumentException("Invalid amount: " + text);
+        }
+        for (; fractionDigits < FRACTION_DIGITS; fractionDigits++) {
+            minor *= 10;
+        }
+        long amount = Math.addExact(ofMajor(major), minor);
+        return negative ? -amount : amount;
+    }
+
+    // Всегда два знака после точки: 1234 -> "12.34", -5 -> "-0.05"
+    public static String format(long amount) {
+        StringBuilder result = new StringBuilder(24);
+        if (amount < 0) {
+            result.append('-');
+        }
+        long major = Math.abs(amount / SCALE);
+        int minor = (int) Math.abs(amount % SCALE);
+        result.append(major).append('.');
+        if (minor < 10) {
+            result.append('0');
+        }
+        return result.append(minor).toString();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
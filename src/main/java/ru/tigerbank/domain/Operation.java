@@ -10,14 +10,15 @@ public class Operation {
     private OperationType type;
     private Integer bankAccountId;
     private Integer categoryId;
-    private double amount;
+    // В копейках (см. Money)
+    private long amount;
     private LocalDate date;
     private String description;
 
     public Operation() { }
 
     public Operation(Integer id, OperationType type, Integer bankAccountId,
-                     Integer categoryId, double amount, LocalDate date,
+                     Integer categoryId, long amount, LocalDate date,
                      String description) {
 
         if (amount <= 0) {
@@ -28,7 +28,7 @@ public class DefaultEntityFactory extends EntityFactory {
     }
 
     @Override
-    public Operation createOperation(Integer accountId, Integer categoryId, double amount, OperationType type, String description) {
+    public Operation createOperation(Integer accountId, Integer categoryId, long amount, OperationType type, String description) {
         return new Operation(operationIdGenerator.getAndIncrement(), type, accountId, categoryId, amount, LocalDate.now(), description);
     }
 }
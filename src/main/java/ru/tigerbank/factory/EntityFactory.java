@@ -10,6 +10,6 @@ import java.math.BigDecimal;
 public abstract class EntityFactory {
     public abstract BankAccount createBankAccount(String name);
     public abstract Category createCategory(String name, OperationType type);
-    public abstract Operation createOperation(Integer accountId, Integer categoryId, double amount,
+    public abstract Operation createOperation(Integer accountId, Integer categoryId, long amount,
                                               OperationType type, String description);
 }
@@ -2,13 +2,16 @@ package ru.tigerbank.repository;
 
 import ru.tigerbank.domain.BankAccount;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface BankAccountRepository {
     BankAccount save(BankAccount account);
+    List<BankAccount> saveAll(Collection<BankAccount> accounts);
     Optional<BankAccount> findById(Integer id);
     List<BankAccount> findAll();
     void deleteById(Integer id);
+    void deleteAll();
     boolean existsById(Integer id);
 }
@@ -0,0 +1,170 @@
+package ru.tigerbank.repository;
+
+import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.OperationType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Неизменяемый снимок категорий для чтения: категории лежат плотным массивом по индексу
+// (0..size-1, в порядке ID), ID переводится в индекс обращением к массиву. Аналитика
+// копит суммы в long[] по индексу и переводит индексы в названия один раз в конце.
+// Репозиторий заменяет снимок при каждом изменении категорий (copy-on-write): одна
+// категория — withSaved/without за O(n) без сортировки, пакет — of один раз.
+// Читатели берут текущий снимок без блокировок.
+public final class CategoryCatalog {
+
+    // При редких больших ID (импорт чужих выгрузок) массив ID -> индекс не строится
+    private static final int MAX_SPARSE_FACTOR = 4;
+    private static final int MIN_DENSE_IDS = 1024;
+
+    private static final CategoryCatalog EMPTY = new CategoryCatalog(new Category[0]);
+
+    private final Category[] categories;
+    // ID -> индекс + 1 (0 — нет категории); null, если ID слишком разрежены или отрицательны
+    private final int[] indexById;
+    private final Map<Integer, Integer> sparseIndexById;
+    private final int[][] indexesByType = new int[OperationType.values().length][];
+
+    // categories уже упорядочены по ID
+    private CategoryCatalog(Category[] categories) {
+        this.categories = categories;
+
+        int minId = categories.length == 0 ? 0 : categories[0].getId();
+        int maxId = categories.length == 0 ? 0 : categories[categories.length - 1].getId();
+        if (minId >= 0 && maxId < Math.max(MIN_DENSE_IDS, categories.length * MAX_SPARSE_FACTOR)) {
+            indexById = new int[maxId + 1];
+            sparseIndexById = null;
+        } else {
+            indexById = null;
+            sparseIndexById = new HashMap<>();
+        }
+
+        int[] typeCounts = new int[indexesByType.length];
+        for (Category category : categories) {
+            typeCounts[category.getType().ordinal()]++;
+        }
+        for (int type = 0; type < indexesByType.length; type++) {
+            indexesByType[type] = new int[typeCounts[type]];
+            typeCounts[type] = 0;
+        }
+        for (int index = 0; index < categories.length; index++) {
+            Category category = categories[index];
+            if (indexById != null) {
+                indexById[category.getId()] = index + 1;
+            } else {
+                sparseIndexById.put(category.getId(), index);
+            }
+            int type = category.getType().ordinal();
+            indexesByType[type][typeCounts[type]++] = index;
+        }
+    }
+
+    public static CategoryCatalog of(Collection<Category> categories) {
+        if (categories.isEmpty()) {
+            return EMPTY;
+        }
+        Category[] sorted = categories.toArray(new Category[0]);
+        Arrays.sort(sorted, Comparator.comparing(Category::getId));
+        return new CategoryCatalog(sorted);
+    }
+
+    // Снимок, в котором категория добавлена или заменена
+    public CategoryCatalog withSaved(Category category) {
+        int position = search(category.getId());
+        Category[] next;
+        if (position >= 0) {
+            next = categories.clone();
+            next[position] = category;
+        } else {
+            int insertAt = -position - 1;
+            next = new Category[categories.length + 1];
+            System.arraycopy(categories, 0, next, 0, insertAt);
+            next[insertAt] = category;
+            System.arraycopy(categories, insertAt, next, insertAt + 1, categories.length - insertAt);
+        }
+        return new CategoryCatalog(next);
+    }
+
+    // Снимок без категории с этим ID (тот же, если ее нет)
+    public CategoryCatalog without(Integer id) {
+        int position = search(id);
+        if (position < 0) {
+            return this;
+        }
+        if (categories.length == 1) {
+            return EMPTY;
+        }
+        Category[] next = new Category[categories.length - 1];
+        System.arraycopy(categories, 0, next, 0, position);
+        System.arraycopy(categories, position + 1, next, position, next.length - position);
+        return new CategoryCatalog(next);
+    }
+
+    public int size() {
+        return categories.length;
+    }
+
+    // Индекс категории с этим ID или -1
+    public int indexOf(Integer id) {
+        if (id == null) {
+            return -1;
+        }
+        if (indexById != null) {
+            return id >= 0 && id < indexById.length ? indexById[id] - 1 : -1;
+        }
+        Integer index = sparseIndexById.get(id);
+        return index == null ? -1 : index;
+    }
+
+    public Category at(int index) {
+        return categories[index];
+    }
+
+    // Категория с этим ID или null
+    public Category get(Integer id) {
+        int index = indexOf(id);
+        return index < 0 ? null : categories[index];
+    }
+
+    public boolean contains(Integer id) {
+        return indexOf(id) >= 0;
+    }
+
+    public List<Category> all() {
+        return Collections.unmodifiableList(Arrays.asList(categories));
+    }
+
+    // Позиция ID в упорядоченном массиве, как у Arrays.binarySearch
+    private int search(int id) {
+        int low = 0;
+        int high = categories.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = categories[middle].getId();
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    public List<Category> byType(OperationType type) {
+        int[] indexes = indexesByType[type.ordinal()];
+        List<Category> result = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            result.add(categories[index]);
+        }
+        return result;
+    }
+}
@@ -3,14 +3,24 @@ package ru.tigerbank.repository;
 import ru.tigerbank.domain.Category;
 import ru.tigerbank.domain.OperationType;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface CategoryRepository {
     Category save(Category category);
+    List<Category> saveAll(Collection<Category> categories);
     Optional<Category> findById(Integer id);
     List<Category> findAll();
     List<Category> findByType(OperationType type);
     void deleteById(Integer id);
+    void deleteAll();
     boolean existsById(Integer id);
+
+    // Текущий снимок категорий для чтения без блокировок (см. CategoryCatalog)
+    CategoryCatalog catalog();
+
+    // Подписка на изменения категорий: обработчик вызывается после каждого изменения,
+    // когда оно уже видно читателям, под блокировкой репозитория
+    void addListener(Runnable listener);
 }
@@ -0,0 +1,32 @@
+package ru.tigerbank.repository;
+
+import java.nio.file.Path;
+
+// Каталог данных приложения (журнал, контрольная точка). Не зависит от рабочего
+// каталога процесса: по умолчанию ~/.tigerbank, переопределяется свойством
+// tigerbank.data. Путь к отдельному файлу можно задать своим свойством целиком.
+public final class DataDirectory {
+
+    public static final String PROPERTY = "tigerbank.data";
+    private static final String DEFAULT_NAME = ".tigerbank";
+
+    private DataDirectory() {
+    }
+
+    public static Path get() {
+        String configured = System.getProperty(PROPERTY);
+        if (configured != null && !configured.isBlank()) {
+            return Path.of(configured).toAbsolutePath();
+        }
+        return Path.of(System.getProperty("user.home"), DEFAULT_NAME);
+    }
+
+    // Путь из свойства fileProperty, иначе fileName внутри каталога данных
+    public static Path resolve(String fileProperty, String fileName) {
+        String configured = System.getProperty(fileProperty);
+        if (configured != null && !configured.isBlank()) {
+            return Path.of(configured).toAbsolutePath();
+        }
+        return get().resolve(fileName);
+    }
+}
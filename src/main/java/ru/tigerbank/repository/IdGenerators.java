@@ -0,0 +1,30 @@
+package ru.tigerbank.repository;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Выдача ID при пакетном сохранении, общая для всех репозиториев
+public final class IdGenerators {
+
+    private IdGenerators() {
+    }
+
+    // Сдвигает генератор за все заданные ID и одним шагом резервирует блок под новые.
+    // Возвращает первый ID блока: элементы без ID получают его и следующие по порядку.
+    public static <T> int reserveBlock(AtomicInteger generator, Collection<T> items, Function<T, Integer> idOf) {
+        int maxId = 0;
+        int newCount = 0;
+        for (T item : items) {
+            Integer id = idOf.apply(item);
+            if (id == null) {
+                newCount++;
+            } else {
+                maxId = Math.max(maxId, id);
+            }
+        }
+        int floor = maxId + 1;
+        generator.updateAndGet(current -> Math.max(current, floor));
+        return generator.getAndAdd(newCount);
+    }
+}
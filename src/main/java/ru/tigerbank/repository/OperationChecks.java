@@ -0,0 +1,35 @@
+package ru.tigerbank.repository;
+
+import ru.tigerbank.domain.Operation;
+
+import java.util.Collection;
+
+// Общие для всех хранилищ операций условия: операция проверяется до любых изменений,
+// чтобы ни одно хранилище не оставило наполовину записанную строку. Колоночные
+// хранилища держат день как int, поэтому все хранилища принимают только такие даты.
+public final class OperationChecks {
+
+    private OperationChecks() {
+    }
+
+    public static void requireStorable(Operation operation) {
+        Integer id = operation.getId();
+        if (id != null && id < 0) {
+            throw new IllegalArgumentException("Operation id must not be negative: " + id);
+        }
+        if (operation.getType() == null || operation.getBankAccountId() == null
+                || operation.getCategoryId() == null || operation.getDate() == null) {
+            throw new IllegalArgumentException("Operation type, account, category and date are required");
+        }
+        long day = operation.getDate().toEpochDay();
+        if (day < Integer.MIN_VALUE || day > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Operation date is out of range: " + operation.getDate());
+        }
+    }
+
+    public static void requireStorable(Collection<Operation> operations) {
+        for (Operation operation : operations) {
+            requireStorable(operation);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.tigerbank.repository;
+
+import ru.tigerbank.domain.Operation;
+
+import java.util.List;
+
+// Получает изменения операций. Вызывается под блокировкой записи репозитория,
+// поэтому обработчик должен быть быстрым и не обращаться к самому репозиторию.
+public interface OperationListener {
+
+    // previous — прежняя версия операции с тем же ID или null для новой
+    void onSaved(Operation previous, Operation saved);
+
+    void onDeleted(Operation deleted);
+
+    // Пакет новых операций, добавленных разом: загрузка контрольной точки или подписка
+    // на уже заполненное хранилище. По умолчанию — как отдельные сохранения; подписчики,
+    // которым выгоднее перестроиться целиком, переопределяют метод
+    default void onLoaded(List<Operation> loaded) {
+        for (Operation operation : loaded) {
+            onSaved(null, operation);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.tigerbank.repository;
+
+import ru.tigerbank.domain.Operation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Список подписчиков репозитория операций. Методы вызываются под блокировкой
+// записи репозитория, так что подписчики видят изменения в порядке их применения.
+public final class OperationListeners {
+
+    private final List<OperationListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Новый подписчик сначала получает все уже сохраненные операции
+    public void add(OperationListener listener, List<Operation> existing) {
+        if (!existing.isEmpty()) {
+            listener.onLoaded(existing);
+        }
+        listeners.add(listener);
+    }
+
+    public boolean isEmpty() {
+        return listeners.isEmpty();
+    }
+
+    public void saved(Operation previous, Operation saved) {
+        for (OperationListener listener : listeners) {
+            listener.onSaved(previous, saved);
+        }
+    }
+
+    public void loaded(List<Operation> loaded) {
+        if (loaded.isEmpty()) {
+            return;
+        }
+        for (OperationListener listener : listeners) {
+            listener.onLoaded(loaded);
+        }
+    }
+
+    public void deleted(Operation deleted) {
+        for (OperationListener listener : listeners) {
+            listener.onDeleted(deleted);
+        }
+    }
+}
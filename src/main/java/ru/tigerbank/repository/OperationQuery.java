@@ -0,0 +1,128 @@
+package ru.tigerbank.repository;
+
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Запрос к операциям из нескольких условий. Неизменяемый: каждый with* возвращает
+// новый запрос, повторный вызов заменяет условие. Репозиторий сам выбирает,
+// по какому индексу выполнять запрос (OperationRepository.find).
+public final class OperationQuery {
+
+    private static final OperationQuery ALL = new OperationQuery(
+            null, null, null, Long.MIN_VALUE, Long.MAX_VALUE,
+            Long.MIN_VALUE, Long.MAX_VALUE, null);
+
+    // Отсортированные ID; null — любые
+    private final int[] accountIds;
+    private final int[] categoryIds;
+    private final OperationType type;
+    private final long fromDay;
+    private final long toDay;
+    // В копейках
+    private final long minAmount;
+    private final long maxAmount;
+    private final Predicate<String> description;
+
+    private OperationQuery(int[] accountIds, int[] categoryIds, OperationType type, long fromDay, long toDay,
+                           long minAmount, long maxAmount, Predicate<String> description) {
+        this.accountIds = accountIds;
+        this.categoryIds = categoryIds;
+        this.type = type;
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+        this.description = description;
+    }
+
+    public static OperationQuery all() {
+        return ALL;
+    }
+
+    public OperationQuery withAccount(int accountId) {
+        return withAccounts(List.of(accountId));
+    }
+
+    public OperationQuery withAccounts(Collection<Integer> ids) {
+        return new OperationQuery(sorted(ids), categoryIds, type, fromDay, toDay, minAmount, maxAmount, description);
+    }
+
+    public OperationQuery withCategory(int categoryId) {
+        return withCategories(List.of(categoryId));
+    }
+
+    public OperationQuery withCategories(Collection<Integer> ids) {
+        return new OperationQuery(accountIds, sorted(ids), type, fromDay, toDay, minAmount, maxAmount, description);
+    }
+
+    public OperationQuery withType(OperationType type) {
+        return new OperationQuery(accountIds, categoryIds, type, fromDay, toDay, minAmount, maxAmount, description);
+    }
+
+    public OperationQuery withDateRange(LocalDate from, LocalDate to) {
+        return new OperationQuery(accountIds, categoryIds, type, from.toEpochDay(), to.toEpochDay(),
+                minAmount, maxAmount, description);
+    }
+
+    public OperationQuery withAmountRange(long min, long max) {
+        return new OperationQuery(accountIds, categoryIds, type, fromDay, toDay, min, max, description);
+    }
+
+    public OperationQuery withDescription(Predicate<String> predicate) {
+        return new OperationQuery(accountIds, categoryIds, type, fromDay, toDay, minAmount, maxAmount, predicate);
+    }
+
+    // Условия для планировщика
+    public int[] getAccountIds() { return accountIds == null ? null : accountIds.clone(); }
+    public int[] getCategoryIds() { return categoryIds == null ? null : categoryIds.clone(); }
+    public OperationType getType() { return type; }
+    public long getFromDay() { return fromDay; }
+    public long getToDay() { return toDay; }
+    public boolean hasDateRange() { return fromDay != Long.MIN_VALUE || toDay != Long.MAX_VALUE; }
+    public boolean hasDescription() { return description != null; }
+    public boolean hasAmountRange() { return minAmount != Long.MIN_VALUE || maxAmount != Long.MAX_VALUE; }
+
+    // Проверки отдельных полей, без упаковки примитивов
+    public boolean acceptsAccount(int accountId) {
+        return accountIds == null || Arrays.binarySearch(accountIds, accountId) >= 0;
+    }
+
+    public boolean acceptsCategory(int categoryId) {
+        return categoryIds == null || Arrays.binarySearch(categoryIds, categoryId) >= 0;
+    }
+
+    public boolean acceptsType(OperationType operationType) {
+        return type == null || type == operationType;
+    }
+
+    public boolean acceptsDay(long epochDay) {
+        return epochDay >= fromDay && epochDay <= toDay;
+    }
+
+    public boolean acceptsAmount(long amount) {
+        return amount >= minAmount && amount <= maxAmount;
+    }
+
+    public boolean acceptsDescription(String value) {
+        return description == null || description.test(value);
+    }
+
+    public boolean matches(Operation operation) {
+        return acceptsType(operation.getType())
+                && acceptsAccount(operation.getBankAccountId())
+                && acceptsCategory(operation.getCategoryId())
+                && acceptsDay(operation.getDate().toEpochDay())
+                && acceptsAmount(operation.getAmount())
+                && acceptsDescription(operation.getDescription());
+    }
+
+    private static int[] sorted(Collection<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+    }
+}
@@ -4,19 +4,97 @@ import ru.tigerbank.domain.Operation;
 import ru.tigerbank.domain.OperationType;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public interface OperationRepository {
+    // Все реализации одинаково отклоняют операции, не прошедшие OperationChecks
+    // (отрицательный ID, пустые поля, дата вне диапазона int-дней): IllegalArgumentException,
+    // хранилище не меняется
     Operation save(Operation operation);
+    // Пакетное сохранение: ID для новых операций выделяются одним блоком,
+    // результат идет в порядке входной коллекции
+    List<Operation> saveAll(Collection<Operation> operations);
+    // Массовая загрузка при восстановлении: операции с новыми уникальными ID добавляются
+    // под одной блокировкой, без журнала, подписчики получают весь пакет одним onLoaded.
+    // Занятый или повторяющийся ID — IllegalArgumentException, хранилище не меняется
+    void load(Collection<Operation> operations);
     Optional<Operation> findById(Integer id);
     List<Operation> findAll();
     List<Operation> findByBankAccountId(Integer bankAccountId);
     List<Operation> findByCategoryId(Integer categoryId);
     List<Operation> findByDateBetween(LocalDate from, LocalDate to);
     List<Operation> findByType(OperationType type);
+
+    // Выборка по нескольким условиям; путь доступа (индекс или полный проход)
+    // репозиторий выбирает по своей статистике
+    List<Operation> find(OperationQuery query);
+    void forEach(OperationQuery query, Consumer<Operation> consumer);
+    // Агрегаты по запросу (в копейках): сумма amount и разница доходов и расходов.
+    // По умолчанию — через reduce, колоночное хранилище считает их ядрами по колонкам.
+    default long sumAmounts(OperationQuery query) {
+        return sumAmounts(query, ParallelScan.sequential());
+    }
+
+    default long sumNet(OperationQuery query) {
+        return sumNet(query, ParallelScan.sequential());
+    }
+
+    default long sumAmounts(OperationQuery query, ParallelScan scan) {
+        return reduce(query, () -> new long[1], (sum, operation) -> sum[0] += operation.getAmount(),
+                OperationRepository::addSums, scan)[0];
+    }
+
+    default long sumNet(OperationQuery query, ParallelScan scan) {
+        return reduce(query, () -> new long[1], (sum, operation) -> sum[0] += operation.getType() == OperationType.INCOME
+                ? operation.getAmount()
+                : -operation.getAmount(), OperationRepository::addSums, scan)[0];
+    }
+
+    // Свертка подходящих операций: каждая часть обхода копит свой аккумулятор
+    // (supplier + accumulator), частичные результаты сливаются combiner.
+    // Хранилища с построчной раскладкой делят обход на части и считают их на пуле scan;
+    // по умолчанию — один последовательный обход forEach.
+    default <A> A reduce(OperationQuery query, Supplier<A> supplier, BiConsumer<A, Operation> accumulator,
+                         BinaryOperator<A> combiner, ParallelScan scan) {
+        A result = supplier.get();
+        forEach(query, operation -> accumulator.accept(result, operation));
+        return result;
+    }
+
+    // Первые limit подходящих операций по порядку order (ограниченная куча, см. TopN).
+    // Обход идет по тому же плану, что и forEach, то есть по индексу дат, если он есть.
+    default List<Operation> findTop(OperationQuery query, Comparator<Operation> order, int limit, ParallelScan scan) {
+        return reduce(query, () -> new TopN<>(limit, order), TopN::add, TopN::merge, scan).toList();
+    }
+
+    // Самые крупные операции: по убыванию суммы, при равных суммах — по ID
+    default List<Operation> findLargest(OperationQuery query, int limit, ParallelScan scan) {
+        return findTop(query, Comparator.comparingLong(Operation::getAmount).reversed()
+                .thenComparing(Operation::getId), limit, scan);
+    }
+
+    private static long[] addSums(long[] left, long[] right) {
+        left[0] += right[0];
+        return left;
+    }
+
+    // Страница по ключу: до limit операций с ID больше afterId (null — с начала)
+    // в порядке возрастания ID. Следующая страница запрашивается с ID последней операции.
+    List<Operation> findPage(Integer afterId, int limit, OperationQuery query);
+
     boolean existsByBankAccountId(Integer bankAccountId);
     boolean existsByCategoryId(Integer categoryId);
     void deleteById(Integer id);
     void deleteByBankAccountId(Integer bankAccountId);
+    void deleteAll();
+
+    // Подписка на изменения (см. OperationListener)
+    void addListener(OperationListener listener);
 }
@@ -0,0 +1,116 @@
+package ru.tigerbank.repository;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+// Параллельная агрегация по строкам хранилища: диапазон [0, rows) делится пополам,
+// пока части не станут меньше chunkRows, части считаются на отдельном ForkJoinPool,
+// частичные результаты сливаются combiner. Таблицы меньше threshold строк считаются
+// в вызывающем потоке.
+//
+// Хранилище держит блокировку чтения на время всего reduce, поэтому задачи видят одно
+// состояние таблицы и сами блокировку не берут. Настраивается по профилю (AnalyticsConfig).
+public final class ParallelScan implements AutoCloseable {
+
+    public static final String PARALLEL_PROPERTY = "tigerbank.analytics.parallel";
+    public static final String PARALLELISM_PROPERTY = "tigerbank.analytics.parallelism";
+    public static final String THRESHOLD_PROPERTY = "tigerbank.analytics.parallel-threshold";
+
+    public static final int DEFAULT_THRESHOLD = 200_000;
+    // Частей примерно в 4 раза больше, чем потоков: неравные части выравниваются кражей задач
+    private static final int CHUNKS_PER_THREAD = 4;
+    // Меньшие части не окупают постановку задачи (но не больше порога)
+    private static final int MIN_CHUNK_ROWS = 16_384;
+
+    private static final ParallelScan SEQUENTIAL = new ParallelScan(null, Integer.MAX_VALUE);
+
+    // Вычисление частичного результата по строкам [from, to)
+    @FunctionalInterface
+    public interface RangeFunction<A> {
+        A apply(int from, int to);
+    }
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    private ParallelScan(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    public static ParallelScan sequential() {
+        return SEQUENTIAL;
+    }
+
+    public static ParallelScan parallel(int parallelism, int threshold) {
+        if (parallelism < 1 || threshold < 1) {
+            throw new IllegalArgumentException("Parallelism and threshold must be positive");
+        }
+        return new ParallelScan(new ForkJoinPool(parallelism), threshold);
+    }
+
+    // Свойства tigerbank.analytics.* переопределяют значения профиля
+    public static ParallelScan fromProperties(boolean parallelByDefault) {
+        boolean parallel = Boolean.parseBoolean(
+                System.getProperty(PARALLEL_PROPERTY, String.valueOf(parallelByDefault)));
+        int parallelism = Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
+        if (!parallel || parallelism < 2) {
+            return SEQUENTIAL;
+        }
+        return parallel(parallelism, Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD));
+    }
+
+    public boolean isParallel() {
+        return pool != null;
+    }
+
+    public int getParallelism() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    public <A> A reduce(int rows, RangeFunction<A> range, BinaryOperator<A> combiner) {
+        if (pool == null || rows < threshold) {
+            return range.apply(0, rows);
+        }
+        int minChunkRows = Math.min(MIN_CHUNK_ROWS, threshold);
+        int chunks = Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, Math.max(1, rows / minChunkRows));
+        int chunkRows = (rows + chunks - 1) / chunks;
+        return pool.invoke(new RangeTask<>(0, rows, chunkRows, range, combiner));
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static final class RangeTask<A> extends RecursiveTask<A> {
+        private final int from;
+        private final int to;
+        private final int chunkRows;
+        private final RangeFunction<A> range;
+        private final BinaryOperator<A> combiner;
+
+        RangeTask(int from, int to, int chunkRows, RangeFunction<A> range, BinaryOperator<A> combiner) {
+            this.from = from;
+            this.to = to;
+            this.chunkRows = chunkRows;
+            this.range = range;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= chunkRows) {
+                return range.apply(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            RangeTask<A> left = new RangeTask<>(from, middle, chunkRows, range, combiner);
+            left.fork();
+            A right = new RangeTask<>(middle, to, chunkRows, range, combiner).compute();
+            return combiner.apply(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.tigerbank.repository;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Группы строк колоночного хранилища по ключу (например, по счету). Каждая группа —
+// двусвязный список на массивах next/prev, для ключа хранится первая строка и размер.
+// Проверка наличия и размер группы — O(1), обход — только по строкам группы.
+// Не потокобезопасен: вызывается под блокировкой хранилища.
+public final class RowChains {
+
+    private static final int NONE = -1;
+
+    private static final class Chain {
+        int head = NONE;
+        int size;
+    }
+
+    private int[] next;
+    private int[] prev;
+    private final Map<Integer, Chain> chains = new HashMap<>();
+
+    public RowChains(int capacity) {
+        next = new int[capacity];
+        prev = new int[capacity];
+    }
+
+    public void ensureCapacity(int required) {
+        if (required <= next.length) {
+            return;
+        }
+        int capacity = Math.max(required, next.length * 2);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+    }
+
+    public void add(int key, int row) {
+        Chain chain = chains.computeIfAbsent(key, k -> new Chain());
+        prev[row] = NONE;
+        next[row] = chain.head;
+        if (chain.head != NONE) {
+            prev[chain.head] = row;
+        }
+        chain.head = row;
+        chain.size++;
+    }
+
+    public void remove(int key, int row) {
+        Chain chain = chains.get(key);
+        if (prev[row] == NONE) {
+            chain.head = next[row];
+        } else {
+            next[prev[row]] = next[row];
+        }
+        if (next[row] != NONE) {
+            prev[next[row]] = prev[row];
+        }
+        if (--chain.size == 0) {
+            chains.remove(key);
+        }
+    }
+
+    // Строка from переехала на свободное место to (при удалении последняя строка
+    // встает на место удаленной)
+    public void move(int key, int from, int to) {
+        prev[to] = prev[from];
+        next[to] = next[from];
+        if (prev[to] == NONE) {
+            chains.get(key).head = to;
+        } else {
+            next[prev[to]] = to;
+        }
+        if (next[to] != NONE) {
+            prev[next[to]] = to;
+        }
+    }
+
+    public boolean contains(int key) {
+        return chains.containsKey(key);
+    }
+
+    public int size(int key) {
+        Chain chain = chains.get(key);
+        return chain == null ? 0 : chain.size;
+    }
+
+    // Строки группы по возрастанию
+    public int[] rows(int key) {
+        Chain chain = chains.get(key);
+        if (chain == null) {
+            return new int[0];
+        }
+        int[] rows = new int[chain.size];
+        int count = 0;
+        for (int row = chain.head; row != NONE; row = next[row]) {
+            rows[count++] = row;
+        }
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    public void clear() {
+        chains.clear();
+    }
+}
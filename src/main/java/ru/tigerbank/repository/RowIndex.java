@@ -0,0 +1,123 @@
+package ru.tigerbank.repository;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+
+// ID операции -> номер строки колоночного хранилища. Пока ID плотные, это массив
+// по ID; если ID разрежены (импорт или восстановление с очень большими ID, массовое
+// удаление), индекс переходит на упорядоченную карту. Обход по возрастанию ID
+// (higherId) в обоих режимах стоит O(числа пройденных операций), а не O(максимального ID).
+// Не потокобезопасен: вызывается под блокировкой хранилища.
+public final class RowIndex {
+
+    public static final int NO_ROW = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // Массив не длиннее MAX_SPARSE_FACTOR * (числа операций) (но не короче MIN_DENSE_IDS)
+    private static final int MAX_SPARSE_FACTOR = 4;
+    private static final int MIN_DENSE_IDS = 1 << 16;
+
+    private int[] dense = newDense(INITIAL_CAPACITY);
+    // Не null — разреженный режим, dense при этом не используется
+    private TreeMap<Integer, Integer> sparse;
+    private int size;
+
+    public int get(Integer id) {
+        if (id == null || id < 0) {
+            return NO_ROW;
+        }
+        if (sparse != null) {
+            Integer row = sparse.get(id);
+            return row == null ? NO_ROW : row;
+        }
+        return id < dense.length ? dense[id] : NO_ROW;
+    }
+
+    // Добавляет или переназначает строку операции
+    public void put(int id, int row) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Operation id must not be negative: " + id);
+        }
+        if (sparse == null && id >= dense.length) {
+            long required = Math.max(id + 1L, (long) dense.length * 2);
+            if (required > Math.max(MIN_DENSE_IDS, (long) (size + 1) * MAX_SPARSE_FACTOR)) {
+                toSparse();
+            } else {
+                int oldLength = dense.length;
+                dense = Arrays.copyOf(dense, (int) Math.min(required, Integer.MAX_VALUE));
+                Arrays.fill(dense, oldLength, dense.length, NO_ROW);
+            }
+        }
+        if (sparse != null) {
+            if (sparse.put(id, row) == null) {
+                size++;
+            }
+            return;
+        }
+        if (dense[id] == NO_ROW) {
+            size++;
+        }
+        dense[id] = row;
+    }
+
+    public void remove(int id) {
+        if (sparse != null) {
+            if (sparse.remove(id) != null) {
+                size--;
+            }
+            return;
+        }
+        if (id < 0 || id >= dense.length || dense[id] == NO_ROW) {
+            return;
+        }
+        dense[id] = NO_ROW;
+        size--;
+        // После массового удаления обход по массиву упирался бы в пустые ячейки
+        if (dense.length > MIN_DENSE_IDS && (long) size * MAX_SPARSE_FACTOR * 2 < dense.length) {
+            toSparse();
+        }
+    }
+
+    // Наименьший ID больше afterId или -1; afterId = -1 — с начала
+    public int higherId(int afterId) {
+        if (afterId == Integer.MAX_VALUE) {
+            return -1;
+        }
+        if (sparse != null) {
+            Integer id = sparse.higherKey(afterId);
+            return id == null ? -1 : id;
+        }
+        for (int id = Math.max(afterId + 1, 0); id < dense.length; id++) {
+            if (dense[id] != NO_ROW) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        dense = newDense(INITIAL_CAPACITY);
+        sparse = null;
+        size = 0;
+    }
+
+    private void toSparse() {
+        sparse = new TreeMap<>();
+        for (int id = 0; id < dense.length; id++) {
+            if (dense[id] != NO_ROW) {
+                sparse.put(id, dense[id]);
+            }
+        }
+        dense = newDense(0);
+    }
+
+    private static int[] newDense(int capacity) {
+        int[] rows = new int[capacity];
+        Arrays.fill(rows, NO_ROW);
+        return rows;
+    }
+}
@@ -0,0 +1,175 @@
+package ru.tigerbank.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+// Общий словарь строк (описания операций, названия счетов и категорий).
+// Одинаковые строки хранятся один раз, хранилища держат вместо них int-код.
+//
+// Хранилище берет код через acquire и возвращает через release; счетчик ссылок
+// показывает, используется ли строка. intern только выдает общий экземпляр строки
+// (для импорта). evictUnused убирает строки без ссылок, их коды используются повторно;
+// он вызывается сам, когда освобожденных строк набирается много (удаления), и после импорта.
+@Component
+public class StringDictionary {
+
+    public static final String EVICT_PROPERTY = "tigerbank.dictionary.evict";
+    public static final int NULL_CODE = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // Метка вытесненной записи в счетчике ссылок
+    private static final int EVICTED = -1;
+    // Сколько строк должно освободиться, чтобы словарь вытеснил их сам (но не меньше
+    // половины словаря, чтобы полный проход по нему окупался)
+    private static final int EVICT_THRESHOLD = 1024;
+
+    private static final class Entry {
+        final String value;
+        final int code;
+        final AtomicInteger references = new AtomicInteger();
+
+        Entry(String value, int code) {
+            this.value = value;
+            this.code = code;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final boolean evictUnused;
+
+    // Изменяются только под блокировкой словаря; byCode читается без нее
+    private volatile Entry[] byCode = new Entry[INITIAL_CAPACITY];
+    private int nextCode;
+    private int[] freeCodes = new int[0];
+    private int freeCount;
+    // Строки, счетчик которых дошел до нуля после последнего вытеснения (оценка сверху:
+    // строку могли снова взять)
+    private final AtomicInteger released = new AtomicInteger();
+
+    public StringDictionary() {
+        this(Boolean.parseBoolean(System.getProperty(EVICT_PROPERTY, "true")));
+    }
+
+    public StringDictionary(boolean evictUnused) {
+        this.evictUnused = evictUnused;
+    }
+
+    // Код строки с увеличением счетчика ссылок; для null — NULL_CODE
+    public int acquire(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        while (true) {
+            Entry entry = entries.get(value);
+            if (entry == null) {
+                entry = create(value);
+            }
+            int references = entry.references.get();
+            if (references == EVICTED) {
+                // Запись как раз вытесняется: create дождется конца вытеснения
+                create(value);
+            } else if (entry.references.compareAndSet(references, references + 1)) {
+                return entry.code;
+            }
+        }
+    }
+
+    public void release(int code) {
+        if (code != NULL_CODE && code < byCode.length) {
+            release(byCode[code]);
+        }
+    }
+
+    public void release(String value) {
+        if (value != null) {
+            release(entries.get(value));
+        }
+    }
+
+    public String decode(int code) {
+        return code == NULL_CODE ? null : byCode[code].value;
+    }
+
+    // Общий экземпляр строки без учета ссылок
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        Entry entry = entries.get(value);
+        return entry != null ? entry.value : create(value).value;
+    }
+
+    // Коды всех строк, удовлетворяющих условию: условие вычисляется один раз на строку словаря
+    public BitSet codesMatching(Predicate<String> predicate) {
+        Entry[] snapshot = byCode;
+        BitSet matching = new BitSet(snapshot.length);
+        for (Entry entry : snapshot) {
+            if (entry != null && predicate.test(entry.value)) {
+                matching.set(entry.code);
+            }
+        }
+        return matching;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Убирает строки, на которые никто не ссылается. Возвращает число убранных строк.
+    public synchronized int evictUnused() {
+        if (!evictUnused) {
+            return 0;
+        }
+        released.set(0);
+        int evicted = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.references.compareAndSet(0, EVICTED)) {
+                entries.remove(entry.value, entry);
+                byCode[entry.code] = null;
+                if (freeCount == freeCodes.length) {
+                    freeCodes = Arrays.copyOf(freeCodes, Math.max(16, freeCount * 2));
+                }
+                freeCodes[freeCount++] = entry.code;
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    // Строки нет (уже вытеснена) или на нее не осталось ссылок: освобождать нечего,
+    // счетчик не уходит в минус и не портит отметку EVICTED
+    private void release(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        int previous = entry.references.getAndUpdate(references -> references > 0 ? references - 1 : references);
+        if (previous == 1 && evictUnused
+                && released.incrementAndGet() >= Math.max(EVICT_THRESHOLD, entries.size() / 2)) {
+            evictUnused();
+        }
+    }
+
+    private synchronized Entry create(String value) {
+        Entry existing = entries.get(value);
+        if (existing != null && existing.references.get() != EVICTED) {
+            return existing;
+        }
+        int code = freeCount > 0 ? freeCodes[--freeCount] : nextCode++;
+        Entry[] table = byCode;
+        if (code >= table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        Entry entry = new Entry(value, code);
+        // Сначала код, потом строка в общей таблице: увидевший запись в entries увидит и код
+        table[code] = entry;
+        byCode = table;
+        entries.put(value, entry);
+        return entry;
+    }
+}
@@ -0,0 +1,50 @@
+package ru.tigerbank.repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Первые limit элементов потока по порядку order без сортировки всего потока.
+// Куча держит не больше limit элементов, в вершине — худший из отобранных:
+// новый элемент либо отбрасывается одним сравнением, либо заменяет вершину.
+// Память O(limit), время O(n log limit). Не потокобезопасен: при параллельном
+// обходе у каждой части своя куча, кучи сливаются merge.
+public final class TopN<T> {
+
+    private final int limit;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+
+    public TopN(int limit, Comparator<? super T> order) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative: " + limit);
+        }
+        this.limit = limit;
+        this.order = order;
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(limit, 1024)), order.reversed());
+    }
+
+    public void add(T item) {
+        if (heap.size() < limit) {
+            heap.add(item);
+        } else if (limit > 0 && order.compare(item, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    public TopN<T> merge(TopN<T> other) {
+        for (T item : other.heap) {
+            add(item);
+        }
+        return this;
+    }
+
+    // Отобранные элементы по порядку order
+    public List<T> toList() {
+        List<T> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+}
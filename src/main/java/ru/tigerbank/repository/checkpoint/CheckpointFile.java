@@ -0,0 +1,294 @@
+package ru.tigerbank.repository.checkpoint;
+
+import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Бинарная контрольная точка с фиксированной раскладкой. Файл читается через mmap.
+//
+// Заголовок (64 байта): magic, версия, поколение и позиция журнала, количества записей,
+// смещение таблицы строк. Далее идут записи фиксированной длины: счета (16 байт),
+// категории (12 байт), операции (32 байта), а в конце — таблица строк
+// (длина + UTF-8). Строки в записях хранятся как номера в этой таблице, -1 — null.
+public final class CheckpointFile implements AutoCloseable {
+
+    private static final int MAGIC = 0x54424331; // "TBC1"
+    // Версия 2: суммы в копейках (long) вместо double
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int ACCOUNT_SIZE = 16;
+    private static final int CATEGORY_SIZE = 12;
+    private static final int OPERATION_SIZE = 32;
+    private static final int NULL_STRING = -1;
+
+    private static final OperationType[] OPERATION_TYPES = OperationType.values();
+    // Размер окна отображения для секции операций (кратен размеру записи)
+    private static final long OPERATION_WINDOW = (Integer.MAX_VALUE / OPERATION_SIZE) * (long) OPERATION_SIZE;
+
+    private final FileChannel channel;
+    private final long journalGeneration;
+    private final long journalPosition;
+    private final int accountCount;
+    private final int categoryCount;
+    private final int operationCount;
+    private final String[] strings;
+
+    private CheckpointFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = map(0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a TigerBank checkpoint");
+        }
+        int version = header.getInt(4);
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported checkpoint version: " + version);
+        }
+        journalGeneration = header.getLong(8);
+        journalPosition = header.getLong(16);
+        int stringCount = header.getInt(24);
+        accountCount = header.getInt(28);
+        categoryCount = header.getInt(32);
+        operationCount = header.getInt(36);
+        long stringsOffset = header.getLong(40);
+
+        strings = new String[stringCount];
+        ByteBuffer table = map(stringsOffset, channel.size() - stringsOffset);
+        for (int i = 0; i < stringCount; i++) {
+            byte[] bytes = new byte[table.getInt()];
+            table.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    public static CheckpointFile open(Path path) {
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                return new CheckpointFile(channel);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open checkpoint " + path, e);
+        }
+    }
+
+    public long getJournalGeneration() { return journalGeneration; }
+    public long getJournalPosition() { return journalPosition; }
+    public int getAccountCount() { return accountCount; }
+    public int getCategoryCount() { return categoryCount; }
+    public int getOperationCount() { return operationCount; }
+
+    public void forEachAccount(Consumer<BankAccount> consumer) {
+        ByteBuffer section = mapUnchecked(accountsOffset(), (long) accountCount * ACCOUNT_SIZE);
+        for (int i = 0; i < accountCount; i++) {
+            int base = i * ACCOUNT_SIZE;
+            BankAccount account = new BankAccount(section.getInt(base), strings[section.getInt(base + 4)]);
+            account.setBalance(section.getLong(base + 8));
+            consumer.accept(account);
+        }
+    }
+
+    public void forEachCategory(Consumer<Category> consumer) {
+        ByteBuffer section = mapUnchecked(categoriesOffset(), (long) categoryCount * CATEGORY_SIZE);
+        for (int i = 0; i < categoryCount; i++) {
+            int base = i * CATEGORY_SIZE;
+            consumer.accept(new Category(
+                    section.getInt(base),
+                    OPERATION_TYPES[section.getInt(base + 8)],
+                    strings[section.getInt(base + 4)]
+            ));
+        }
+    }
+
+    public void forEachOperation(Consumer<Operation> consumer) {
+        long offset = operationsOffset();
+        long remaining = (long) operationCount * OPERATION_SIZE;
+        while (remaining > 0) {
+            long length = Math.min(remaining, OPERATION_WINDOW);
+            ByteBuffer section = mapUnchecked(offset, length);
+            int records = (int) (length / OPERATION_SIZE);
+            for (int i = 0; i < records; i++) {
+                int base = i * OPERATION_SIZE;
+                int description = section.getInt(base + 24);
+                consumer.accept(new Operation(
+                        section.getInt(base),
+                        OPERATION_TYPES[section.get(base + 28)],
+                        section.getInt(base + 4),
+                        section.getInt(base + 8),
+                        section.getLong(base + 16),
+                        LocalDate.ofEpochDay(section.getInt(base + 12)),
+                        description == NULL_STRING ? null : strings[description]
+                ));
+            }
+            offset += length;
+            remaining -= length;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close checkpoint", e);
+        }
+    }
+
+    public static void write(
+            Path path,
+            long journalGeneration,
+            long journalPosition,
+            Collection<BankAccount> accounts,
+            Collection<Category> categories,
+            Collection<Operation> operations) {
+
+        Map<String, Integer> stringTable = new LinkedHashMap<>();
+        long stringsOffset = HEADER_SIZE
+                + (long) accounts.size() * ACCOUNT_SIZE
+                + (long) categories.size() * CATEGORY_SIZE
+                + (long) operations.size() * OPERATION_SIZE;
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BufferedWriter out = new BufferedWriter(channel);
+
+            out.reserve(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(journalGeneration)
+                    .putLong(journalPosition)
+                    .putInt(0) // количество строк запишем в конце
+                    .putInt(accounts.size())
+                    .putInt(categories.size())
+                    .putInt(operations.size())
+                    .putLong(stringsOffset)
+                    .put(new byte[16]);
+
+            for (BankAccount account : accounts) {
+                out.reserve(ACCOUNT_SIZE)
+                        .putInt(account.getId())
+                        .putInt(intern(stringTable, account.getName()))
+                        .putLong(account.getBalance());
+            }
+            for (Category category : categories) {
+                out.reserve(CATEGORY_SIZE)
+                        .putInt(category.getId())
+                        .putInt(intern(stringTable, category.getName()))
+                        .putInt(category.getType().ordinal());
+            }
+            for (Operation operation : operations) {
+                out.reserve(OPERATION_SIZE)
+                        .putInt(operation.getId())
+                        .putInt(operation.getBankAccountId())
+                        .putInt(operation.getCategoryId())
+                        .putInt(Math.toIntExact(operation.getDate().toEpochDay()))
+                        .putLong(operation.getAmount())
+                        .putInt(intern(stringTable, operation.getDescription()))
+                        .put((byte) operation.getType().ordinal())
+                        .put(new byte[3]);
+            }
+            for (String value : stringTable.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.reserve(Integer.BYTES).putInt(bytes.length);
+                out.write(bytes);
+            }
+            out.flush();
+
+            ByteBuffer count = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            count.putInt(0, stringTable.size());
+            channel.write(count, 24);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write checkpoint " + path, e);
+        }
+    }
+
+    private static int intern(Map<String, Integer> stringTable, String value) {
+        if (value == null) {
+            return NULL_STRING;
+        }
+        return stringTable.computeIfAbsent(value, k -> stringTable.size());
+    }
+
+    private long accountsOffset() {
+        return HEADER_SIZE;
+    }
+
+    private long categoriesOffset() {
+        return accountsOffset() + (long) accountCount * ACCOUNT_SIZE;
+    }
+
+    private long operationsOffset() {
+        return categoriesOffset() + (long) categoryCount * CATEGORY_SIZE;
+    }
+
+    private MappedByteBuffer map(long offset, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private MappedByteBuffer mapUnchecked(long offset, long length) {
+        try {
+            return map(offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map checkpoint", e);
+        }
+    }
+
+    // Буферизованная запись в канал блоками по 1 МБ
+    private static final class BufferedWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+        BufferedWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        ByteBuffer reserve(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+
+        void write(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
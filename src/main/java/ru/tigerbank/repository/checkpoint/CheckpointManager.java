@@ -0,0 +1,139 @@
+package ru.tigerbank.repository.checkpoint;
+
+import org.springframework.stereotype.Component;
+import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.repository.BankAccountRepository;
+import ru.tigerbank.repository.CategoryRepository;
+import ru.tigerbank.repository.DataDirectory;
+import ru.tigerbank.repository.OperationRepository;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.journal.JournalReplayer;
+import ru.tigerbank.repository.snapshot.Snapshot;
+import ru.tigerbank.repository.snapshot.SnapshotManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Восстанавливает состояние при старте (контрольная точка + хвост журнала)
+// и сохраняет контрольную точку по запросу и при остановке приложения.
+@Component
+public class CheckpointManager implements AutoCloseable {
+
+    public static final String PATH_PROPERTY = "tigerbank.checkpoint";
+    private static final String FILE_NAME = "checkpoint.bin";
+    // Операции загружаются пакетами: без копии всей таблицы в куче
+    private static final int LOAD_BATCH_SIZE = 65_536;
+
+    private final Path path;
+    private final Journal journal;
+    private final JournalReplayer journalReplayer;
+    private final BankAccountRepository accountRepository;
+    private final CategoryRepository categoryRepository;
+    private final OperationRepository operationRepository;
+    private final SnapshotManager snapshotManager;
+    private final RestoreResult restoreResult;
+
+    public CheckpointManager(
+            Journal journal,
+            JournalReplayer journalReplayer,
+            BankAccountRepository accountRepository,
+            CategoryRepository categoryRepository,
+            OperationRepository operationRepository,
+            SnapshotManager snapshotManager) {
+        this.path = DataDirectory.resolve(PATH_PROPERTY, FILE_NAME);
+        this.journal = journal;
+        this.journalReplayer = journalReplayer;
+        this.accountRepository = accountRepository;
+        this.categoryRepository = categoryRepository;
+        this.operationRepository = operationRepository;
+        this.snapshotManager = snapshotManager;
+
+        this.restoreResult = restore();
+    }
+
+    // Что было восстановлено при старте; выводит консоль
+    public RestoreResult getRestoreResult() {
+        return restoreResult;
+    }
+
+    public synchronized void checkpoint() {
+        // Сначала фиксируем позицию журнала: все, что записано до нее, попадет в снимок.
+        // Записи после нее воспроизводятся при старте повторно, что безопасно,
+        // так как каждая запись задает состояние целиком. Снимок открывается после
+        // этого, поэтому все изменения до позиции в нем есть, а счета, категории
+        // и операции берутся на один и тот же момент.
+        long generation = journal.getGeneration();
+        long position = journal.syncedPosition();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Snapshot snapshot = snapshotManager.open()) {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            CheckpointFile.write(
+                    temporary,
+                    generation,
+                    position,
+                    snapshot.getAccounts(),
+                    snapshot.getCategories(),
+                    snapshot.getOperations()
+            );
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save checkpoint " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        // При остановке писателей уже нет: снимок содержит все, журнал можно начать заново
+        checkpoint();
+        journal.reset();
+    }
+
+    // Счета и категории сохраняются пакетом, операции — массовой загрузкой (load):
+    // одна блокировка на пакет и одно обновление подписчиков вместо записи на каждую строку
+    private RestoreResult restore() {
+        long journalFrom = 0;
+        int checkpointOperations = -1;
+        if (Files.exists(path)) {
+            try (CheckpointFile checkpoint = CheckpointFile.open(path)) {
+                journal.runWithoutLogging(() -> {
+                    List<BankAccount> accounts = new ArrayList<>(checkpoint.getAccountCount());
+                    checkpoint.forEachAccount(accounts::add);
+                    accountRepository.saveAll(accounts);
+
+                    List<Category> categories = new ArrayList<>(checkpoint.getCategoryCount());
+                    checkpoint.forEachCategory(categories::add);
+                    categoryRepository.saveAll(categories);
+
+                    List<Operation> batch = new ArrayList<>(Math.min(checkpoint.getOperationCount(), LOAD_BATCH_SIZE));
+                    checkpoint.forEachOperation(operation -> {
+                        batch.add(operation);
+                        if (batch.size() == LOAD_BATCH_SIZE) {
+                            operationRepository.load(batch);
+                            batch.clear();
+                        }
+                    });
+                    operationRepository.load(batch);
+                });
+                // Если журнал уже начат заново, его нужно воспроизвести целиком
+                if (checkpoint.getJournalGeneration() == journal.getGeneration()) {
+                    journalFrom = checkpoint.getJournalPosition();
+                }
+                checkpointOperations = checkpoint.getOperationCount();
+            }
+        }
+
+        int replayed = journalReplayer.replay(journal, journalFrom);
+        return new RestoreResult(checkpointOperations, replayed);
+    }
+}
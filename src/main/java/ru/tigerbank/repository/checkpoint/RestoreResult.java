@@ -0,0 +1,10 @@
+package ru.tigerbank.repository.checkpoint;
+
+// Итог восстановления при старте: checkpointOperations — операций из контрольной точки
+// (-1, если ее не было), replayedRecords — воспроизведено записей журнала
+public record RestoreResult(int checkpointOperations, int replayedRecords) {
+
+    public boolean fromCheckpoint() {
+        return checkpointOperations >= 0;
+    }
+}
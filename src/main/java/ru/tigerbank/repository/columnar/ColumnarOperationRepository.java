@@ -0,0 +1,634 @@
+package ru.tigerbank.repository.columnar;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.IdGenerators;
+import ru.tigerbank.repository.OperationChecks;
+import ru.tigerbank.repository.OperationListener;
+import ru.tigerbank.repository.OperationListeners;
+import ru.tigerbank.repository.OperationQuery;
+import ru.tigerbank.repository.OperationRepository;
+import ru.tigerbank.repository.ParallelScan;
+import ru.tigerbank.repository.RowChains;
+import ru.tigerbank.repository.RowIndex;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.journal.JournalRecord;
+import ru.tigerbank.repository.snapshot.VersionLog;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Колоночное хранилище операций (struct-of-arrays): каждая операция — строка
+// в параллельных массивах примитивов, объекты Operation создаются только при чтении.
+// Включается профилем "columnar".
+@Repository
+@Profile("columnar")
+public class ColumnarOperationRepository implements OperationRepository {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_ROW = RowIndex.NO_ROW;
+    private static final int STREAM_BATCH_SIZE = 1024;
+    private static final int NULL_DESCRIPTION = StringDictionary.NULL_CODE;
+    private static final OperationType[] TYPES = OperationType.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Колонки
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] bankAccountIds = new int[INITIAL_CAPACITY];
+    private int[] categoryIds = new int[INITIAL_CAPACITY];
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private int[] descriptionCodes = new int[INITIAL_CAPACITY];
+    // OperationType.ordinal(); int-колонка той же ширины, что дни и счета, чтобы ядра
+    // суммирования строили по ней маски
+    private int[] types = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // ID операции -> номер строки (NO_ROW, если операции нет)
+    private final RowIndex rowById = new RowIndex();
+    // Строки каждого счета и каждой категории: проверки перед удалением и каскадное
+    // удаление не проходят по всей таблице
+    private final RowChains rowsByAccount = new RowChains(INITIAL_CAPACITY);
+    private final RowChains rowsByCategory = new RowChains(INITIAL_CAPACITY);
+
+    // Изменяется только под блокировкой записи; атомарный тип нужен общему IdGenerators
+    private final AtomicInteger idGenerator = new AtomicInteger(1);
+    private final OperationListeners listeners = new OperationListeners();
+    private final Journal journal;
+    private final VersionLog versions;
+    // Общий словарь описаний: в строках хранятся только коды
+    private final StringDictionary dictionary;
+    // Суммы по дате, типу и счету (векторное ядро или скалярное)
+    private final SumKernel kernel = SumKernel.best();
+
+    public ColumnarOperationRepository(Journal journal, VersionLog versions, StringDictionary dictionary) {
+        this.journal = journal;
+        this.versions = versions;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public Operation save(Operation operation) {
+        OperationChecks.requireStorable(operation);
+        Operation saved;
+        long sequence;
+        lock.writeLock().lock();
+        versions.beginWrite();
+        try {
+            Operation toStore = operation.getId() == null ? withId(operation, idGenerator.get()) : operation;
+            // Запись журнала кодируется до изменения: ошибка кодирования ничего не меняет
+            byte[] record = journal.encode(JournalRecord.saveOperation(toStore));
+            saved = store(toStore);
+            sequence = journal.append(record);
+        } finally {
+            versions.endWrite();
+            lock.writeLock().unlock();
+        }
+        journal.awaitDurable(sequence);
+        return saved;
+    }
+
+    @Override
+    public List<Operation> saveAll(Collection<Operation> operations) {
+        // Пакет проверяется целиком: ошибка в одной операции не оставляет половину пакета
+        OperationChecks.requireStorable(operations);
+        List<Operation> saved = new ArrayList<>(operations.size());
+        long sequence = 0;
+        lock.writeLock().lock();
+        versions.beginWrite();
+        try {
+            ensureCapacity(size + operations.size());
+            int next = IdGenerators.reserveBlock(idGenerator, operations, Operation::getId);
+            // Все записи журнала кодируются до первого изменения
+            List<Operation> toStore = new ArrayList<>(operations.size());
+            List<byte[]> records = new ArrayList<>(operations.size());
+            for (Operation operation : operations) {
+                Operation assigned = operation.getId() == null ? withId(operation, next++) : operation;
+                toStore.add(assigned);
+                records.add(journal.encode(JournalRecord.saveOperation(assigned)));
+            }
+            for (int i = 0; i < toStore.size(); i++) {
+                saved.add(store(toStore.get(i)));
+                sequence = journal.append(records.get(i));
+            }
+        } finally {
+            versions.endWrite();
+            lock.writeLock().unlock();
+        }
+        journal.awaitDurable(sequence);
+        return saved;
+    }
+
+    @Override
+    public void load(Collection<Operation> operations) {
+        List<Operation> loaded = new ArrayList<>(operations);
+        lock.writeLock().lock();
+        versions.beginWrite();
+        try {
+            requireNewIds(loaded);
+            ensureCapacity(size + loaded.size());
+            for (Operation operation : loaded) {
+                int id = operation.getId();
+                if (id >= idGenerator.get()) {
+                    idGenerator.set(id + 1);
+                }
+                versions.recordOperation(id, null);
+                int row = newRow(id);
+                writeRow(row, operation);
+                link(row);
+            }
+            listeners.loaded(loaded);
+        } finally {
+            versions.endWrite();
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Operation> findById(Integer id) {
+        lock.readLock().lock();
+        try {
+            int row = rowOf(id);
+            return row == NO_ROW ? Optional.empty() : Optional.of(materialize(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Operation> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Operation> result = new ArrayList<>(size);
+            for (int row = 0; row < size; row++) {
+                result.add(materialize(row));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Operation> findByBankAccountId(Integer bankAccountId) {
+        lock.readLock().lock();
+        try {
+            return materializeRows(rowsByAccount.rows(bankAccountId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Operation> findByCategoryId(Integer categoryId) {
+        lock.readLock().lock();
+        try {
+            return materializeRows(rowsByCategory.rows(categoryId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Operation> findByDateBetween(LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+
+        lock.readLock().lock();
+        try {
+            int[] rows = new int[16];
+            int count = 0;
+            for (int row = 0; row < size; row++) {
+                int day = epochDays[row];
+                if (day >= fromDay && day <= toDay) {
+                    if (count == rows.length) {
+                        rows = Arrays.copyOf(rows, count * 2);
+                    }
+                    rows[count++] = row;
+                }
+            }
+
+            // Хронологический порядок, как у индекса по дате в InMemoryOperationRepository
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = ((long) epochDays[rows[i]] << 32) | (ids[rows[i]] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(keys);
+
+            List<Operation> result = new ArrayList<>(count);
+            for (long key : keys) {
+                result.add(materialize(rowById.get((int) key)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Operation> findByType(OperationType type) {
+        int code = type.ordinal();
+
+        lock.readLock().lock();
+        try {
+            List<Operation> result = new ArrayList<>();
+            for (int row = 0; row < size; row++) {
+                if (types[row] == code) {
+                    result.add(materialize(row));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Operation> find(OperationQuery query) {
+        List<Operation> result = new ArrayList<>();
+        forEach(query, result::add);
+        return result;
+    }
+
+    @Override
+    public void forEach(OperationQuery query, Consumer<Operation> consumer) {
+        lock.readLock().lock();
+        try {
+            scanRows(query, matchingCodes(query), 0, size, consumer);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Части строк сворачиваются на пуле scan; блокировка чтения держится до слияния всех частей
+    @Override
+    public <A> A reduce(OperationQuery query, Supplier<A> supplier, BiConsumer<A, Operation> accumulator,
+                        BinaryOperator<A> combiner, ParallelScan scan) {
+        lock.readLock().lock();
+        try {
+            BitSet matchingCodes = matchingCodes(query);
+            return scan.reduce(size, (from, to) -> {
+                A partial = supplier.get();
+                scanRows(query, matchingCodes, from, to, operation -> accumulator.accept(partial, operation));
+                return partial;
+            }, combiner);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long sumAmounts(OperationQuery query, ParallelScan scan) {
+        return aggregate(query, false, scan);
+    }
+
+    @Override
+    public long sumNet(OperationQuery query, ParallelScan scan) {
+        return aggregate(query, true, scan);
+    }
+
+    // Дата, тип и один счет проверяются ядром прямо по колонкам, без создания операций;
+    // запросы с другими условиями считаются обычной сверткой reduce
+    private long aggregate(OperationQuery query, boolean signed, ParallelScan scan) {
+        int[] accountIds = query.getAccountIds();
+        if (query.getCategoryIds() != null || query.hasAmountRange() || query.hasDescription()
+                || (accountIds != null && (accountIds.length != 1 || accountIds[0] == SumKernel.ANY))) {
+            return signed
+                    ? OperationRepository.super.sumNet(query, scan)
+                    : OperationRepository.super.sumAmounts(query, scan);
+        }
+        if (query.getFromDay() > query.getToDay()) {
+            return 0;
+        }
+        int fromDay = (int) Math.max(query.getFromDay(), Integer.MIN_VALUE);
+        int toDay = (int) Math.min(query.getToDay(), Integer.MAX_VALUE);
+        int type = query.getType() == null ? SumKernel.ANY : query.getType().ordinal();
+        int accountId = accountIds == null ? SumKernel.ANY : accountIds[0];
+
+        lock.readLock().lock();
+        try {
+            return scan.reduce(size, (from, to) -> kernel.sum(from, to, epochDays, types, bankAccountIds, amounts,
+                    fromDay, toDay, type, accountId, signed), Long::sum);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Operation> findPage(Integer afterId, int limit, OperationQuery query) {
+        lock.readLock().lock();
+        try {
+            BitSet matchingCodes = matchingCodes(query);
+            boolean nullMatches = query.acceptsDescription(null);
+            List<Operation> page = new ArrayList<>(Math.min(limit, STREAM_BATCH_SIZE));
+            // Проход по ID по возрастанию от afterId + 1 — без пропусков на разреженных ID
+            int id = afterId == null ? -1 : Math.max(afterId, -1);
+            while (page.size() < limit && (id = rowById.higherId(id)) != -1) {
+                int row = rowById.get(id);
+                if (matches(query, matchingCodes, nullMatches, row)) {
+                    page.add(materialize(row));
+                }
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsByBankAccountId(Integer bankAccountId) {
+        lock.readLock().lock();
+        try {
+            return rowsByAccount.contains(bankAccountId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsByCategoryId(Integer categoryId) {
+        lock.readLock().lock();
+        try {
+            return rowsByCategory.contains(categoryId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(Integer id) {
+        long sequence;
+        lock.writeLock().lock();
+        versions.beginWrite();
+        try {
+            int row = rowOf(id);
+            if (row == NO_ROW) {
+                return;
+            }
+            Operation removed = materialize(row);
+            versions.recordOperation(id, removed);
+            removeRow(row);
+            listeners.deleted(removed);
+            sequence = journal.append(JournalRecord.deleteOperation(id));
+        } finally {
+            versions.endWrite();
+            lock.writeLock().unlock();
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void deleteByBankAccountId(Integer bankAccountId) {
+        long sequence;
+        lock.writeLock().lock();
+        versions.beginWrite();
+        try {
+            int[] rows = rowsByAccount.rows(bankAccountId);
+            if (rows.length == 0) {
+                return;
+            }
+            // Запоминаем ID заранее: на место удаленной строки переезжает последняя
+            int[] removedIds = new int[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                removedIds[i] = ids[rows[i]];
+            }
+            for (int id : removedIds) {
+                int row = rowById.get(id);
+                Operation operation = materialize(row);
+                versions.recordOperation(id, operation);
+                removeRow(row);
+                listeners.deleted(operation);
+            }
+            sequence = journal.append(JournalRecord.deleteOperationsByAccount(bankAccountId));
+        } finally {
+            versions.endWrite();
+            lock.writeLock().unlock();
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void deleteAll() {
+        long sequence;
+        lock.writeLock().lock();
+        versions.beginWrite();
+        try {
+            if (size == 0) {
+                return;
+            }
+            if (!listeners.isEmpty() || versions.isRecording()) {
+                for (int row = 0; row < size; row++) {
+                    Operation removed = materialize(row);
+                    versions.recordOperation(removed.getId(), removed);
+                    listeners.deleted(removed);
+                }
+            }
+            for (int row = 0; row < size; row++) {
+                dictionary.release(descriptionCodes[row]);
+            }
+            rowById.clear();
+            rowsByAccount.clear();
+            rowsByCategory.clear();
+            size = 0;
+            sequence = journal.append(JournalRecord.deleteAllOperations());
+        } finally {
+            versions.endWrite();
+            lock.writeLock().unlock();
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void addListener(OperationListener listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.add(listener, findAll());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Вызывается под блокировкой записи; у операции уже есть ID
+    private Operation store(Operation operation) {
+        int id = operation.getId();
+        if (id >= idGenerator.get()) {
+            idGenerator.set(id + 1);
+        }
+        int row = rowOf(id);
+        Operation previous = null;
+        if (row != NO_ROW && (!listeners.isEmpty() || versions.isRecording())) {
+            previous = materialize(row);
+        }
+        versions.recordOperation(id, previous);
+        if (row == NO_ROW) {
+            ensureCapacity(size + 1);
+            row = newRow(id);
+        } else {
+            unlink(row);
+            dictionary.release(descriptionCodes[row]);
+        }
+        writeRow(row, operation);
+        link(row);
+        listeners.saved(previous, operation);
+        return operation;
+    }
+
+    // Новая строка в конце таблицы; место в колонках уже выделено
+    private int newRow(int id) {
+        rowById.put(id, size);
+        return size++;
+    }
+
+    private void requireNewIds(Collection<Operation> operations) {
+        Set<Integer> batch = new HashSet<>();
+        for (Operation operation : operations) {
+            OperationChecks.requireStorable(operation);
+            Integer id = operation.getId();
+            if (id == null || rowOf(id) != NO_ROW || !batch.add(id)) {
+                throw new IllegalArgumentException("Loaded operations need new unique ids: " + id);
+            }
+        }
+    }
+
+    private static Operation withId(Operation operation, int id) {
+        return new Operation(
+                id,
+                operation.getType(),
+                operation.getBankAccountId(),
+                operation.getCategoryId(),
+                operation.getAmount(),
+                operation.getDate(),
+                operation.getDescription()
+        );
+    }
+
+    private int rowOf(Integer id) {
+        return rowById.get(id);
+    }
+
+    // Операция уже прошла OperationChecks: все поля пишутся без исключений
+    private void writeRow(int row, Operation operation) {
+        ids[row] = operation.getId();
+        bankAccountIds[row] = operation.getBankAccountId();
+        categoryIds[row] = operation.getCategoryId();
+        epochDays[row] = (int) operation.getDate().toEpochDay();
+        amounts[row] = operation.getAmount();
+        descriptionCodes[row] = dictionary.acquire(operation.getDescription());
+        types[row] = operation.getType().ordinal();
+    }
+
+    private void removeRow(int row) {
+        int last = size - 1;
+        dictionary.release(descriptionCodes[row]);
+        rowById.remove(ids[row]);
+        unlink(row);
+        if (row != last) {
+            rowsByAccount.move(bankAccountIds[last], last, row);
+            rowsByCategory.move(categoryIds[last], last, row);
+            ids[row] = ids[last];
+            bankAccountIds[row] = bankAccountIds[last];
+            categoryIds[row] = categoryIds[last];
+            epochDays[row] = epochDays[last];
+            amounts[row] = amounts[last];
+            descriptionCodes[row] = descriptionCodes[last];
+            types[row] = types[last];
+            rowById.put(ids[row], row);
+        }
+        size = last;
+    }
+
+    // Вторичных индексов здесь нет, поэтому план всегда один — проход по колонкам.
+    // Сначала проверяются дешевые примитивные условия, а условие на описание
+    // вычисляется один раз на каждую строку словаря, а не на каждую операцию.
+    private void scanRows(OperationQuery query, BitSet matchingCodes, int from, int to, Consumer<Operation> consumer) {
+        boolean nullMatches = query.acceptsDescription(null);
+        for (int row = from; row < to; row++) {
+            if (matches(query, matchingCodes, nullMatches, row)) {
+                consumer.accept(materialize(row));
+            }
+        }
+    }
+
+    private boolean matches(OperationQuery query, BitSet matchingCodes, boolean nullMatches, int row) {
+        return query.acceptsDay(epochDays[row])
+                && query.acceptsType(TYPES[types[row]])
+                && query.acceptsAccount(bankAccountIds[row])
+                && query.acceptsCategory(categoryIds[row])
+                && query.acceptsAmount(amounts[row])
+                && (matchingCodes == null || matchesCode(matchingCodes, nullMatches, descriptionCodes[row]));
+    }
+
+    // Коды подходящих описаний; null — условия на описание нет
+    private BitSet matchingCodes(OperationQuery query) {
+        return query.hasDescription() ? dictionary.codesMatching(query::acceptsDescription) : null;
+    }
+
+    private static boolean matchesCode(BitSet matchingCodes, boolean nullMatches, int code) {
+        return code == NULL_DESCRIPTION ? nullMatches : matchingCodes.get(code);
+    }
+
+    private Operation materialize(int row) {
+        int code = descriptionCodes[row];
+        return new Operation(
+                ids[row],
+                TYPES[types[row]],
+                bankAccountIds[row],
+                categoryIds[row],
+                amounts[row],
+                LocalDate.ofEpochDay(epochDays[row]),
+                dictionary.decode(code)
+        );
+    }
+
+    private List<Operation> materializeRows(int[] rows) {
+        List<Operation> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(materialize(row));
+        }
+        return result;
+    }
+
+    private void link(int row) {
+        rowsByAccount.add(bankAccountIds[row], row);
+        rowsByCategory.add(categoryIds[row], row);
+    }
+
+    private void unlink(int row) {
+        rowsByAccount.remove(bankAccountIds[row], row);
+        rowsByCategory.remove(categoryIds[row], row);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        bankAccountIds = Arrays.copyOf(bankAccountIds, capacity);
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        descriptionCodes = Arrays.copyOf(descriptionCodes, capacity);
+        types = Arrays.copyOf(types, capacity);
+        rowsByAccount.ensureCapacity(capacity);
+        rowsByCategory.ensureCapacity(capacity);
+    }
+}
@@ -0,0 +1,38 @@
+package ru.tigerbank.repository.columnar;
+
+import ru.tigerbank.domain.OperationType;
+
+// Скалярное ядро: один проход без ветвлений по данным, условия складываются
+// побитовым &, поэтому цикл не зависит от предсказания переходов
+final class ScalarSumKernel implements SumKernel {
+
+    static final ScalarSumKernel INSTANCE = new ScalarSumKernel();
+
+    private static final int EXPENSE = OperationType.EXPENSE.ordinal();
+
+    private ScalarSumKernel() {
+    }
+
+    // Также досчитывает хвост, не кратный ширине вектора, в VectorSumKernel
+    @Override
+    public long sum(int from, int to, int[] days, int[] types, int[] accounts, long[] amounts,
+                    int fromDay, int toDay, int type, int accountId, boolean signed) {
+        boolean anyType = type == ANY;
+        boolean anyAccount = accountId == ANY;
+        long sum = 0;
+        for (int row = from; row < to; row++) {
+            int day = days[row];
+            boolean matches = day >= fromDay & day <= toDay
+                    & (anyType | types[row] == type)
+                    & (anyAccount | accounts[row] == accountId);
+            long amount = signed & types[row] == EXPENSE ? -amounts[row] : amounts[row];
+            sum += matches ? amount : 0;
+        }
+        return sum;
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,37 @@
+package ru.tigerbank.repository.columnar;
+
+// Ядро суммирования по колонкам операций: сумма amounts по строкам [from, to), у которых
+// день попадает в [fromDay, toDay], тип равен type, а счет — accountId (ANY — любые).
+// При signed расходы вычитаются, получается разница доходов и расходов.
+// Типы — OperationType.ordinal(), суммы — в копейках.
+public interface SumKernel {
+
+    String VECTOR_PROPERTY = "tigerbank.analytics.vector";
+    int ANY = -1;
+
+    long sum(int from, int to, int[] days, int[] types, int[] accounts, long[] amounts,
+             int fromDay, int toDay, int type, int accountId, boolean signed);
+
+    String getName();
+
+    static SumKernel scalar() {
+        return ScalarSumKernel.INSTANCE;
+    }
+
+    // Векторное ядро, если JVM запущена с --add-modules jdk.incubator.vector
+    // и оно не отключено свойством tigerbank.analytics.vector=false; иначе скалярное
+    static SumKernel best() {
+        if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return scalar();
+        }
+        try {
+            // Через рефлексию: без модуля класс не загрузится, а остальной код от него не зависит
+            return (SumKernel) Class.forName("ru.tigerbank.repository.columnar.VectorSumKernel")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return scalar();
+        }
+    }
+}
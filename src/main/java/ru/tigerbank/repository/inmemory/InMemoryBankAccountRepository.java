@@ -3,8 +3,14 @@ package ru.tigerbank.repository.inmemory;
 import org.springframework.stereotype.Repository;
 import ru.tigerbank.domain.BankAccount;
 import ru.tigerbank.repository.BankAccountRepository;
+import ru.tigerbank.repository.IdGenerators;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.journal.JournalRecord;
+import ru.tigerbank.repository.snapshot.VersionLog;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -16,27 +22,94 @@ public class InMemoryBankAccountRepository implements BankAccountRepository {
 
     private final Map<Integer, BankAccount> storage = new ConcurrentHashMap<>();
     private final AtomicInteger idGenerator = new AtomicInteger(1);
+    private final Journal journal;
+    private final VersionLog versions;
+    // Названия счетов хранятся одним экземпляром строки из общего словаря
+    private final StringDictionary dictionary;
+
+    public InMemoryBankAccountRepository(Journal journal, VersionLog versions, StringDictionary dictionary) {
+        this.journal = journal;
+        this.versions = versions;
+        this.dictionary = dictionary;
+    }
 
     @Override
     public BankAccount save(BankAccount account) {
-        if (account.getId() == null) {
-            // Новый счет — генерируем ID
-            BankAccount newAccount = new BankAccount(
-                    idGenerator.getAndIncrement(),
-                    account.getName()
-            );
-            newAccount.setBalance(account.getBalance());
-            storage.put(newAccount.getId(), newAccount);
-            return newAccount;
-        } else {
-            // Существующий или с заданным ID
-            storage.put(account.getId(), account);
-            // Обновляем генератор, если нужно
-            if (account.getId() >= idGenerator.get()) {
-                idGenerator.set(account.getId() + 1);
+        BankAccount saved;
+        long sequence;
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                BankAccount toStore = account.getId() == null ? withId(account, idGenerator.get()) : account;
+                // Запись журнала кодируется до изменения: ошибка кодирования ничего не меняет
+                byte[] record = journal.encode(JournalRecord.saveAccount(toStore));
+                saved = store(toStore);
+                sequence = journal.append(record);
+            } finally {
+                versions.endWrite();
             }
-            return account;
         }
+        journal.awaitDurable(sequence);
+        return saved;
+    }
+
+    @Override
+    public List<BankAccount> saveAll(Collection<BankAccount> accounts) {
+        List<BankAccount> saved = new ArrayList<>(accounts.size());
+        long sequence = 0;
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                int nextId = IdGenerators.reserveBlock(idGenerator, accounts, BankAccount::getId);
+                // Все записи журнала кодируются до первого изменения
+                List<BankAccount> toStore = new ArrayList<>(accounts.size());
+                List<byte[]> records = new ArrayList<>(accounts.size());
+                for (BankAccount account : accounts) {
+                    BankAccount assigned = account.getId() == null ? withId(account, nextId++) : account;
+                    toStore.add(assigned);
+                    records.add(journal.encode(JournalRecord.saveAccount(assigned)));
+                }
+                for (int i = 0; i < toStore.size(); i++) {
+                    saved.add(store(toStore.get(i)));
+                    sequence = journal.append(records.get(i));
+                }
+            } finally {
+                versions.endWrite();
+            }
+        }
+        journal.awaitDurable(sequence);
+        return saved;
+    }
+
+    // ID уже назначен вызывающим (save, saveAll), чтобы запись журнала была готова заранее
+    private BankAccount store(BankAccount account) {
+        // Ссылка на новое название берется до освобождения старого: при том же названии
+        // строка не успевает уйти из словаря
+        String name = dictionary.decode(dictionary.acquire(account.getName()));
+        if (name != account.getName()) {
+            account = withId(account, account.getId(), name);
+        }
+        BankAccount previous = storage.get(account.getId());
+        versions.recordAccount(account.getId(), previous);
+        storage.put(account.getId(), account);
+        if (previous != null) {
+            dictionary.release(previous.getName());
+        }
+        // Обновляем генератор, если нужно
+        if (account.getId() >= idGenerator.get()) {
+            idGenerator.set(account.getId() + 1);
+        }
+        return account;
+    }
+
+    private static BankAccount withId(BankAccount account, int id) {
+        return withId(account, id, account.getName());
+    }
+
+    private static BankAccount withId(BankAccount account, int id, String name) {
+        BankAccount copy = new BankAccount(id, name);
+        copy.setBalance(account.getBalance());
+        return copy;
     }
 
     @Override
@@ -51,7 +124,45 @@ public class InMemoryBankAccountRepository implements BankAccountRepository {
 
     @Override
     public void deleteById(Integer id) {
-        storage.remove(id);
+        long sequence;
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                BankAccount removed = storage.get(id);
+                if (removed == null) {
+                    return;
+                }
+                versions.recordAccount(id, removed);
+                storage.remove(id);
+                dictionary.release(removed.getName());
+                sequence = journal.append(JournalRecord.deleteAccount(id));
+            } finally {
+                versions.endWrite();
+            }
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void deleteAll() {
+        long sequence;
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                if (storage.isEmpty()) {
+                    return;
+                }
+                if (versions.isRecording()) {
+                    storage.forEach(versions::recordAccount);
+                }
+                storage.values().forEach(account -> dictionary.release(account.getName()));
+                storage.clear();
+                sequence = journal.append(JournalRecord.deleteAllAccounts());
+            } finally {
+                versions.endWrite();
+            }
+        }
+        journal.awaitDurable(sequence);
     }
 
     @Override
@@ -3,65 +3,198 @@ package ru.tigerbank.repository.inmemory;
 import org.springframework.stereotype.Repository;
 import ru.tigerbank.domain.Category;
 import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.CategoryCatalog;
 import ru.tigerbank.repository.CategoryRepository;
+import ru.tigerbank.repository.IdGenerators;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.journal.JournalRecord;
+import ru.tigerbank.repository.snapshot.VersionLog;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 @Repository
 public class InMemoryCategoryRepository implements CategoryRepository {
 
     private final Map<Integer, Category> storage = new ConcurrentHashMap<>();
     private final AtomicInteger idGenerator = new AtomicInteger(1);
+    private final Journal journal;
+    private final VersionLog versions;
+    // Названия категорий хранятся одним экземпляром строки из общего словаря
+    private final StringDictionary dictionary;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    // Чтение идет по снимку; он заменяется после каждого изменения под блокировкой this
+    private volatile CategoryCatalog catalog = CategoryCatalog.of(List.of());
+
+    public InMemoryCategoryRepository(Journal journal, VersionLog versions, StringDictionary dictionary) {
+        this.journal = journal;
+        this.versions = versions;
+        this.dictionary = dictionary;
+    }
 
     @Override
     public Category save(Category category) {
-        if (category.getId() == null) {
-            Category newCategory = new Category(
-                    idGenerator.getAndIncrement(),
-                    category.getType(),
-                    category.getName()
-            );
-            storage.put(newCategory.getId(), newCategory);
-            return newCategory;
-        } else {
-            storage.put(category.getId(), category);
-            if (category.getId() >= idGenerator.get()) {
-                idGenerator.set(category.getId() + 1);
+        Category saved;
+        long sequence;
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                Category toStore = category.getId() == null ? withId(category, idGenerator.get()) : category;
+                // Запись журнала кодируется до изменения: ошибка кодирования ничего не меняет
+                byte[] record = journal.encode(JournalRecord.saveCategory(toStore));
+                saved = store(toStore);
+                changed(catalog.withSaved(saved));
+                sequence = journal.append(record);
+            } finally {
+                versions.endWrite();
             }
-            return category;
         }
+        journal.awaitDurable(sequence);
+        return saved;
+    }
+
+    @Override
+    public List<Category> saveAll(Collection<Category> categories) {
+        List<Category> saved = new ArrayList<>(categories.size());
+        long sequence = 0;
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                int nextId = IdGenerators.reserveBlock(idGenerator, categories, Category::getId);
+                // Все записи журнала кодируются до первого изменения
+                List<Category> toStore = new ArrayList<>(categories.size());
+                List<byte[]> records = new ArrayList<>(categories.size());
+                for (Category category : categories) {
+                    Category assigned = category.getId() == null ? withId(category, nextId++) : category;
+                    toStore.add(assigned);
+                    records.add(journal.encode(JournalRecord.saveCategory(assigned)));
+                }
+                for (int i = 0; i < toStore.size(); i++) {
+                    saved.add(store(toStore.get(i)));
+                    sequence = journal.append(records.get(i));
+                }
+                // Снимок пересобирается один раз на весь пакет
+                if (!categories.isEmpty()) {
+                    changed(CategoryCatalog.of(storage.values()));
+                }
+            } finally {
+                versions.endWrite();
+            }
+        }
+        journal.awaitDurable(sequence);
+        return saved;
+    }
+
+    // ID уже назначен вызывающим (save, saveAll), чтобы запись журнала была готова заранее
+    private Category store(Category category) {
+        // Ссылка на новое название берется до освобождения старого: при том же названии
+        // строка не успевает уйти из словаря
+        String name = dictionary.decode(dictionary.acquire(category.getName()));
+        if (name != category.getName()) {
+            category = new Category(category.getId(), category.getType(), name);
+        }
+        Category previous = storage.get(category.getId());
+        versions.recordCategory(category.getId(), previous);
+        storage.put(category.getId(), category);
+        if (previous != null) {
+            dictionary.release(previous.getName());
+        }
+        if (category.getId() >= idGenerator.get()) {
+            idGenerator.set(category.getId() + 1);
+        }
+        return category;
+    }
+
+    private static Category withId(Category category, int id) {
+        return new Category(id, category.getType(), category.getName());
     }
 
     @Override
     public Optional<Category> findById(Integer id) {
-        return Optional.ofNullable(storage.get(id));
+        return Optional.ofNullable(catalog.get(id));
     }
 
     @Override
     public List<Category> findAll() {
-        return new ArrayList<>(storage.values());
+        return new ArrayList<>(catalog.all());
     }
 
     @Override
     public List<Category> findByType(OperationType type) {
-        return storage.values().stream()
-                .filter(c -> c.getType() == type)
-                .collect(Collectors.toList());
+        return catalog.byType(type);
     }
 
     @Override
     public void deleteById(Integer id) {
-        storage.remove(id);
+        long sequence;
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                Category removed = storage.get(id);
+                if (removed == null) {
+                    return;
+                }
+                versions.recordCategory(id, removed);
+                storage.remove(id);
+                dictionary.release(removed.getName());
+                changed(catalog.without(id));
+                sequence = journal.append(JournalRecord.deleteCategory(id));
+            } finally {
+                versions.endWrite();
+            }
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void deleteAll() {
+        long sequence;
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                if (storage.isEmpty()) {
+                    return;
+                }
+                if (versions.isRecording()) {
+                    storage.forEach(versions::recordCategory);
+                }
+                storage.values().forEach(category -> dictionary.release(category.getName()));
+                storage.clear();
+                changed(CategoryCatalog.of(List.of()));
+                sequence = journal.append(JournalRecord.deleteAllCategories());
+            } finally {
+                versions.endWrite();
+            }
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public CategoryCatalog catalog() {
+        return catalog;
+    }
+
+    private void changed(CategoryCatalog next) {
+        catalog = next;
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
     }
 
     @Override
     public boolean existsById(Integer id) {
-        return storage.containsKey(id);
+        return catalog.contains(id);
     }
 }
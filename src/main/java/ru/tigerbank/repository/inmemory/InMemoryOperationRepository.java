@@ -1,46 +1,178 @@
 package ru.tigerbank.repository.inmemory;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import ru.tigerbank.domain.Operation;
 import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.IdGenerators;
+import ru.tigerbank.repository.OperationChecks;
+import ru.tigerbank.repository.OperationListener;
+import ru.tigerbank.repository.OperationListeners;
+import ru.tigerbank.repository.OperationQuery;
 import ru.tigerbank.repository.OperationRepository;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.journal.JournalRecord;
+import ru.tigerbank.repository.snapshot.VersionLog;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 @Repository
+@Profile("!columnar & !offheap")
 public class InMemoryOperationRepository implements OperationRepository {
 
+    // Пути доступа для OperationQuery
+    private enum AccessPath { ACCOUNT, CATEGORY, TYPE, DATE, FULL_SCAN }
+
     private final Map<Integer, Operation> storage = new ConcurrentHashMap<>();
     private final AtomicInteger idGenerator = new AtomicInteger(1);
 
+    // Вторичные индексы: значение ключа -> ID операций.
+    // Изменяются только под блокировкой репозитория вместе с storage,
+    // читаются без блокировки.
+    private final Map<Integer, Set<Integer>> byBankAccountId = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> byCategoryId = new ConcurrentHashMap<>();
+    private final Map<OperationType, Set<Integer>> byType = new EnumMap<>(OperationType.class);
+    // Упорядоченный индекс по дате: epoch day -> ID операций этого дня (по возрастанию)
+    private final NavigableMap<Long, Set<Integer>> byEpochDay = new ConcurrentSkipListMap<>();
+    // Упорядоченные ID для постраничного вывода
+    private final NavigableSet<Integer> orderedIds = new ConcurrentSkipListSet<>();
+
+    private final OperationListeners listeners = new OperationListeners();
+    private final Journal journal;
+    private final VersionLog versions;
+    // Одинаковые описания хранятся одним экземпляром строки из общего словаря
+    private final StringDictionary dictionary;
+
+    public InMemoryOperationRepository(Journal journal, VersionLog versions, StringDictionary dictionary) {
+        this.journal = journal;
+        this.versions = versions;
+        this.dictionary = dictionary;
+        for (OperationType type : OperationType.values()) {
+            byType.put(type, ConcurrentHashMap.newKeySet());
+        }
+    }
+
     @Override
     public Operation save(Operation operation) {
-        if (operation.getId() == null) {
-            Operation newOperation = new Operation(
-                    idGenerator.getAndIncrement(),
-                    operation.getType(),
-                    operation.getBankAccountId(),
-                    operation.getCategoryId(),
-                    operation.getAmount(),
-                    operation.getDate(),
-                    operation.getDescription()
-            );
-            storage.put(newOperation.getId(), newOperation);
-            return newOperation;
-        } else {
-            storage.put(operation.getId(), operation);
-            if (operation.getId() >= idGenerator.get()) {
-                idGenerator.set(operation.getId() + 1);
+        OperationChecks.requireStorable(operation);
+        Operation saved;
+        long sequence;
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                Operation toStore = operation.getId() == null ? withId(operation, idGenerator.get()) : operation;
+                // Запись журнала кодируется до изменения: ошибка кодирования ничего не меняет
+                byte[] record = journal.encode(JournalRecord.saveOperation(toStore));
+                saved = store(toStore);
+                sequence = journal.append(record);
+            } finally {
+                versions.endWrite();
+            }
+        }
+        journal.awaitDurable(sequence);
+        return saved;
+    }
+
+    @Override
+    public List<Operation> saveAll(Collection<Operation> operations) {
+        // Пакет проверяется целиком: ошибка в одной операции не оставляет половину пакета
+        OperationChecks.requireStorable(operations);
+        List<Operation> saved = new ArrayList<>(operations.size());
+        long sequence = 0;
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                int nextId = IdGenerators.reserveBlock(idGenerator, operations, Operation::getId);
+                // Все записи журнала кодируются до первого изменения
+                List<Operation> toStore = new ArrayList<>(operations.size());
+                List<byte[]> records = new ArrayList<>(operations.size());
+                for (Operation operation : operations) {
+                    Operation assigned = operation.getId() == null ? withId(operation, nextId++) : operation;
+                    toStore.add(assigned);
+                    records.add(journal.encode(JournalRecord.saveOperation(assigned)));
+                }
+                for (int i = 0; i < toStore.size(); i++) {
+                    saved.add(store(toStore.get(i)));
+                    sequence = journal.append(records.get(i));
+                }
+            } finally {
+                versions.endWrite();
             }
-            return operation;
         }
+        journal.awaitDurable(sequence);
+        return saved;
+    }
+
+    @Override
+    public void load(Collection<Operation> operations) {
+        List<Operation> loaded = new ArrayList<>(operations.size());
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                requireNewIds(operations);
+                int maxId = 0;
+                for (Operation operation : operations) {
+                    Operation stored = withId(operation, operation.getId(), shared(operation));
+                    versions.recordOperation(stored.getId(), null);
+                    storage.put(stored.getId(), stored);
+                    index(stored);
+                    loaded.add(stored);
+                    maxId = Math.max(maxId, stored.getId());
+                }
+                int floor = maxId + 1;
+                idGenerator.updateAndGet(current -> Math.max(current, floor));
+                listeners.loaded(loaded);
+            } finally {
+                versions.endWrite();
+            }
+        }
+    }
+
+    private void requireNewIds(Collection<Operation> operations) {
+        Set<Integer> batch = new HashSet<>();
+        for (Operation operation : operations) {
+            OperationChecks.requireStorable(operation);
+            Integer id = operation.getId();
+            if (id == null || storage.containsKey(id) || !batch.add(id)) {
+                throw new IllegalArgumentException("Loaded operations need new unique ids: " + id);
+            }
+        }
+    }
+
+    // ID уже назначен вызывающим (save, saveAll), чтобы запись журнала была готова заранее
+    private Operation store(Operation operation) {
+        String description = shared(operation);
+        if (description != operation.getDescription()) {
+            operation = withId(operation, operation.getId(), description);
+        }
+        versions.recordOperation(operation.getId(), storage.get(operation.getId()));
+        Operation previous = storage.put(operation.getId(), operation);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(operation);
+        listeners.saved(previous, operation);
+        if (operation.getId() >= idGenerator.get()) {
+            idGenerator.set(operation.getId() + 1);
+        }
+        return operation;
     }
 
     @Override
@@ -55,53 +187,351 @@ public class InMemoryOperationRepository implements OperationRepository {
 
     @Override
     public List<Operation> findByBankAccountId(Integer bankAccountId) {
-        return storage.values().stream()
-                .filter(op -> op.getBankAccountId().equals(bankAccountId))
-                .collect(Collectors.toList());
+        return resolve(byBankAccountId.get(bankAccountId));
     }
 
     @Override
     public List<Operation> findByCategoryId(Integer categoryId) {
-        return storage.values().stream()
-                .filter(op -> op.getCategoryId().equals(categoryId))
-                .collect(Collectors.toList());
+        return resolve(byCategoryId.get(categoryId));
     }
 
     @Override
     public List<Operation> findByDateBetween(LocalDate from, LocalDate to) {
-        return storage.values().stream()
-                .filter(op -> !op.getDate().isBefore(from) && !op.getDate().isAfter(to))
-                .collect(Collectors.toList());
+        // Результат идет в хронологическом порядке
+        List<Operation> result = new ArrayList<>();
+        forEachInRange(from, to, result::add);
+        return result;
+    }
+
+    private void forEachInRange(LocalDate from, LocalDate to, Consumer<Operation> consumer) {
+        if (from.isAfter(to)) {
+            return;
+        }
+        // Обход идет по индексу дат, то есть в хронологическом порядке
+        for (Set<Integer> ids : byEpochDay.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values()) {
+            for (Integer id : ids) {
+                Operation operation = storage.get(id);
+                if (operation != null) {
+                    consumer.accept(operation);
+                }
+            }
+        }
     }
 
     @Override
     public List<Operation> findByType(OperationType type) {
-        return storage.values().stream()
-                .filter(op -> op.getType() == type)
-                .collect(Collectors.toList());
+        return resolve(byType.get(type));
+    }
+
+    @Override
+    public List<Operation> find(OperationQuery query) {
+        List<Operation> result = new ArrayList<>();
+        forEach(query, result::add);
+        return result;
+    }
+
+    @Override
+    public void forEach(OperationQuery query, Consumer<Operation> consumer) {
+        if (query.getFromDay() > query.getToDay()) {
+            return;
+        }
+        int[] accountIds = query.getAccountIds();
+        int[] categoryIds = query.getCategoryIds();
+        OperationType type = query.getType();
+
+        // Оценка числа кандидатов для каждого пути по размерам индексов
+        long total = storage.size();
+        long accountCost = accountIds == null ? Long.MAX_VALUE : sizeOf(byBankAccountId, accountIds);
+        long categoryCost = categoryIds == null ? Long.MAX_VALUE : sizeOf(byCategoryId, categoryIds);
+        long typeCost = type == null ? Long.MAX_VALUE : byType.get(type).size();
+        long dateCost = query.hasDateRange() ? estimateDateRange(query.getFromDay(), query.getToDay()) : Long.MAX_VALUE;
+
+        AccessPath path = AccessPath.FULL_SCAN;
+        long best = total;
+        if (accountCost < best) {
+            path = AccessPath.ACCOUNT;
+            best = accountCost;
+        }
+        if (categoryCost < best) {
+            path = AccessPath.CATEGORY;
+            best = categoryCost;
+        }
+        if (typeCost < best) {
+            path = AccessPath.TYPE;
+            best = typeCost;
+        }
+        if (dateCost < best) {
+            path = AccessPath.DATE;
+        }
+
+        // Пересечение индексов: второй индекс по ID проверяется до чтения операции,
+        // если он отсекает хотя бы половину операций
+        Predicate<Integer> probe = id -> true;
+        if (path != AccessPath.ACCOUNT && accountCost <= total / 2) {
+            probe = probe.and(id -> containsAny(byBankAccountId, accountIds, id));
+        }
+        if (path != AccessPath.CATEGORY && categoryCost <= total / 2) {
+            probe = probe.and(id -> containsAny(byCategoryId, categoryIds, id));
+        }
+        if (path != AccessPath.TYPE && typeCost <= total / 2) {
+            Set<Integer> ofType = byType.get(type);
+            probe = probe.and(ofType::contains);
+        }
+
+        switch (path) {
+            case ACCOUNT -> {
+                for (int accountId : accountIds) {
+                    visit(byBankAccountId.get(accountId), probe, query, consumer);
+                }
+            }
+            case CATEGORY -> {
+                for (int categoryId : categoryIds) {
+                    visit(byCategoryId.get(categoryId), probe, query, consumer);
+                }
+            }
+            case TYPE -> visit(byType.get(type), probe, query, consumer);
+            case DATE -> {
+                for (Set<Integer> ids : byEpochDay.subMap(query.getFromDay(), true, query.getToDay(), true).values()) {
+                    visit(ids, probe, query, consumer);
+                }
+            }
+            case FULL_SCAN -> {
+                for (Operation operation : storage.values()) {
+                    if (query.matches(operation)) {
+                        consumer.accept(operation);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<Operation> findPage(Integer afterId, int limit, OperationQuery query) {
+        List<Operation> page = new ArrayList<>(Math.min(limit, 1024));
+        Set<Integer> ids = afterId == null ? orderedIds : orderedIds.tailSet(afterId, false);
+        for (Integer id : ids) {
+            if (page.size() >= limit) {
+                break;
+            }
+            Operation operation = storage.get(id);
+            if (operation != null && query.matches(operation)) {
+                page.add(operation);
+            }
+        }
+        return page;
     }
 
     @Override
     public boolean existsByBankAccountId(Integer bankAccountId) {
-        return storage.values().stream()
-                .anyMatch(op -> op.getBankAccountId().equals(bankAccountId));
+        return byBankAccountId.containsKey(bankAccountId);
     }
 
     @Override
     public boolean existsByCategoryId(Integer categoryId) {
-        return storage.values().stream()
-                .anyMatch(op -> op.getCategoryId().equals(categoryId));
+        return byCategoryId.containsKey(categoryId);
     }
 
     @Override
     public void deleteById(Integer id) {
-        storage.remove(id);
+        long sequence;
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                Operation removed = storage.get(id);
+                if (removed == null) {
+                    return;
+                }
+                versions.recordOperation(id, removed);
+                storage.remove(id);
+                unindex(removed);
+                listeners.deleted(removed);
+                sequence = journal.append(JournalRecord.deleteOperation(id));
+            } finally {
+                versions.endWrite();
+            }
+        }
+        journal.awaitDurable(sequence);
     }
 
     @Override
     public void deleteByBankAccountId(Integer bankAccountId) {
-        storage.entrySet().removeIf(entry ->
-                entry.getValue().getBankAccountId().equals(bankAccountId)
+        long sequence;
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                Set<Integer> ids = byBankAccountId.get(bankAccountId);
+                if (ids == null) {
+                    return;
+                }
+                // Копируем, так как unindex изменяет сам индекс
+                for (Integer id : new ArrayList<>(ids)) {
+                    Operation removed = storage.get(id);
+                    if (removed != null) {
+                        versions.recordOperation(id, removed);
+                        storage.remove(id);
+                        unindex(removed);
+                        listeners.deleted(removed);
+                    }
+                }
+                sequence = journal.append(JournalRecord.deleteOperationsByAccount(bankAccountId));
+            } finally {
+                versions.endWrite();
+            }
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void deleteAll() {
+        long sequence;
+        synchronized (this) {
+            versions.beginWrite();
+            try {
+                if (storage.isEmpty()) {
+                    return;
+                }
+                List<Operation> removed = new ArrayList<>(storage.values());
+                for (Operation operation : removed) {
+                    versions.recordOperation(operation.getId(), operation);
+                    dictionary.release(operation.getDescription());
+                }
+                storage.clear();
+                byBankAccountId.clear();
+                byCategoryId.clear();
+                byType.values().forEach(Set::clear);
+                byEpochDay.clear();
+                orderedIds.clear();
+                // Подписчики узнают об удалении, когда хранилище уже очищено
+                removed.forEach(listeners::deleted);
+                sequence = journal.append(JournalRecord.deleteAllOperations());
+            } finally {
+                versions.endWrite();
+            }
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public synchronized void addListener(OperationListener listener) {
+        listeners.add(listener, findAll());
+    }
+
+    private void index(Operation operation) {
+        byBankAccountId.computeIfAbsent(operation.getBankAccountId(), k -> ConcurrentHashMap.newKeySet())
+                .add(operation.getId());
+        byCategoryId.computeIfAbsent(operation.getCategoryId(), k -> ConcurrentHashMap.newKeySet())
+                .add(operation.getId());
+        byType.get(operation.getType()).add(operation.getId());
+        byEpochDay.computeIfAbsent(operation.getDate().toEpochDay(), k -> new ConcurrentSkipListSet<>())
+                .add(operation.getId());
+        orderedIds.add(operation.getId());
+        dictionary.acquire(operation.getDescription());
+    }
+
+    private void unindex(Operation operation) {
+        removeFromIndex(byBankAccountId, operation.getBankAccountId(), operation.getId());
+        removeFromIndex(byCategoryId, operation.getCategoryId(), operation.getId());
+        byType.get(operation.getType()).remove(operation.getId());
+        removeFromIndex(byEpochDay, operation.getDate().toEpochDay(), operation.getId());
+        orderedIds.remove(operation.getId());
+        dictionary.release(operation.getDescription());
+    }
+
+    private static <K> void removeFromIndex(Map<K, Set<Integer>> index, K key, Integer id) {
+        Set<Integer> ids = index.get(key);
+        if (ids == null) {
+            return;
+        }
+        ids.remove(id);
+        // Пустые множества удаляем, чтобы exists* сводился к containsKey
+        if (ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static Operation withId(Operation operation, int id) {
+        return withId(operation, id, operation.getDescription());
+    }
+
+    private static Operation withId(Operation operation, int id, String description) {
+        return new Operation(
+                id,
+                operation.getType(),
+                operation.getBankAccountId(),
+                operation.getCategoryId(),
+                operation.getAmount(),
+                operation.getDate(),
+                description
         );
     }
+
+    // Общий экземпляр описания операции
+    private String shared(Operation operation) {
+        return dictionary.intern(operation.getDescription());
+    }
+
+    private void visit(Set<Integer> ids, Predicate<Integer> probe, OperationQuery query, Consumer<Operation> consumer) {
+        if (ids == null) {
+            return;
+        }
+        for (Integer id : ids) {
+            if (!probe.test(id)) {
+                continue;
+            }
+            Operation operation = storage.get(id);
+            if (operation != null && query.matches(operation)) {
+                consumer.accept(operation);
+            }
+        }
+    }
+
+    private static long sizeOf(Map<Integer, Set<Integer>> index, int[] keys) {
+        long size = 0;
+        for (int key : keys) {
+            Set<Integer> ids = index.get(key);
+            if (ids != null) {
+                size += ids.size();
+            }
+        }
+        return size;
+    }
+
+    private static boolean containsAny(Map<Integer, Set<Integer>> index, int[] keys, Integer id) {
+        for (int key : keys) {
+            Set<Integer> ids = index.get(key);
+            if (ids != null && ids.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Оценка числа операций в диапазоне дат: считаем, что операции распределены
+    // равномерно между первым и последним днем индекса
+    private long estimateDateRange(long fromDay, long toDay) {
+        Map.Entry<Long, Set<Integer>> first = byEpochDay.firstEntry();
+        Map.Entry<Long, Set<Integer>> last = byEpochDay.lastEntry();
+        if (first == null || last == null) {
+            return 0;
+        }
+        long overlap = Math.min(toDay, last.getKey()) - Math.max(fromDay, first.getKey()) + 1;
+        if (overlap <= 0) {
+            return 0;
+        }
+        return storage.size() * overlap / (last.getKey() - first.getKey() + 1);
+    }
+
+    private List<Operation> resolve(Collection<Integer> ids) {
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<Operation> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Operation operation = storage.get(id);
+            if (operation != null) {
+                result.add(operation);
+            }
+        }
+        return result;
+    }
 }
@@ -0,0 +1,370 @@
+package ru.tigerbank.repository.journal;
+
+import org.springframework.stereotype.Component;
+import ru.tigerbank.repository.DataDirectory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Журнал упреждающей записи (write-ahead log) для всех репозиториев.
+// Репозиторий добавляет запись под своей блокировкой (append), а затем вне ее ждет
+// fsync (awaitDurable). Записи от параллельных писателей попадают в один fsync:
+// первый ожидающий поток сбрасывает все накопленное, остальные ждут его результата.
+// Заголовок файла содержит поколение журнала; reset() начинает новое поколение.
+//
+// Изменение видно читателям сразу после снятия блокировки репозитория, до fsync;
+// писатель возвращается только после fsync. Если fsync не удался, писатель получает
+// UncheckedIOException, а его изменение (и изменения того же пакета) остается в памяти,
+// хотя на диске его может не быть. Журнал после этого отклоняет все записи, включая
+// уже примененные в памяти: состоянию в памяти верить нельзя, приложение нужно
+// перезапустить и восстановить из контрольной точки и журнала.
+@Component
+public class Journal implements AutoCloseable {
+
+    public static final String PATH_PROPERTY = "tigerbank.journal";
+    private static final String FILE_NAME = "journal.bin";
+
+    // TBJ2: суммы в копейках (long) вместо double
+    // TBJ3: строки с длиной int вместо writeUTF (описания длиннее 65 535 байт)
+    private static final int MAGIC = 0x54424A33; // "TBJ3"
+    // magic + поколение
+    public static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    // Длина записи + CRC32
+    private static final int RECORD_OVERHEAD = 2 * Integer.BYTES;
+
+    private final FileChannel channel;
+    private final Object lock = new Object();
+
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(8192);
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private long appendedSequence;
+    private long durableSequence;
+    // Позиция в файле, на которой закончится последняя добавленная запись
+    private long appendedPosition;
+    private long generation;
+    private boolean flushing;
+    // Пока журнал читается при воспроизведении, сброс на диск откладывается
+    private boolean replaying;
+    private boolean closed;
+    private IOException failure;
+    // Запись отключена только для потока, который воспроизводит журнал или загружает
+    // контрольную точку; записи других потоков в это время не теряются
+    private final ThreadLocal<Boolean> suspended = ThreadLocal.withInitial(() -> false);
+
+    public Journal() {
+        this(DataDirectory.resolve(PATH_PROPERTY, FILE_NAME));
+    }
+
+    public Journal(Path path) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() == 0) {
+                writeHeader(System.currentTimeMillis());
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                channel.read(header, 0);
+                if (header.getInt(0) != MAGIC) {
+                    channel.close();
+                    throw new IllegalStateException("Not a TigerBank journal: " + path);
+                }
+                generation = header.getLong(Integer.BYTES);
+            }
+            appendedPosition = channel.size();
+            channel.position(appendedPosition);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open journal " + path, e);
+        }
+    }
+
+    private Journal(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    // Журнал, который ничего не пишет (для тестов и временных хранилищ)
+    public static Journal disabled() {
+        return new Journal((FileChannel) null);
+    }
+
+    // Кодирует запись для последующего append. Репозиторий вызывает его до изменения
+    // данных: если запись не кодируется, в памяти ничего не меняется. null — запись
+    // не нужна (журнал отключен или приостановлен в этом потоке).
+    public byte[] encode(JournalRecord record) {
+        if (channel == null || suspended.get()) {
+            return null;
+        }
+        return record.encode();
+    }
+
+    // Добавляет запись в буфер и возвращает ее номер. Запись еще не на диске.
+    public long append(JournalRecord record) {
+        return append(encode(record));
+    }
+
+    // То же для записи, закодированной заранее через encode
+    public long append(byte[] payload) {
+        if (payload == null) {
+            return 0;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            try {
+                pendingOut.writeInt(payload.length);
+                pendingOut.write(payload);
+                pendingOut.writeInt((int) crc.getValue());
+                appendedPosition += RECORD_OVERHEAD + payload.length;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to buffer journal record", e);
+            }
+            return ++appendedSequence;
+        }
+    }
+
+    // Блокирует поток, пока запись с указанным номером не окажется на диске
+    public void awaitDurable(long sequence) {
+        if (sequence == 0) {
+            return;
+        }
+
+        byte[] batch;
+        long batchEnd;
+        synchronized (lock) {
+            while (true) {
+                checkFailure();
+                if (durableSequence >= sequence) {
+                    return;
+                }
+                if (!flushing && !replaying) {
+                    break;
+                }
+                waitForFlush();
+            }
+            // Этот поток становится ведущим и сбрасывает все накопленные записи
+            flushing = true;
+            batch = pending.toByteArray();
+            pending.reset();
+            batchEnd = appendedSequence;
+        }
+
+        IOException error = null;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+
+        synchronized (lock) {
+            flushing = false;
+            if (error == null) {
+                durableSequence = batchEnd;
+            } else {
+                failure = error;
+            }
+            lock.notifyAll();
+            checkFailure();
+        }
+    }
+
+    public long getGeneration() {
+        synchronized (lock) {
+            return generation;
+        }
+    }
+
+    // Позиция, до которой на диске лежат все записи, добавленные к моменту вызова.
+    // Записи после нее появились позже; при восстановлении их можно воспроизвести повторно.
+    public long syncedPosition() {
+        long sequence;
+        long position;
+        synchronized (lock) {
+            sequence = appendedSequence;
+            position = appendedPosition;
+        }
+        awaitDurable(sequence);
+        return position;
+    }
+
+    // Передает обработчику записи журнала по порядку, начиная с позиции from. Повторные
+    // append из обработчика игнорируются; записи других потоков копятся в буфере и
+    // попадут на диск после воспроизведенных. Недописанный хвост (например, после сбоя)
+    // отрезается.
+    public int replay(long from, Consumer<JournalRecord> handler) {
+        if (channel == null) {
+            return 0;
+        }
+        synchronized (lock) {
+            while (flushing) {
+                waitForFlush();
+            }
+            replaying = true;
+        }
+        boolean wasSuspended = suspend(true);
+        try {
+            long position = Math.max(from, HEADER_SIZE);
+            int count = 0;
+            channel.position(position);
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > channel.size() - position) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    int expectedCrc = in.readInt();
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != expectedCrc) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                handler.accept(JournalRecord.decode(new DataInputStream(new ByteArrayInputStream(payload))));
+                position += RECORD_OVERHEAD + payload.length;
+                count++;
+            }
+            if (position < channel.size()) {
+                channel.truncate(position);
+            }
+            synchronized (lock) {
+                channel.position(channel.size());
+                appendedPosition = channel.size() + pending.size();
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay journal", e);
+        } finally {
+            suspend(wasSuspended);
+            synchronized (lock) {
+                replaying = false;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // Выполняет действие, не записывая в журнал изменения этого потока (загрузка
+    // контрольной точки). Изменения других потоков записываются как обычно.
+    public void runWithoutLogging(Runnable action) {
+        boolean wasSuspended = suspend(true);
+        try {
+            action.run();
+        } finally {
+            suspend(wasSuspended);
+        }
+    }
+
+    // Очищает журнал и начинает новое поколение. Вызывается после записи контрольной
+    // точки, когда параллельных писателей нет (например, при остановке приложения).
+    public void reset() {
+        if (channel == null) {
+            return;
+        }
+        awaitDurable(currentSequence());
+        synchronized (lock) {
+            try {
+                channel.truncate(HEADER_SIZE);
+                writeHeader(generation + 1);
+                appendedPosition = HEADER_SIZE;
+                channel.position(appendedPosition);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to reset journal", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        if (!failed()) {
+            awaitDurable(currentSequence());
+        }
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close journal", e);
+        }
+    }
+
+    private boolean failed() {
+        synchronized (lock) {
+            return failure != null;
+        }
+    }
+
+    private long currentSequence() {
+        synchronized (lock) {
+            return appendedSequence;
+        }
+    }
+
+    private void writeHeader(long newGeneration) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putLong(newGeneration)
+                .flip();
+        channel.write(header, 0);
+        channel.force(true);
+        generation = newGeneration;
+    }
+
+    // Возвращает прежнее значение, чтобы вложенные вызовы восстанавливали его
+    private boolean suspend(boolean value) {
+        boolean previous = suspended.get();
+        suspended.set(value);
+        return previous;
+    }
+
+    private void waitForFlush() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for journal flush", e);
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("Journal write failed", failure);
+        }
+    }
+}
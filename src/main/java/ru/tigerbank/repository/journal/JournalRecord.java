@@ -0,0 +1,182 @@
+package ru.tigerbank.repository.journal;
+
+import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// Одна запись журнала: изменение одного из трех репозиториев
+public final class JournalRecord {
+
+    public enum Type {
+        SAVE_ACCOUNT,
+        DELETE_ACCOUNT,
+        SAVE_CATEGORY,
+        DELETE_CATEGORY,
+        SAVE_OPERATION,
+        DELETE_OPERATION,
+        DELETE_OPERATIONS_BY_ACCOUNT,
+        DELETE_ALL_ACCOUNTS,
+        DELETE_ALL_CATEGORIES,
+        DELETE_ALL_OPERATIONS
+    }
+
+    private static final OperationType[] OPERATION_TYPES = OperationType.values();
+    private static final Type[] TYPES = Type.values();
+    private static final int NULL_STRING = -1;
+
+    private final Type type;
+    private final Integer id;
+    private final BankAccount account;
+    private final Category category;
+    private final Operation operation;
+
+    private JournalRecord(Type type, Integer id, BankAccount account, Category category, Operation operation) {
+        this.type = type;
+        this.id = id;
+        this.account = account;
+        this.category = category;
+        this.operation = operation;
+    }
+
+    public static JournalRecord saveAccount(BankAccount account) {
+        return new JournalRecord(Type.SAVE_ACCOUNT, account.getId(), account, null, null);
+    }
+
+    public static JournalRecord deleteAccount(Integer id) {
+        return new JournalRecord(Type.DELETE_ACCOUNT, id, null, null, null);
+    }
+
+    public static JournalRecord saveCategory(Category category) {
+        return new JournalRecord(Type.SAVE_CATEGORY, category.getId(), null, category, null);
+    }
+
+    public static JournalRecord deleteCategory(Integer id) {
+        return new JournalRecord(Type.DELETE_CATEGORY, id, null, null, null);
+    }
+
+    public static JournalRecord saveOperation(Operation operation) {
+        return new JournalRecord(Type.SAVE_OPERATION, operation.getId(), null, null, operation);
+    }
+
+    public static JournalRecord deleteOperation(Integer id) {
+        return new JournalRecord(Type.DELETE_OPERATION, id, null, null, null);
+    }
+
+    public static JournalRecord deleteOperationsByAccount(Integer bankAccountId) {
+        return new JournalRecord(Type.DELETE_OPERATIONS_BY_ACCOUNT, bankAccountId, null, null, null);
+    }
+
+    public static JournalRecord deleteAllAccounts() {
+        return new JournalRecord(Type.DELETE_ALL_ACCOUNTS, 0, null, null, null);
+    }
+
+    public static JournalRecord deleteAllCategories() {
+        return new JournalRecord(Type.DELETE_ALL_CATEGORIES, 0, null, null, null);
+    }
+
+    public static JournalRecord deleteAllOperations() {
+        return new JournalRecord(Type.DELETE_ALL_OPERATIONS, 0, null, null, null);
+    }
+
+    public Type getType() { return type; }
+    public Integer getId() { return id; }
+    public BankAccount getAccount() { return account; }
+    public Category getCategory() { return category; }
+    public Operation getOperation() { return operation; }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type.ordinal());
+            out.writeInt(id);
+            switch (type) {
+                case SAVE_ACCOUNT -> {
+                    writeString(out, account.getName());
+                    out.writeLong(account.getBalance());
+                }
+                case SAVE_CATEGORY -> {
+                    out.writeByte(category.getType().ordinal());
+                    writeString(out, category.getName());
+                }
+                case SAVE_OPERATION -> {
+                    out.writeByte(operation.getType().ordinal());
+                    out.writeInt(operation.getBankAccountId());
+                    out.writeInt(operation.getCategoryId());
+                    out.writeLong(operation.getAmount());
+                    out.writeInt(Math.toIntExact(operation.getDate().toEpochDay()));
+                    writeString(out, operation.getDescription());
+                }
+                default -> {
+                    // Для удалений достаточно ID (у полной очистки он равен 0)
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode journal record", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static JournalRecord decode(DataInput in) throws IOException {
+        Type type = TYPES[in.readUnsignedByte()];
+        int id = in.readInt();
+        return switch (type) {
+            case SAVE_ACCOUNT -> {
+                BankAccount account = new BankAccount(id, readString(in));
+                account.setBalance(in.readLong());
+                yield saveAccount(account);
+            }
+            case SAVE_CATEGORY -> {
+                OperationType categoryType = OPERATION_TYPES[in.readUnsignedByte()];
+                yield saveCategory(new Category(id, categoryType, readString(in)));
+            }
+            case SAVE_OPERATION -> {
+                OperationType operationType = OPERATION_TYPES[in.readUnsignedByte()];
+                int bankAccountId = in.readInt();
+                int categoryId = in.readInt();
+                long amount = in.readLong();
+                LocalDate date = LocalDate.ofEpochDay(in.readInt());
+                String description = readString(in);
+                yield saveOperation(new Operation(
+                        id, operationType, bankAccountId, categoryId, amount, date, description
+                ));
+            }
+            case DELETE_ACCOUNT -> deleteAccount(id);
+            case DELETE_CATEGORY -> deleteCategory(id);
+            case DELETE_OPERATION -> deleteOperation(id);
+            case DELETE_OPERATIONS_BY_ACCOUNT -> deleteOperationsByAccount(id);
+            case DELETE_ALL_ACCOUNTS -> deleteAllAccounts();
+            case DELETE_ALL_CATEGORIES -> deleteAllCategories();
+            case DELETE_ALL_OPERATIONS -> deleteAllOperations();
+        };
+    }
+
+    // Длина в байтах и UTF-8 без ограничения writeUTF в 65 535 байт; null — длина -1
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.tigerbank.repository.journal;
+
+import org.springframework.stereotype.Component;
+import ru.tigerbank.repository.BankAccountRepository;
+import ru.tigerbank.repository.CategoryRepository;
+import ru.tigerbank.repository.OperationRepository;
+
+// Применяет записи журнала к репозиториям при восстановлении
+@Component
+public class JournalReplayer {
+
+    private final BankAccountRepository accountRepository;
+    private final CategoryRepository categoryRepository;
+    private final OperationRepository operationRepository;
+
+    public JournalReplayer(
+            BankAccountRepository accountRepository,
+            CategoryRepository categoryRepository,
+            OperationRepository operationRepository) {
+        this.accountRepository = accountRepository;
+        this.categoryRepository = categoryRepository;
+        this.operationRepository = operationRepository;
+    }
+
+    public int replay(Journal journal, long from) {
+        return journal.replay(from, this::apply);
+    }
+
+    private void apply(JournalRecord record) {
+        switch (record.getType()) {
+            case SAVE_ACCOUNT -> accountRepository.save(record.getAccount());
+            case DELETE_ACCOUNT -> accountRepository.deleteById(record.getId());
+            case SAVE_CATEGORY -> categoryRepository.save(record.getCategory());
+            case DELETE_CATEGORY -> categoryRepository.deleteById(record.getId());
+            case SAVE_OPERATION -> operationRepository.save(record.getOperation());
+            case DELETE_OPERATION -> operationRepository.deleteById(record.getId());
+            case DELETE_OPERATIONS_BY_ACCOUNT -> operationRepository.deleteByBankAccountId(record.getId());
+            case DELETE_ALL_ACCOUNTS -> accountRepository.deleteAll();
+            case DELETE_ALL_CATEGORIES -> categoryRepository.deleteAll();
+            case DELETE_ALL_OPERATIONS -> operationRepository.deleteAll();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ru.tigerbank.repository.offheap;
+
+import java.nio.ByteBuffer;
+
+// Память под блоки записей вне кучи. close() освобождает все выделенные блоки сразу;
+// после него буферы использовать нельзя.
+interface ChunkMemory extends AutoCloseable {
+
+    String FOREIGN_PROPERTY = "tigerbank.offheap.foreign";
+
+    // Буфер в нативном порядке байтов
+    ByteBuffer allocate(int bytes);
+
+    @Override
+    void close();
+
+    // Память jdk.incubator.foreign (освобождается в close), если JVM запущена с
+    // --add-modules jdk.incubator.foreign и она не отключена свойством
+    // tigerbank.offheap.foreign=false; иначе direct ByteBuffer
+    static ChunkMemory best() {
+        if (!Boolean.parseBoolean(System.getProperty(FOREIGN_PROPERTY, "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.foreign").isEmpty()) {
+            return new DirectChunkMemory();
+        }
+        try {
+            // Через рефлексию, как VectorSumKernel: без модуля класс не загрузится
+            return (ChunkMemory) Class.forName("ru.tigerbank.repository.offheap.ForeignChunkMemory")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new DirectChunkMemory();
+        }
+    }
+}
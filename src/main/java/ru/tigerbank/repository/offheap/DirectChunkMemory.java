@@ -0,0 +1,18 @@
+package ru.tigerbank.repository.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Запасной вариант без инкубаторного модуля: direct ByteBuffer. Явно освободить его
+// без закрытых API нельзя, после close() память вернет сборщик мусора.
+final class DirectChunkMemory implements ChunkMemory {
+
+    @Override
+    public ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public void close() {
+    }
+}
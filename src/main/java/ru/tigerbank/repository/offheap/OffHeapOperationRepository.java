@@ -0,0 +1,654 @@
+package ru.tigerbank.repository.offheap;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.IdGenerators;
+import ru.tigerbank.repository.OperationChecks;
+import ru.tigerbank.repository.OperationListener;
+import ru.tigerbank.repository.OperationListeners;
+import ru.tigerbank.repository.OperationQuery;
+import ru.tigerbank.repository.OperationRepository;
+import ru.tigerbank.repository.ParallelScan;
+import ru.tigerbank.repository.RowChains;
+import ru.tigerbank.repository.RowIndex;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.journal.JournalRecord;
+import ru.tigerbank.repository.snapshot.VersionLog;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Хранилище операций вне кучи: записи фиксированной длины лежат в блоках нативной памяти
+// (ChunkMemory), в куче остаются только индекс ID -> строка и группы строк по счетам
+// и категориям; описания хранятся кодами общего StringDictionary.
+// close() освобождает все блоки сразу (сегменты jdk.incubator.foreign); без модуля
+// блоки — direct ByteBuffer, их память вернет сборщик мусора.
+// Включается профилем "offheap".
+@Repository
+@Profile("offheap")
+public class OffHeapOperationRepository implements OperationRepository, AutoCloseable {
+
+    // Раскладка записи
+    private static final int ID = 0;
+    private static final int BANK_ACCOUNT_ID = 4;
+    private static final int CATEGORY_ID = 8;
+    private static final int EPOCH_DAY = 12;
+    private static final int AMOUNT = 16;
+    private static final int DESCRIPTION_CODE = 24;
+    private static final int TYPE = 28;
+    private static final int RECORD_SIZE = 32;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int RECORDS_PER_CHUNK = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = RECORDS_PER_CHUNK - 1;
+
+    private static final int NO_ROW = RowIndex.NO_ROW;
+    private static final int STREAM_BATCH_SIZE = 1024;
+    private static final int NULL_DESCRIPTION = StringDictionary.NULL_CODE;
+    // Тип хранится как OperationType.ordinal(), как в колоночном хранилище
+    private static final OperationType[] TYPES = OperationType.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ChunkMemory memory = ChunkMemory.best();
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int size;
+    private boolean closed;
+
+    // ID операции -> номер записи (NO_ROW, если операции нет)
+    private final RowIndex rowById = new RowIndex();
+    // Строки каждого счета и каждой категории: проверки перед удалением и каскадное
+    // удаление не проходят по всем записям
+    private final RowChains rowsByAccount = new RowChains(RECORDS_PER_CHUNK);
+    private final RowChains rowsByCategory = new RowChains(RECORDS_PER_CHUNK);
+
+    // Изменяется только под блокировкой записи; атомарный тип нужен общему IdGenerators
+    private final AtomicInteger idGenerator = new AtomicInteger(1);
+    private final OperationListeners listeners = new OperationListeners();
+    private final Journal journal;
+    private final VersionLog versions;
+    // Общий словарь описаний: в строках хранятся только коды
+    private final StringDictionary dictionary;
+
+    public OffHeapOperationRepository(Journal journal, VersionLog versions, StringDictionary dictionary) {
+        this.journal = journal;
+        this.versions = versions;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public Operation save(Operation operation) {
+        OperationChecks.requireStorable(operation);
+        Operation saved;
+        long sequence;
+        lock.writeLock().lock();
+        versions.beginWrite();
+        try {
+            ensureOpen();
+            Operation toStore = operation.getId() == null ? withId(operation, idGenerator.get()) : operation;
+            // Запись журнала кодируется до изменения: ошибка кодирования ничего не меняет
+            byte[] record = journal.encode(JournalRecord.saveOperation(toStore));
+            saved = store(toStore);
+            sequence = journal.append(record);
+        } finally {
+            versions.endWrite();
+            lock.writeLock().unlock();
+        }
+        journal.awaitDurable(sequence);
+        return saved;
+    }
+
+    @Override
+    public List<Operation> saveAll(Collection<Operation> operations) {
+        // Пакет проверяется целиком: ошибка в одной операции не оставляет половину пакета
+        OperationChecks.requireStorable(operations);
+        List<Operation> saved = new ArrayList<>(operations.size());
+        long sequence = 0;
+        lock.writeLock().lock();
+        versions.beginWrite();
+        try {
+            ensureOpen();
+            int next = IdGenerators.reserveBlock(idGenerator, operations, Operation::getId);
+            // Все записи журнала кодируются до первого изменения
+            List<Operation> toStore = new ArrayList<>(operations.size());
+            List<byte[]> records = new ArrayList<>(operations.size());
+            for (Operation operation : operations) {
+                Operation assigned = operation.getId() == null ? withId(operation, next++) : operation;
+                toStore.add(assigned);
+                records.add(journal.encode(JournalRecord.saveOperation(assigned)));
+            }
+            for (int i = 0; i < toStore.size(); i++) {
+                saved.add(store(toStore.get(i)));
+                sequence = journal.append(records.get(i));
+            }
+        } finally {
+            versions.endWrite();
+            lock.writeLock().unlock();
+        }
+        journal.awaitDurable(sequence);
+        return saved;
+    }
+
+    @Override
+    public void load(Collection<Operation> operations) {
+        List<Operation> loaded = new ArrayList<>(operations);
+        lock.writeLock().lock();
+        versions.beginWrite();
+        try {
+            ensureOpen();
+            requireNewIds(loaded);
+            for (Operation operation : loaded) {
+                int id = operation.getId();
+                if (id >= idGenerator.get()) {
+                    idGenerator.set(id + 1);
+                }
+                versions.recordOperation(id, null);
+                int row = newRecord(id);
+                writeRecord(row, operation);
+                link(row);
+            }
+            listeners.loaded(loaded);
+        } finally {
+            versions.endWrite();
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Operation> findById(Integer id) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            int row = rowOf(id);
+            return row == NO_ROW ? Optional.empty() : Optional.of(materialize(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Operation> findAll() {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            List<Operation> result = new ArrayList<>(size);
+            for (int row = 0; row < size; row++) {
+                result.add(materialize(row));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Operation> findByBankAccountId(Integer bankAccountId) {
+        return findInGroup(rowsByAccount, bankAccountId);
+    }
+
+    @Override
+    public List<Operation> findByCategoryId(Integer categoryId) {
+        return findInGroup(rowsByCategory, categoryId);
+    }
+
+    @Override
+    public List<Operation> findByDateBetween(LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            // Ключ сортировки: день в старших 32 битах, ID — в младших
+            long[] keys = new long[16];
+            int count = 0;
+            for (int row = 0; row < size; row++) {
+                ByteBuffer chunk = chunk(row);
+                int base = offset(row);
+                int day = chunk.getInt(base + EPOCH_DAY);
+                if (day >= fromDay && day <= toDay) {
+                    if (count == keys.length) {
+                        keys = Arrays.copyOf(keys, count * 2);
+                    }
+                    keys[count++] = ((long) day << 32) | (chunk.getInt(base + ID) & 0xFFFFFFFFL);
+                }
+            }
+            Arrays.sort(keys, 0, count);
+
+            List<Operation> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(materialize(rowById.get((int) keys[i])));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Operation> findByType(OperationType type) {
+        byte code = (byte) type.ordinal();
+
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            List<Operation> result = new ArrayList<>();
+            for (int row = 0; row < size; row++) {
+                if (chunk(row).get(offset(row) + TYPE) == code) {
+                    result.add(materialize(row));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Operation> find(OperationQuery query) {
+        List<Operation> result = new ArrayList<>();
+        forEach(query, result::add);
+        return result;
+    }
+
+    @Override
+    public void forEach(OperationQuery query, Consumer<Operation> consumer) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            scanRows(query, matchingCodes(query), 0, size, consumer);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Части строк сворачиваются на пуле scan; блокировка чтения держится до слияния
+    // всех частей, поэтому блоки памяти не освобождаются во время обхода
+    @Override
+    public <A> A reduce(OperationQuery query, Supplier<A> supplier, BiConsumer<A, Operation> accumulator,
+                        BinaryOperator<A> combiner, ParallelScan scan) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            BitSet matchingCodes = matchingCodes(query);
+            return scan.reduce(size, (from, to) -> {
+                A partial = supplier.get();
+                scanRows(query, matchingCodes, from, to, operation -> accumulator.accept(partial, operation));
+                return partial;
+            }, combiner);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Operation> findPage(Integer afterId, int limit, OperationQuery query) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            BitSet matchingCodes = matchingCodes(query);
+            boolean nullMatches = query.acceptsDescription(null);
+            List<Operation> page = new ArrayList<>(Math.min(limit, STREAM_BATCH_SIZE));
+            // Проход по ID по возрастанию от afterId + 1 — без пропусков на разреженных ID
+            int id = afterId == null ? -1 : Math.max(afterId, -1);
+            while (page.size() < limit && (id = rowById.higherId(id)) != -1) {
+                int row = rowById.get(id);
+                if (matches(query, matchingCodes, nullMatches, row)) {
+                    page.add(materialize(row));
+                }
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsByBankAccountId(Integer bankAccountId) {
+        return hasGroup(rowsByAccount, bankAccountId);
+    }
+
+    @Override
+    public boolean existsByCategoryId(Integer categoryId) {
+        return hasGroup(rowsByCategory, categoryId);
+    }
+
+    @Override
+    public void deleteById(Integer id) {
+        long sequence;
+        lock.writeLock().lock();
+        versions.beginWrite();
+        try {
+            ensureOpen();
+            int row = rowOf(id);
+            if (row == NO_ROW) {
+                return;
+            }
+            Operation removed = materialize(row);
+            versions.recordOperation(id, removed);
+            removeRecord(row);
+            listeners.deleted(removed);
+            sequence = journal.append(JournalRecord.deleteOperation(id));
+        } finally {
+            versions.endWrite();
+            lock.writeLock().unlock();
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void deleteByBankAccountId(Integer bankAccountId) {
+        long sequence;
+        lock.writeLock().lock();
+        versions.beginWrite();
+        try {
+            ensureOpen();
+            int[] rows = rowsByAccount.rows(bankAccountId);
+            if (rows.length == 0) {
+                return;
+            }
+            // Запоминаем ID заранее: на место удаленной записи переезжает последняя
+            int[] removedIds = new int[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                removedIds[i] = chunk(rows[i]).getInt(offset(rows[i]) + ID);
+            }
+            for (int id : removedIds) {
+                int row = rowById.get(id);
+                Operation operation = materialize(row);
+                versions.recordOperation(id, operation);
+                removeRecord(row);
+                listeners.deleted(operation);
+            }
+            sequence = journal.append(JournalRecord.deleteOperationsByAccount(bankAccountId));
+        } finally {
+            versions.endWrite();
+            lock.writeLock().unlock();
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (int row = 0; row < size; row++) {
+                dictionary.release(descriptionCode(row));
+            }
+            chunks.clear();
+            memory.close();
+            rowById.clear();
+            rowsByAccount.clear();
+            rowsByCategory.clear();
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Operation> findInGroup(RowChains groups, int key) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            int[] rows = groups.rows(key);
+            List<Operation> result = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                result.add(materialize(row));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean hasGroup(RowChains groups, int key) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            return groups.contains(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void link(int row) {
+        ByteBuffer chunk = chunk(row);
+        int base = offset(row);
+        rowsByAccount.add(chunk.getInt(base + BANK_ACCOUNT_ID), row);
+        rowsByCategory.add(chunk.getInt(base + CATEGORY_ID), row);
+    }
+
+    private void unlink(int row) {
+        ByteBuffer chunk = chunk(row);
+        int base = offset(row);
+        rowsByAccount.remove(chunk.getInt(base + BANK_ACCOUNT_ID), row);
+        rowsByCategory.remove(chunk.getInt(base + CATEGORY_ID), row);
+    }
+
+    private ByteBuffer chunk(int row) {
+        return chunks.get(row >>> CHUNK_SHIFT);
+    }
+
+    private static int offset(int row) {
+        return (row & CHUNK_MASK) * RECORD_SIZE;
+    }
+
+    @Override
+    public void deleteAll() {
+        long sequence;
+        lock.writeLock().lock();
+        versions.beginWrite();
+        try {
+            ensureOpen();
+            if (size == 0) {
+                return;
+            }
+            if (!listeners.isEmpty() || versions.isRecording()) {
+                for (int row = 0; row < size; row++) {
+                    Operation removed = materialize(row);
+                    versions.recordOperation(removed.getId(), removed);
+                    listeners.deleted(removed);
+                }
+            }
+            for (int row = 0; row < size; row++) {
+                dictionary.release(descriptionCode(row));
+            }
+            rowById.clear();
+            rowsByAccount.clear();
+            rowsByCategory.clear();
+            size = 0;
+            sequence = journal.append(JournalRecord.deleteAllOperations());
+        } finally {
+            versions.endWrite();
+            lock.writeLock().unlock();
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void addListener(OperationListener listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.add(listener, findAll());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Вызывается под блокировкой записи; у операции уже есть ID
+    private Operation store(Operation operation) {
+        int id = operation.getId();
+        if (id >= idGenerator.get()) {
+            idGenerator.set(id + 1);
+        }
+        int row = rowOf(id);
+        Operation previous = null;
+        if (row != NO_ROW && (!listeners.isEmpty() || versions.isRecording())) {
+            previous = materialize(row);
+        }
+        versions.recordOperation(id, previous);
+        if (row == NO_ROW) {
+            row = newRecord(id);
+        } else {
+            unlink(row);
+            dictionary.release(descriptionCode(row));
+        }
+        writeRecord(row, operation);
+        link(row);
+        listeners.saved(previous, operation);
+        return operation;
+    }
+
+    // Новая запись в конце; блок добавляется, когда текущий заполнен. Сначала
+    // выделяется память, и только потом ID попадает в индекс: если выделить не удалось,
+    // хранилище не меняется
+    private int newRecord(int id) {
+        if (size == chunks.size() * RECORDS_PER_CHUNK) {
+            chunks.add(memory.allocate(RECORDS_PER_CHUNK * RECORD_SIZE));
+            rowsByAccount.ensureCapacity(chunks.size() * RECORDS_PER_CHUNK);
+            rowsByCategory.ensureCapacity(chunks.size() * RECORDS_PER_CHUNK);
+        }
+        rowById.put(id, size);
+        return size++;
+    }
+
+    private void requireNewIds(Collection<Operation> operations) {
+        Set<Integer> batch = new HashSet<>();
+        for (Operation operation : operations) {
+            OperationChecks.requireStorable(operation);
+            Integer id = operation.getId();
+            if (id == null || rowOf(id) != NO_ROW || !batch.add(id)) {
+                throw new IllegalArgumentException("Loaded operations need new unique ids: " + id);
+            }
+        }
+    }
+
+    private static Operation withId(Operation operation, int id) {
+        return new Operation(
+                id,
+                operation.getType(),
+                operation.getBankAccountId(),
+                operation.getCategoryId(),
+                operation.getAmount(),
+                operation.getDate(),
+                operation.getDescription()
+        );
+    }
+
+    private int rowOf(Integer id) {
+        return rowById.get(id);
+    }
+
+    // Операция уже прошла OperationChecks: все поля пишутся без исключений
+    private void writeRecord(int row, Operation operation) {
+        ByteBuffer chunk = chunk(row);
+        int base = offset(row);
+        chunk.putInt(base + ID, operation.getId());
+        chunk.putInt(base + BANK_ACCOUNT_ID, operation.getBankAccountId());
+        chunk.putInt(base + CATEGORY_ID, operation.getCategoryId());
+        chunk.putInt(base + EPOCH_DAY, (int) operation.getDate().toEpochDay());
+        chunk.putLong(base + AMOUNT, operation.getAmount());
+        chunk.putInt(base + DESCRIPTION_CODE, dictionary.acquire(operation.getDescription()));
+        chunk.put(base + TYPE, (byte) operation.getType().ordinal());
+    }
+
+    private void removeRecord(int row) {
+        int last = size - 1;
+        dictionary.release(descriptionCode(row));
+        ByteBuffer chunk = chunk(row);
+        int base = offset(row);
+        rowById.remove(chunk.getInt(base + ID));
+        unlink(row);
+        if (row != last) {
+            ByteBuffer lastChunk = chunk(last);
+            int lastBase = offset(last);
+            rowsByAccount.move(lastChunk.getInt(lastBase + BANK_ACCOUNT_ID), last, row);
+            rowsByCategory.move(lastChunk.getInt(lastBase + CATEGORY_ID), last, row);
+            for (int i = 0; i < RECORD_SIZE; i += Long.BYTES) {
+                chunk.putLong(base + i, lastChunk.getLong(lastBase + i));
+            }
+            rowById.put(chunk.getInt(base + ID), row);
+        }
+        size = last;
+    }
+
+    private int descriptionCode(int row) {
+        return chunk(row).getInt(offset(row) + DESCRIPTION_CODE);
+    }
+
+    // Вторичных индексов здесь нет, поэтому план всегда один — проход по строкам.
+    // Сначала проверяются дешевые примитивные условия, а условие на описание
+    // вычисляется один раз на каждую строку словаря, а не на каждую операцию.
+    // Чтения из блоков абсолютные, поэтому части можно обходить из разных потоков.
+    private void scanRows(OperationQuery query, BitSet matchingCodes, int from, int to, Consumer<Operation> consumer) {
+        boolean nullMatches = query.acceptsDescription(null);
+        for (int row = from; row < to; row++) {
+            if (matches(query, matchingCodes, nullMatches, row)) {
+                consumer.accept(materialize(row));
+            }
+        }
+    }
+
+    private boolean matches(OperationQuery query, BitSet matchingCodes, boolean nullMatches, int row) {
+        ByteBuffer chunk = chunk(row);
+        int base = offset(row);
+        return query.acceptsDay(chunk.getInt(base + EPOCH_DAY))
+                && query.acceptsType(TYPES[chunk.get(base + TYPE)])
+                && query.acceptsAccount(chunk.getInt(base + BANK_ACCOUNT_ID))
+                && query.acceptsCategory(chunk.getInt(base + CATEGORY_ID))
+                && query.acceptsAmount(chunk.getLong(base + AMOUNT))
+                && (matchingCodes == null
+                        || matchesCode(matchingCodes, nullMatches, chunk.getInt(base + DESCRIPTION_CODE)));
+    }
+
+    // Коды подходящих описаний; null — условия на описание нет
+    private BitSet matchingCodes(OperationQuery query) {
+        return query.hasDescription() ? dictionary.codesMatching(query::acceptsDescription) : null;
+    }
+
+    private static boolean matchesCode(BitSet matchingCodes, boolean nullMatches, int code) {
+        return code == NULL_DESCRIPTION ? nullMatches : matchingCodes.get(code);
+    }
+
+    private Operation materialize(int row) {
+        ByteBuffer chunk = chunk(row);
+        int base = offset(row);
+        int code = chunk.getInt(base + DESCRIPTION_CODE);
+        return new Operation(
+                chunk.getInt(base + ID),
+                TYPES[chunk.get(base + TYPE)],
+                chunk.getInt(base + BANK_ACCOUNT_ID),
+                chunk.getInt(base + CATEGORY_ID),
+                chunk.getLong(base + AMOUNT),
+                LocalDate.ofEpochDay(chunk.getInt(base + EPOCH_DAY)),
+                dictionary.decode(code)
+        );
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Operation storage is closed");
+        }
+    }
+}
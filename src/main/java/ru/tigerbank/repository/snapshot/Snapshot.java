@@ -0,0 +1,142 @@
+package ru.tigerbank.repository.snapshot;
+
+import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.repository.BankAccountRepository;
+import ru.tigerbank.repository.CategoryRepository;
+import ru.tigerbank.repository.OperationQuery;
+import ru.tigerbank.repository.OperationRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// Согласованное состояние всех репозиториев на момент открытия. Данные не копируются:
+// чтение идет из репозиториев, а записи, измененные после открытия, подменяются
+// прежними значениями из VersionLog. Писатели при этом не блокируются.
+// Снимок нужно закрыть, иначе прежние версии будут копиться.
+public final class Snapshot implements AutoCloseable {
+
+    private static final int PAGE_SIZE = 1024;
+
+    private final VersionLog versions;
+    private final BankAccountRepository accountRepository;
+    private final CategoryRepository categoryRepository;
+    private final OperationRepository operationRepository;
+    private final long epoch;
+    private boolean closed;
+
+    Snapshot(
+            VersionLog versions,
+            BankAccountRepository accountRepository,
+            CategoryRepository categoryRepository,
+            OperationRepository operationRepository) {
+        this.versions = versions;
+        this.accountRepository = accountRepository;
+        this.categoryRepository = categoryRepository;
+        this.operationRepository = operationRepository;
+        this.epoch = versions.open();
+    }
+
+    public long getEpoch() { return epoch; }
+
+    public Optional<BankAccount> findAccount(Integer id) {
+        ensureOpen();
+        BankAccount current = accountRepository.findById(id).orElse(null);
+        return Optional.ofNullable(versions.accounts.resolve(id, current, epoch));
+    }
+
+    public Optional<Category> findCategory(Integer id) {
+        ensureOpen();
+        Category current = categoryRepository.findById(id).orElse(null);
+        return Optional.ofNullable(versions.categories.resolve(id, current, epoch));
+    }
+
+    public Optional<Operation> findOperation(Integer id) {
+        ensureOpen();
+        Operation current = operationRepository.findById(id).orElse(null);
+        return Optional.ofNullable(versions.operations.resolve(id, current, epoch));
+    }
+
+    // Счета и категории по возрастанию ID
+    public List<BankAccount> getAccounts() {
+        ensureOpen();
+        List<BankAccount> current = accountRepository.findAll();
+        current.sort(Comparator.comparing(BankAccount::getId));
+        List<BankAccount> result = new ArrayList<>(current.size());
+        versions.accounts.forEach(current.iterator(), BankAccount::getId, epoch, result::add);
+        return result;
+    }
+
+    public List<Category> getCategories() {
+        ensureOpen();
+        List<Category> current = categoryRepository.findAll();
+        current.sort(Comparator.comparing(Category::getId));
+        List<Category> result = new ArrayList<>(current.size());
+        versions.categories.forEach(current.iterator(), Category::getId, epoch, result::add);
+        return result;
+    }
+
+    // Операции по возрастанию ID; репозиторий читается страницами, без общей копии
+    public void forEachOperation(Consumer<Operation> consumer) {
+        ensureOpen();
+        versions.operations.forEach(new PageIterator(), Operation::getId, epoch, consumer);
+    }
+
+    public List<Operation> getOperations() {
+        List<Operation> result = new ArrayList<>();
+        forEachOperation(result::add);
+        return result;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            versions.close(epoch);
+        }
+    }
+
+    private synchronized void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Snapshot is closed");
+        }
+    }
+
+    private final class PageIterator implements Iterator<Operation> {
+        private List<Operation> page = List.of();
+        private int index;
+        private Integer afterId;
+        private boolean exhausted;
+
+        @Override
+        public boolean hasNext() {
+            if (index < page.size()) {
+                return true;
+            }
+            if (exhausted) {
+                return false;
+            }
+            page = operationRepository.findPage(afterId, PAGE_SIZE, OperationQuery.all());
+            index = 0;
+            exhausted = page.size() < PAGE_SIZE;
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+            return !page.isEmpty();
+        }
+
+        @Override
+        public Operation next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(index++);
+        }
+    }
+}
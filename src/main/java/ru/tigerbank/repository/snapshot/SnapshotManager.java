@@ -0,0 +1,31 @@
+package ru.tigerbank.repository.snapshot;
+
+import org.springframework.stereotype.Component;
+import ru.tigerbank.repository.BankAccountRepository;
+import ru.tigerbank.repository.CategoryRepository;
+import ru.tigerbank.repository.OperationRepository;
+
+// Открывает согласованные снимки всех репозиториев (см. Snapshot)
+@Component
+public class SnapshotManager {
+
+    private final VersionLog versions;
+    private final BankAccountRepository accountRepository;
+    private final CategoryRepository categoryRepository;
+    private final OperationRepository operationRepository;
+
+    public SnapshotManager(
+            VersionLog versions,
+            BankAccountRepository accountRepository,
+            CategoryRepository categoryRepository,
+            OperationRepository operationRepository) {
+        this.versions = versions;
+        this.accountRepository = accountRepository;
+        this.categoryRepository = categoryRepository;
+        this.operationRepository = operationRepository;
+    }
+
+    public Snapshot open() {
+        return new Snapshot(versions, accountRepository, categoryRepository, operationRepository);
+    }
+}
@@ -0,0 +1,91 @@
+package ru.tigerbank.repository.snapshot;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+// Прежние версии записей одного вида. Для каждого ID хранится цепочка значений
+// «до изменения» от новой эпохи к старой; в каждой эпохе запоминается только первое
+// изменение записи. null в цепочке означает, что записи тогда не было.
+final class UndoLog<T> {
+
+    private record Version<T>(long epoch, T before, Version<T> older) { }
+
+    private final ConcurrentSkipListMap<Integer, Version<T>> versions = new ConcurrentSkipListMap<>();
+
+    // Вызывается под блокировкой записи репозитория, поэтому для одного лога писатель всегда один
+    void record(int id, T before, long epoch) {
+        Version<T> latest = versions.get(id);
+        if (latest == null || latest.epoch() < epoch) {
+            versions.put(id, new Version<>(epoch, before, latest));
+        }
+    }
+
+    // Значение записи в снимке. current нужно прочитать из репозитория до вызова:
+    // версия пишется раньше, чем изменение становится видно читателям.
+    T resolve(int id, T current, long epoch) {
+        Version<T> oldest = oldestAfter(versions.get(id), epoch);
+        return oldest == null ? current : oldest.before();
+    }
+
+    // Обходит записи снимка по возрастанию ID. current — текущие записи тоже по возрастанию ID
+    // (их можно читать постранично, пока идут изменения). Записи, удаленные после снимка,
+    // берутся из лога в промежутках между соседними текущими ID, так что каждая
+    // запись выдается ровно один раз.
+    void forEach(Iterator<T> current, ToIntFunction<T> idOf, long epoch, Consumer<T> consumer) {
+        Integer previousId = null;
+        while (current.hasNext()) {
+            T value = current.next();
+            int id = idOf.applyAsInt(value);
+            forEachRemoved(previousId, id, epoch, consumer);
+            T resolved = resolve(id, value, epoch);
+            if (resolved != null) {
+                consumer.accept(resolved);
+            }
+            previousId = id;
+        }
+        forEachRemoved(previousId, null, epoch, consumer);
+    }
+
+    // Убирает версии, которые не нужны ни одному снимку с эпохой не меньше oldestEpoch
+    void prune(long oldestEpoch) {
+        for (Map.Entry<Integer, Version<T>> entry : versions.entrySet()) {
+            if (entry.getValue().epoch() <= oldestEpoch) {
+                versions.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    void clear() {
+        versions.clear();
+    }
+
+    private void forEachRemoved(Integer afterId, Integer beforeId, long epoch, Consumer<T> consumer) {
+        NavigableMap<Integer, Version<T>> range = versions;
+        if (afterId != null) {
+            range = range.tailMap(afterId, false);
+        }
+        if (beforeId != null) {
+            range = range.headMap(beforeId, false);
+        }
+        for (Version<T> latest : range.values()) {
+            Version<T> oldest = oldestAfter(latest, epoch);
+            if (oldest != null && oldest.before() != null) {
+                consumer.accept(oldest.before());
+            }
+        }
+    }
+
+    // Самое раннее изменение после снимка: его значение «до» и есть состояние на момент снимка
+    private static <T> Version<T> oldestAfter(Version<T> version, long epoch) {
+        Version<T> oldest = null;
+        while (version != null && version.epoch() > epoch) {
+            oldest = version;
+            version = version.older();
+        }
+        return oldest;
+    }
+}
@@ -0,0 +1,90 @@
+package ru.tigerbank.repository.snapshot;
+
+import org.springframework.stereotype.Component;
+import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.Operation;
+
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Общая для всех репозиториев последовательность изменений (MVCC на журнале отмены).
+//
+// Каждое изменение репозиторий выполняет между beginWrite и endWrite и перед тем,
+// как сделать его видимым, передает сюда прежнее значение записи. Открытие снимка
+// на мгновение ждет завершения начатых изменений и начинает новую эпоху: все, что
+// записано в эпохах после снимка, снимок читает из прежних значений.
+// Пока открытых снимков нет, прежние значения не сохраняются.
+@Component
+public class VersionLog {
+
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    private final NavigableSet<Long> openEpochs = new ConcurrentSkipListSet<>();
+    // Меняется только под блокировкой записи commitLock
+    private long epoch;
+
+    final UndoLog<BankAccount> accounts = new UndoLog<>();
+    final UndoLog<Category> categories = new UndoLog<>();
+    final UndoLog<Operation> operations = new UndoLog<>();
+
+    public void beginWrite() {
+        commitLock.readLock().lock();
+    }
+
+    public void endWrite() {
+        commitLock.readLock().unlock();
+    }
+
+    // Нужно ли сохранять прежние значения; проверяется между beginWrite и endWrite
+    public boolean isRecording() {
+        return !openEpochs.isEmpty();
+    }
+
+    // before — значение до изменения, null если записи еще не было
+    public void recordAccount(int id, BankAccount before) {
+        if (isRecording()) {
+            accounts.record(id, before, epoch);
+        }
+    }
+
+    public void recordCategory(int id, Category before) {
+        if (isRecording()) {
+            categories.record(id, before, epoch);
+        }
+    }
+
+    public void recordOperation(int id, Operation before) {
+        if (isRecording()) {
+            operations.record(id, before, epoch);
+        }
+    }
+
+    // open и close синхронизированы между собой, чтобы очистка при закрытии последнего
+    // снимка не стерла версии только что открытого
+    synchronized long open() {
+        commitLock.writeLock().lock();
+        try {
+            long snapshotEpoch = epoch++;
+            openEpochs.add(snapshotEpoch);
+            return snapshotEpoch;
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    synchronized void close(long snapshotEpoch) {
+        openEpochs.remove(snapshotEpoch);
+        Long oldest = openEpochs.ceiling(Long.MIN_VALUE);
+        if (oldest == null) {
+            accounts.clear();
+            categories.clear();
+            operations.clear();
+        } else {
+            accounts.prune(oldest);
+            categories.prune(oldest);
+            operations.prune(oldest);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.tigerbank.service.account;
+
+import org.springframework.stereotype.Component;
+import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.OperationListener;
+import ru.tigerbank.repository.OperationRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Текущий баланс по операциям для каждого счета. Обновляется при каждом сохранении
+// и удалении операции под блокировкой репозитория, поэтому показ балансов
+// не требует обхода операций.
+//
+// Итоговый баланс счета = сумма по операциям + ручная корректировка,
+// которая хранится в поле balance самого счета.
+@Component
+public class AccountBalanceLedger implements OperationListener {
+
+    // В копейках; счетчик счета изменяется на месте, без упаковки
+    private final Map<Integer, AtomicLong> balances = new ConcurrentHashMap<>();
+
+    public AccountBalanceLedger(OperationRepository operationRepository) {
+        operationRepository.addListener(this);
+    }
+
+    // Сумма операций счета: доходы минус расходы
+    public long getOperationsBalance(Integer accountId) {
+        if (accountId == null) {
+            return 0;
+        }
+        AtomicLong balance = balances.get(accountId);
+        return balance == null ? 0 : balance.get();
+    }
+
+    // Счет с итоговым балансом для отображения и экспорта
+    public BankAccount withBalance(BankAccount account) {
+        BankAccount view = new BankAccount(account.getId(), account.getName());
+        view.setBalance(account.getBalance() + getOperationsBalance(account.getId()));
+        return view;
+    }
+
+    // Корректировка, при которой итоговый баланс станет равен balance
+    public long adjustmentFor(Integer accountId, long balance) {
+        return balance - getOperationsBalance(accountId);
+    }
+
+    @Override
+    public void onSaved(Operation previous, Operation saved) {
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        apply(saved, 1);
+    }
+
+    @Override
+    public void onDeleted(Operation deleted) {
+        apply(deleted, -1);
+    }
+
+    private void apply(Operation operation, int sign) {
+        long amount = operation.getType() == OperationType.INCOME ? operation.getAmount() : -operation.getAmount();
+        balances.computeIfAbsent(operation.getBankAccountId(), id -> new AtomicLong()).addAndGet(sign * amount);
+    }
+}
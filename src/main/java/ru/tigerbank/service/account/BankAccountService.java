@@ -16,12 +16,13 @@ public interface BankAccountService {
     // Обновление
     BankAccount renameAccount(Integer id, String newName);
 
-    // Ручная корректировка баланса
-    void adjustBalance(Integer id, double newBalance);
+    // Ручная корректировка баланса (итоговый баланс станет равен newBalance)
+    void adjustBalance(Integer id, long newBalance);
 
     // Удаление (с проверкой на наличие операций)
     void deleteAccount(Integer id) throws IllegalStateException;
 
-    // Автоматический пересчет баланса по операциям
-    double recalculateBalance(Integer accountId);
+    // Полный пересчет баланса по операциям. Баланс поддерживается автоматически,
+    // пересчет нужен только для сверки: он сбрасывает ручную корректировку.
+    long recalculateBalance(Integer accountId);
 }
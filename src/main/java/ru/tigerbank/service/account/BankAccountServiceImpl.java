@@ -9,18 +9,22 @@ import ru.tigerbank.repository.OperationRepository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class BankAccountServiceImpl implements BankAccountService {
 
     private final BankAccountRepository accountRepository;
     private final OperationRepository operationRepository;
+    private final AccountBalanceLedger ledger;
 
     public BankAccountServiceImpl(
             BankAccountRepository accountRepository,
-            OperationRepository operationRepository) {
+            OperationRepository operationRepository,
+            AccountBalanceLedger ledger) {
         this.accountRepository = accountRepository;
         this.operationRepository = operationRepository;
+        this.ledger = ledger;
     }
 
     @Override
@@ -30,12 +34,14 @@ public class BankAccountServiceImpl implements BankAccountService {
 
     @Override
     public Optional<BankAccount> getAccount(Integer id) {
-        return accountRepository.findById(id);
+        return accountRepository.findById(id).map(ledger::withBalance);
     }
 
     @Override
     public List<BankAccount> getAllAccounts() {
-        return accountRepository.findAll();
+        return accountRepository.findAll().stream()
+                .map(ledger::withBalance)
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -46,16 +52,19 @@ public class BankAccountServiceImpl implements BankAccountService {
         BankAccount renamed = new BankAccount(account.getId(), newName);
         renamed.setBalance(account.getBalance());
 
-        return accountRepository.save(renamed);
+        return ledger.withBalance(accountRepository.save(renamed));
     }
 
     @Override
-    public void adjustBalance(Integer id, double newBalance) {
+    public void adjustBalance(Integer id, long newBalance) {
         BankAccount account = accountRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Account not found with id: " + id));
 
-        account.setBalance(newBalance);
-        accountRepository.save(account);
+        // В счете хранится только корректировка к сумме операций. Сохраненный объект
+        // не меняем: его прежнее значение может читать открытый снимок.
+        BankAccount adjusted = new BankAccount(account.getId(), account.getName());
+        adjusted.setBalance(ledger.adjustmentFor(id, newBalance));
+        accountRepository.save(adjusted);
     }
 
     @Override
@@ -70,20 +79,21 @@ public class BankAccountServiceImpl implements BankAccountService {
     }
 
     @Override
-    public double recalculateBalance(Integer accountId) {
+    public long recalculateBalance(Integer accountId) {
         List<Operation> operations = operationRepository.findByBankAccountId(accountId);
 
-        double balance = operations.stream()
-                .mapToDouble(op -> {
-                    if (op.getType() == OperationType.INCOME) {
-                        return op.getAmount();
-                    } else {
-                        return -op.getAmount();
-                    }
-                })
-                .sum();
-
-        adjustBalance(accountId, balance);
+        long balance = 0;
+        for (Operation op : operations) {
+            balance += op.getType() == OperationType.INCOME ? op.getAmount() : -op.getAmount();
+        }
+
+        // Итоговый баланс приводится к сумме операций; если накопленное значение
+        // разошлось с пересчетом, разницу забирает корректировка
+        BankAccount account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found with id: " + accountId));
+        BankAccount recalculated = new BankAccount(account.getId(), account.getName());
+        recalculated.setBalance(balance - ledger.getOperationsBalance(accountId));
+        accountRepository.save(recalculated);
         return balance;
     }
 }
\ No newline at end of file
@@ -0,0 +1,260 @@
+package ru.tigerbank.service.analytics;
+
+import org.springframework.stereotype.Component;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.OperationListener;
+import ru.tigerbank.repository.OperationRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Суммы доходов и расходов (в копейках) по дням для каждого счета в деревьях Фенвика.
+// Сумма за любой период [from, to] считается за O(log D), где D — число дней
+// между первой и последней операцией счета (не больше MAX_DENSE_DAYS). Дни вне этого
+// окна (ошибочные или очень старые даты) хранятся отдельно и суммируются перебором.
+// Обновляется при каждом сохранении и удалении операции.
+@Component
+public class AccountPeriodTotals implements OperationListener {
+
+    private final Map<Integer, AccountTree> trees = new ConcurrentHashMap<>();
+
+    public AccountPeriodTotals(OperationRepository operationRepository) {
+        operationRepository.addListener(this);
+    }
+
+    public long getIncome(Integer accountId, LocalDate from, LocalDate to) {
+        return sum(accountId, OperationType.INCOME, from, to);
+    }
+
+    public long getExpense(Integer accountId, LocalDate from, LocalDate to) {
+        return sum(accountId, OperationType.EXPENSE, from, to);
+    }
+
+    public long getNet(Integer accountId, LocalDate from, LocalDate to) {
+        return getIncome(accountId, from, to) - getExpense(accountId, from, to);
+    }
+
+    @Override
+    public void onSaved(Operation previous, Operation saved) {
+        if (previous != null) {
+            apply(previous, -previous.getAmount());
+        }
+        apply(saved, saved.getAmount());
+    }
+
+    @Override
+    public void onDeleted(Operation deleted) {
+        apply(deleted, -deleted.getAmount());
+    }
+
+    // Дерево каждого счета расширяется один раз и строится заново за O(дней),
+    // без обновления за O(log D) на каждую операцию
+    @Override
+    public void onLoaded(List<Operation> loaded) {
+        Map<Integer, List<Operation>> byAccount = new HashMap<>();
+        for (Operation operation : loaded) {
+            byAccount.computeIfAbsent(operation.getBankAccountId(), k -> new ArrayList<>()).add(operation);
+        }
+        byAccount.forEach((accountId, operations) ->
+                trees.computeIfAbsent(accountId, k -> new AccountTree()).addAll(operations));
+    }
+
+    private long sum(Integer accountId, OperationType type, LocalDate from, LocalDate to) {
+        AccountTree tree = accountId == null ? null : trees.get(accountId);
+        if (tree == null || from.isAfter(to)) {
+            return 0;
+        }
+        return tree.sum(type, from.toEpochDay(), to.toEpochDay());
+    }
+
+    private void apply(Operation operation, long amount) {
+        trees.computeIfAbsent(operation.getBankAccountId(), k -> new AccountTree())
+                .add(operation.getType(), operation.getDate().toEpochDay(), amount);
+    }
+
+    // Два дерева Фенвика (доходы и расходы) над отрезком дней [origin, origin + capacity).
+    // Отрезок расширяется вдвое, когда операция выходит за его границы, но не длиннее
+    // MAX_DENSE_DAYS: одна операция с датой 0001-01-01 не должна выделять миллионы ячеек.
+    // Дни, не попавшие в отрезок, лежат в outliers: день -> {доход, расход}.
+    private static final class AccountTree {
+        private static final int INITIAL_CAPACITY = 64;
+        // ~45 лет; степень двойки, как и INITIAL_CAPACITY
+        private static final int MAX_DENSE_DAYS = 1 << 14;
+
+        private long origin;
+        private long[] income;
+        private long[] expense;
+        private final TreeMap<Long, long[]> outliers = new TreeMap<>();
+
+        synchronized void add(OperationType type, long day, long amount) {
+            if (income == null) {
+                init(day);
+            }
+            if (ensureCovers(day)) {
+                update(type == OperationType.INCOME ? income : expense, position(day), amount);
+            } else {
+                addOutlier(type, day, amount);
+            }
+        }
+
+        synchronized void addAll(List<Operation> operations) {
+            long minDay = Long.MAX_VALUE;
+            long maxDay = Long.MIN_VALUE;
+            for (Operation operation : operations) {
+                long day = operation.getDate().toEpochDay();
+                minDay = Math.min(minDay, day);
+                maxDay = Math.max(maxDay, day);
+            }
+            if (income == null) {
+                // Если все дни не помещаются в окно, в нем остаются последние
+                init(Math.max(minDay, maxDay - MAX_DENSE_DAYS + 1));
+            }
+            ensureCovers(maxDay);
+            ensureCovers(minDay);
+            long[] incomeDays = values(income);
+            long[] expenseDays = values(expense);
+            for (Operation operation : operations) {
+                long day = operation.getDate().toEpochDay();
+                if (covers(day)) {
+                    long[] days = operation.getType() == OperationType.INCOME ? incomeDays : expenseDays;
+                    days[position(day)] += operation.getAmount();
+                } else {
+                    addOutlier(operation.getType(), day, operation.getAmount());
+                }
+            }
+            income = build(incomeDays);
+            expense = build(expenseDays);
+        }
+
+        synchronized long sum(OperationType type, long fromDay, long toDay) {
+            if (income == null) {
+                return 0;
+            }
+            int slot = type == OperationType.INCOME ? 0 : 1;
+            long total = 0;
+            for (long[] amounts : outliers.subMap(fromDay, true, toDay, true).values()) {
+                total += amounts[slot];
+            }
+            long[] tree = type == OperationType.INCOME ? income : expense;
+            // Переводим границы в позиции дерева (1..capacity), обрезая по отрезку
+            long last = origin + capacity() - 1;
+            if (toDay < origin || fromDay > last) {
+                return total;
+            }
+            int to = position(Math.min(toDay, last));
+            int from = position(Math.max(fromDay, origin));
+            return total + prefix(tree, to) - prefix(tree, from - 1);
+        }
+
+        private void init(long day) {
+            origin = day;
+            income = new long[INITIAL_CAPACITY + 1];
+            expense = new long[INITIAL_CAPACITY + 1];
+        }
+
+        private int capacity() {
+            return income.length - 1;
+        }
+
+        private boolean covers(long day) {
+            return day >= origin && day < origin + capacity();
+        }
+
+        // Позиция дня в дереве (1..capacity)
+        private int position(long day) {
+            return Math.toIntExact(day - origin) + 1;
+        }
+
+        private void addOutlier(OperationType type, long day, long amount) {
+            long[] amounts = outliers.computeIfAbsent(day, k -> new long[2]);
+            amounts[type == OperationType.INCOME ? 0 : 1] += amount;
+            if (amounts[0] == 0 && amounts[1] == 0) {
+                outliers.remove(day);
+            }
+        }
+
+        // Расширяет отрезок до дня day; false, если отрезок стал бы длиннее MAX_DENSE_DAYS
+        private boolean ensureCovers(long day) {
+            if (covers(day)) {
+                return true;
+            }
+            long newOrigin = Math.min(origin, day);
+            long newEnd = Math.max(origin + capacity(), day + 1);
+            if (newEnd - newOrigin > MAX_DENSE_DAYS) {
+                return false;
+            }
+            int newCapacity = capacity();
+            while (newCapacity < newEnd - newOrigin) {
+                newCapacity *= 2;
+            }
+            // Новые дни добавляем с той стороны, куда вышла операция
+            if (day < origin) {
+                newOrigin = newEnd - newCapacity;
+            }
+            income = rebuild(income, newOrigin, newCapacity);
+            expense = rebuild(expense, newOrigin, newCapacity);
+            origin = newOrigin;
+            // Дни, ранее не помещавшиеся в отрезок, переносим в деревья
+            Map<Long, long[]> covered = outliers.subMap(origin, origin + capacity());
+            covered.forEach((coveredDay, amounts) -> {
+                update(income, position(coveredDay), amounts[0]);
+                update(expense, position(coveredDay), amounts[1]);
+            });
+            covered.clear();
+            return true;
+        }
+
+        // Переносит значения по дням в дерево большего размера за O(n)
+        private long[] rebuild(long[] tree, long newOrigin, int newCapacity) {
+            long[] values = values(tree);
+            long[] result = new long[newCapacity + 1];
+            System.arraycopy(values, 1, result, 1 + Math.toIntExact(origin - newOrigin), values.length - 1);
+            return build(result);
+        }
+
+        // Обратное построение: из дерева получаем значения отдельных дней (копия)
+        private static long[] values(long[] tree) {
+            int n = tree.length - 1;
+            long[] values = tree.clone();
+            for (int i = n; i >= 1; i--) {
+                int parent = i + (i & -i);
+                if (parent <= n) {
+                    values[parent] -= values[i];
+                }
+            }
+            return values;
+        }
+
+        // Прямое построение дерева из значений дней за O(n), на месте
+        private static long[] build(long[] values) {
+            int n = values.length - 1;
+            for (int i = 1; i <= n; i++) {
+                int parent = i + (i & -i);
+                if (parent <= n) {
+                    values[parent] += values[i];
+                }
+            }
+            return values;
+        }
+
+        private static void update(long[] tree, int position, long amount) {
+            for (int i = position; i < tree.length; i += i & -i) {
+                tree[i] += amount;
+            }
+        }
+
+        private static long prefix(long[] tree, int position) {
+            long sum = 0;
+            for (int i = position; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+    }
+}
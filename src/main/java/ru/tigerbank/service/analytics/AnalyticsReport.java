@@ -0,0 +1,35 @@
+package ru.tigerbank.service.analytics;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Сводный отчет за период (AnalyticsService.report): итоги, число операций и суммы
+// по категориям, посчитанные за один проход. Неизменяемый; суммы — в копейках,
+// категории упорядочены по убыванию суммы. accountId == null — по всем счетам.
+public record AnalyticsReport(
+        LocalDate from,
+        LocalDate to,
+        Integer accountId,
+        long totalIncome,
+        long totalExpense,
+        long incomeCount,
+        long expenseCount,
+        Map<String, Long> incomeByCategory,
+        Map<String, Long> expenseByCategory) {
+
+    public AnalyticsReport {
+        incomeByCategory = Collections.unmodifiableMap(new LinkedHashMap<>(incomeByCategory));
+        expenseByCategory = Collections.unmodifiableMap(new LinkedHashMap<>(expenseByCategory));
+    }
+
+    // Разница доходов и расходов
+    public long net() {
+        return totalIncome - totalExpense;
+    }
+
+    public long operationCount() {
+        return incomeCount + expenseCount;
+    }
+}
@@ -1,27 +1,61 @@
 package ru.tigerbank.service.analytics;
 
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
+// Все суммы — в копейках (см. Money)
 public interface AnalyticsService {
 
     // Разница доходов и расходов за период по всем счетам
-    double getNetBalance(LocalDate from, LocalDate to);
+    long getNetBalance(LocalDate from, LocalDate to);
 
     // Разница доходов и расходов за период по конкретному счету
-    double getNetBalanceByAccount(Integer accountId, LocalDate from, LocalDate to);
+    long getNetBalanceByAccount(Integer accountId, LocalDate from, LocalDate to);
 
     // Доходы по категориям за период
-    Map<String, Double> getIncomeByCategory(LocalDate from, LocalDate to);
+    Map<String, Long> getIncomeByCategory(LocalDate from, LocalDate to);
 
     // Расходы по категориям за период
-    Map<String, Double> getExpenseByCategory(LocalDate from, LocalDate to);
+    Map<String, Long> getExpenseByCategory(LocalDate from, LocalDate to);
 
     // Доходы/расходы по категориям для конкретного счета
-    Map<String, Double> getIncomeByCategoryAndAccount(Integer accountId, LocalDate from, LocalDate to);
-    Map<String, Double> getExpenseByCategoryAndAccount(Integer accountId, LocalDate from, LocalDate to);
+    Map<String, Long> getIncomeByCategoryAndAccount(Integer accountId, LocalDate from, LocalDate to);
+    Map<String, Long> getExpenseByCategoryAndAccount(Integer accountId, LocalDate from, LocalDate to);
 
     // Общая сумма доходов/расходов за период
-    double getTotalIncome(LocalDate from, LocalDate to);
-    double getTotalExpense(LocalDate from, LocalDate to);
+    long getTotalIncome(LocalDate from, LocalDate to);
+    long getTotalExpense(LocalDate from, LocalDate to);
+
+    // Итоги, разница и суммы по категориям за один проход по операциям периода;
+    // accountId == null — по всем счетам
+    AnalyticsReport report(LocalDate from, LocalDate to, Integer accountId);
+
+    // Суммы по дням, неделям или месяцам периода за один проход; type == null — разница
+    // доходов и расходов, accountId == null — по всем счетам
+    TimeSeries getSeries(LocalDate from, LocalDate to, Granularity granularity, OperationType type, Integer accountId);
+
+    // Не больше limit самых крупных операций типа type за период, по убыванию суммы
+    List<Operation> getTopOperations(OperationType type, LocalDate from, LocalDate to, Integer accountId, int limit);
+
+    // Не больше limit категорий с наибольшей суммой за период, по убыванию суммы
+    Map<String, Long> getTopCategories(OperationType type, LocalDate from, LocalDate to, Integer accountId, int limit);
+
+    // Приблизительные оценки по всей истории, без обхода операций (границы ошибок — см.
+    // OperationSketches). Квантиль q сумм операций типа type по категории или по счету;
+    // null в обоих — по всем операциям типа
+    long getAmountQuantile(OperationType type, Integer categoryId, Integer accountId, double q);
+
+    // Число операций в том же разрезе — точное
+    long getOperationCount(OperationType type, Integer categoryId, Integer accountId);
+
+    // Оценка числа различных описаний; accountId == null — по всем счетам
+    long getDistinctDescriptions(Integer accountId);
+
+    // До limit самых частых описаний с оценкой числа операций и граница ее завышения
+    Map<String, Long> getFrequentDescriptions(int limit);
+    long getFrequencyErrorBound();
 }
\ No newline at end of file
@@ -1,118 +1,307 @@
 package ru.tigerbank.service.analytics;
 
 import org.springframework.stereotype.Service;
+import ru.tigerbank.domain.Category;
 import ru.tigerbank.domain.Operation;
 import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.CategoryCatalog;
 import ru.tigerbank.repository.CategoryRepository;
+import ru.tigerbank.repository.OperationQuery;
 import ru.tigerbank.repository.OperationRepository;
+import ru.tigerbank.repository.ParallelScan;
+import ru.tigerbank.repository.TopN;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 public class AnalyticsServiceImpl implements AnalyticsService {
 
+    // По убыванию суммы, при равных суммах — по названию
+    private static final Comparator<Map.Entry<String, Long>> BY_SUM_DESCENDING =
+            Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
     private final OperationRepository operationRepository;
     private final CategoryRepository categoryRepository;
+    private final AccountPeriodTotals periodTotals;
+    private final CategoryRollup categoryRollup;
+    private final OperationSketches sketches;
+    // Суммы по большим журналам считаются по частям на отдельном пуле (см. AnalyticsConfig)
+    private final ParallelScan scan;
 
     public AnalyticsServiceImpl(
             OperationRepository operationRepository,
-            CategoryRepository categoryRepository) {
+            CategoryRepository categoryRepository,
+            AccountPeriodTotals periodTotals,
+            CategoryRollup categoryRollup,
+            OperationSketches sketches,
+            ParallelScan scan) {
         this.operationRepository = operationRepository;
         this.categoryRepository = categoryRepository;
+        this.periodTotals = periodTotals;
+        this.categoryRollup = categoryRollup;
+        this.sketches = sketches;
+        this.scan = scan;
     }
 
     @Override
-    public double getNetBalance(LocalDate from, LocalDate to) {
-        return getTotalIncome(from, to) - getTotalExpense(from, to);
+    public long getNetBalance(LocalDate from, LocalDate to) {
+        // Один проход: расходы вычитаются прямо при суммировании
+        return operationRepository.sumNet(OperationQuery.all().withDateRange(from, to), scan);
     }
 
     @Override
-    public double getNetBalanceByAccount(Integer accountId, LocalDate from, LocalDate to) {
-        List<Operation> operations = operationRepository.findByBankAccountId(accountId).stream()
-                .filter(op -> !op.getDate().isBefore(from) && !op.getDate().isAfter(to))
-                .collect(Collectors.toList());
-
-        double income = operations.stream()
-                .filter(op -> op.getType() == OperationType.INCOME)
-                .mapToDouble(Operation::getAmount)
-                .sum();
-
-        double expense = operations.stream()
-                .filter(op -> op.getType() == OperationType.EXPENSE)
-                .mapToDouble(Operation::getAmount)
-                .sum();
-
-        return income - expense;
+    public long getNetBalanceByAccount(Integer accountId, LocalDate from, LocalDate to) {
+        return periodTotals.getNet(accountId, from, to);
     }
 
     @Override
-    public Map<String, Double> getIncomeByCategory(LocalDate from, LocalDate to) {
+    public Map<String, Long> getIncomeByCategory(LocalDate from, LocalDate to) {
         return getSumByCategory(OperationType.INCOME, from, to, null);
     }
 
     @Override
-    public Map<String, Double> getExpenseByCategory(LocalDate from, LocalDate to) {
+    public Map<String, Long> getExpenseByCategory(LocalDate from, LocalDate to) {
         return getSumByCategory(OperationType.EXPENSE, from, to, null);
     }
 
     @Override
-    public Map<String, Double> getIncomeByCategoryAndAccount(Integer accountId, LocalDate from, LocalDate to) {
+    public Map<String, Long> getIncomeByCategoryAndAccount(Integer accountId, LocalDate from, LocalDate to) {
         return getSumByCategory(OperationType.INCOME, from, to, accountId);
     }
 
     @Override
-    public Map<String, Double> getExpenseByCategoryAndAccount(Integer accountId, LocalDate from, LocalDate to) {
+    public Map<String, Long> getExpenseByCategoryAndAccount(Integer accountId, LocalDate from, LocalDate to) {
         return getSumByCategory(OperationType.EXPENSE, from, to, accountId);
     }
 
     @Override
-    public double getTotalIncome(LocalDate from, LocalDate to) {
-        return operationRepository.findByDateBetween(from, to).stream()
-                .filter(op -> op.getType() == OperationType.INCOME)
-                .mapToDouble(Operation::getAmount)
-                .sum();
+    public long getTotalIncome(LocalDate from, LocalDate to) {
+        return operationRepository.sumAmounts(
+                OperationQuery.all().withType(OperationType.INCOME).withDateRange(from, to), scan);
+    }
+
+    @Override
+    public long getTotalExpense(LocalDate from, LocalDate to) {
+        return operationRepository.sumAmounts(
+                OperationQuery.all().withType(OperationType.EXPENSE).withDateRange(from, to), scan);
+    }
+
+    @Override
+    public AnalyticsReport report(LocalDate from, LocalDate to, Integer accountId) {
+        OperationQuery query = OperationQuery.all().withDateRange(from, to);
+        if (accountId != null) {
+            query = query.withAccount(accountId);
+        }
+        // Каждая операция читается один раз; части обхода копят свои итоги и сливаются.
+        // Суммы по категориям — в массивах по индексу снимка категорий
+        CategoryCatalog catalog = categoryRepository.catalog();
+        ReportTotals totals = operationRepository.reduce(query, () -> new ReportTotals(catalog),
+                ReportTotals::add, ReportTotals::merge, scan);
+        return new AnalyticsReport(from, to, accountId,
+                totals.income.sum, totals.expense.sum, totals.income.count, totals.expense.count,
+                namesByCategory(catalog, totals.income.byCategory),
+                namesByCategory(catalog, totals.expense.byCategory));
     }
 
     @Override
-    public double getTotalExpense(LocalDate from, LocalDate to) {
-        return operationRepository.findByDateBetween(from, to).stream()
-                .filter(op -> op.getType() == OperationType.EXPENSE)
-                .mapToDouble(Operation::getAmount)
-                .sum();
+    public TimeSeries getSeries(LocalDate from, LocalDate to, Granularity granularity, OperationType type,
+                                Integer accountId) {
+        int buckets = granularity.bucketCount(from, to);
+        long fromDay = from.toEpochDay();
+        long[] startDays = new long[buckets];
+        // Номер корзины для каждого дня периода: операция попадает в корзину
+        // одним обращением к массиву по epoch day, без сравнения дат
+        int[] bucketByDay = new int[buckets == 0 ? 0 : Math.toIntExact(to.toEpochDay() - fromDay + 1)];
+        LocalDate start = granularity.bucketStart(from);
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            LocalDate next = granularity.next(start);
+            startDays[bucket] = start.toEpochDay();
+            Arrays.fill(bucketByDay,
+                    (int) Math.max(0, start.toEpochDay() - fromDay),
+                    (int) Math.min(bucketByDay.length, next.toEpochDay() - fromDay),
+                    bucket);
+            start = next;
+        }
+
+        OperationQuery query = OperationQuery.all().withDateRange(from, to);
+        if (type != null) {
+            query = query.withType(type);
+        }
+        if (accountId != null) {
+            query = query.withAccount(accountId);
+        }
+        SeriesTotals totals = operationRepository.reduce(query, () -> new SeriesTotals(buckets),
+                (series, op) -> series.add(bucketByDay[(int) (op.getDate().toEpochDay() - fromDay)],
+                        op.getType() == OperationType.EXPENSE && type == null ? -op.getAmount() : op.getAmount()),
+                SeriesTotals::merge, scan);
+        return new TimeSeries(from, to, granularity, type, accountId, startDays, totals.sums, totals.counts);
     }
 
-    private Map<String, Double> getSumByCategory(
+    @Override
+    public List<Operation> getTopOperations(OperationType type, LocalDate from, LocalDate to, Integer accountId,
+                                            int limit) {
+        OperationQuery query = OperationQuery.all().withType(type).withDateRange(from, to);
+        if (accountId != null) {
+            query = query.withAccount(accountId);
+        }
+        return operationRepository.findLargest(query, limit, scan);
+    }
+
+    @Override
+    public Map<String, Long> getTopCategories(OperationType type, LocalDate from, LocalDate to, Integer accountId,
+                                              int limit) {
+        // Суммы уже сведены по названиям (удаленные категории отброшены); из них —
+        // limit наибольших без сортировки всех категорий
+        TopN<Map.Entry<String, Long>> top = new TopN<>(limit, BY_SUM_DESCENDING);
+        getSumByCategory(type, from, to, accountId).entrySet().forEach(top::add);
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : top.toList()) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    @Override
+    public long getAmountQuantile(OperationType type, Integer categoryId, Integer accountId, double q) {
+        return sketches.amountQuantile(type, categoryId, accountId, q);
+    }
+
+    @Override
+    public long getOperationCount(OperationType type, Integer categoryId, Integer accountId) {
+        return sketches.amountCount(type, categoryId, accountId);
+    }
+
+    @Override
+    public long getDistinctDescriptions(Integer accountId) {
+        return sketches.distinctDescriptions(accountId);
+    }
+
+    @Override
+    public Map<String, Long> getFrequentDescriptions(int limit) {
+        return sketches.frequentDescriptions(limit);
+    }
+
+    @Override
+    public long getFrequencyErrorBound() {
+        return sketches.frequencyErrorBound();
+    }
+
+    private Map<String, Long> getSumByCategory(
             OperationType type,
             LocalDate from,
             LocalDate to,
             Integer accountId) {
 
-        // Получаем все операции за период
-        List<Operation> operations = operationRepository.findByDateBetween(from, to).stream()
-                .filter(op -> op.getType() == type)
-                .filter(op -> accountId == null || op.getBankAccountId().equals(accountId))
-                .toList();
+        // Целые месяцы берутся из куба, крайние досчитываются по операциям
+        Map<Integer, Long> sumByCategoryId = categoryRollup.sumByCategory(type, from, to, accountId);
 
-        // Группируем по категориям
-        Map<Integer, Double> sumByCategoryId = operations.stream()
-                .collect(Collectors.groupingBy(
-                        Operation::getCategoryId,
-                        Collectors.summingDouble(Operation::getAmount)
-                ));
-
-        // Преобразуем ID категорий в названия
-        Map<String, Double> result = new HashMap<>();
-        for (Map.Entry<Integer, Double> entry : sumByCategoryId.entrySet()) {
-            categoryRepository.findById(entry.getKey())
-                    .ifPresent(category ->
-                            result.put(category.getName(), entry.getValue())
-                    );
+        // Преобразуем ID категорий в названия по снимку, без поиска в репозитории
+        CategoryCatalog catalog = categoryRepository.catalog();
+        Map<String, Long> result = new HashMap<>();
+        for (Map.Entry<Integer, Long> entry : sumByCategoryId.entrySet()) {
+            Category category = catalog.get(entry.getKey());
+            if (category != null) {
+                result.merge(category.getName(), entry.getValue(), Long::sum);
+            }
         }
 
         return result;
     }
+
+    // Названия категорий по убыванию суммы; индексы — по снимку catalog. Категории
+    // с одинаковым названием сначала складываются, потом сортируются
+    private static Map<String, Long> namesByCategory(CategoryCatalog catalog, long[] sumByIndex) {
+        Map<String, Long> byName = new HashMap<>();
+        for (int index = 0; index < sumByIndex.length; index++) {
+            if (sumByIndex[index] != 0) {
+                byName.merge(catalog.at(index).getName(), sumByIndex[index], Long::sum);
+            }
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        byName.entrySet().stream()
+                .sorted(BY_SUM_DESCENDING)
+                .forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    // Частичные итоги отчета по одному типу операций
+    private static final class TypeTotals {
+        final CategoryCatalog catalog;
+        final long[] byCategory;
+        long sum;
+        long count;
+
+        TypeTotals(CategoryCatalog catalog) {
+            this.catalog = catalog;
+            this.byCategory = new long[catalog.size()];
+        }
+
+        void add(Operation operation) {
+            sum += operation.getAmount();
+            count++;
+            // Операции удаленных категорий входят в итоги, но не в разбивку
+            int index = catalog.indexOf(operation.getCategoryId());
+            if (index >= 0) {
+                byCategory[index] += operation.getAmount();
+            }
+        }
+
+        void merge(TypeTotals other) {
+            sum += other.sum;
+            count += other.count;
+            for (int index = 0; index < byCategory.length; index++) {
+                byCategory[index] += other.byCategory[index];
+            }
+        }
+    }
+
+    private static final class SeriesTotals {
+        final long[] sums;
+        final int[] counts;
+
+        SeriesTotals(int buckets) {
+            sums = new long[buckets];
+            counts = new int[buckets];
+        }
+
+        void add(int bucket, long amount) {
+            sums[bucket] += amount;
+            counts[bucket]++;
+        }
+
+        SeriesTotals merge(SeriesTotals other) {
+            for (int bucket = 0; bucket < sums.length; bucket++) {
+                sums[bucket] += other.sums[bucket];
+                counts[bucket] += other.counts[bucket];
+            }
+            return this;
+        }
+    }
+
+    private static final class ReportTotals {
+        final TypeTotals income;
+        final TypeTotals expense;
+
+        ReportTotals(CategoryCatalog catalog) {
+            income = new TypeTotals(catalog);
+            expense = new TypeTotals(catalog);
+        }
+
+        void add(Operation operation) {
+            (operation.getType() == OperationType.INCOME ? income : expense).add(operation);
+        }
+
+        ReportTotals merge(ReportTotals other) {
+            income.merge(other.income);
+            expense.merge(other.expense);
+            return this;
+        }
+    }
 }
\ No newline at end of file
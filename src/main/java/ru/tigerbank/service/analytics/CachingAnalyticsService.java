@@ -0,0 +1,281 @@
+package ru.tigerbank.service.analytics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.CategoryRepository;
+import ru.tigerbank.repository.OperationListener;
+import ru.tigerbank.repository.OperationRepository;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Кэш результатов аналитики поверх AnalyticsServiceImpl: повторный отчет за тот же
+// период — один поиск в LRU-карте ограниченного размера.
+//
+// Запись операции сбрасывает только результаты, в период (и счет) которых попадает
+// ее дата — прежняя и новая. Изменение категорий сбрасывает результаты с названиями
+// категорий. Каждое изменение увеличивает поколение кэша: результат, при расчете
+// которого поколение сменилось, не кэшируется, поэтому старые данные не попадут в кэш
+// после сброса. Подписчики вызываются, когда изменение уже видно читателям.
+@Service
+@Primary
+public class CachingAnalyticsService implements AnalyticsService, OperationListener {
+
+    public static final String SIZE_PROPERTY = "tigerbank.analytics.cache-size";
+    public static final int DEFAULT_SIZE = 512;
+
+    // Что считает запрос; byCategory — результат содержит названия категорий
+    private enum Metric {
+        NET(false), NET_BY_ACCOUNT(false), TOTAL(false), BY_CATEGORY(true), REPORT(true), SERIES(false),
+        TOP_OPERATIONS(false), TOP_CATEGORIES(true);
+
+        final boolean byCategory;
+
+        Metric(boolean byCategory) {
+            this.byCategory = byCategory;
+        }
+    }
+
+    // accountId == null — по всем счетам, type == null — оба типа;
+    // granularity — только у рядов, limit — только у топов
+    private record Key(Metric metric, OperationType type, Integer accountId, LocalDate from, LocalDate to,
+                       Granularity granularity, int limit) {
+        Key(Metric metric, OperationType type, Integer accountId, LocalDate from, LocalDate to) {
+            this(metric, type, accountId, from, to, null, 0);
+        }
+
+        boolean covers(Operation operation) {
+            return (accountId == null || accountId.equals(operation.getBankAccountId()))
+                    && !operation.getDate().isBefore(from)
+                    && !operation.getDate().isAfter(to);
+        }
+    }
+
+    // Счетчики кэша на момент запроса
+    public record Stats(long hits, long misses, long evictions, long invalidations, int size) {
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    private final AnalyticsService delegate;
+    private final int capacity;
+
+    // Все поля ниже — под блокировкой this
+    private final LinkedHashMap<Key, Object> entries;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    @Autowired
+    public CachingAnalyticsService(
+            AnalyticsServiceImpl delegate,
+            OperationRepository operationRepository,
+            CategoryRepository categoryRepository) {
+        this(delegate, operationRepository, categoryRepository, Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE));
+    }
+
+    public CachingAnalyticsService(
+            AnalyticsService delegate,
+            OperationRepository operationRepository,
+            CategoryRepository categoryRepository,
+            int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + capacity);
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        // Порядок доступа: первым идет давно не использованный результат
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                if (size() > CachingAnalyticsService.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        operationRepository.addListener(this);
+        categoryRepository.addListener(() -> invalidate(key -> key.metric().byCategory));
+    }
+
+    @Override
+    public long getNetBalance(LocalDate from, LocalDate to) {
+        return cached(new Key(Metric.NET, null, null, from, to), () -> delegate.getNetBalance(from, to));
+    }
+
+    @Override
+    public long getNetBalanceByAccount(Integer accountId, LocalDate from, LocalDate to) {
+        return cached(new Key(Metric.NET_BY_ACCOUNT, null, accountId, from, to),
+                () -> delegate.getNetBalanceByAccount(accountId, from, to));
+    }
+
+    @Override
+    public Map<String, Long> getIncomeByCategory(LocalDate from, LocalDate to) {
+        return cachedMap(new Key(Metric.BY_CATEGORY, OperationType.INCOME, null, from, to),
+                () -> delegate.getIncomeByCategory(from, to));
+    }
+
+    @Override
+    public Map<String, Long> getExpenseByCategory(LocalDate from, LocalDate to) {
+        return cachedMap(new Key(Metric.BY_CATEGORY, OperationType.EXPENSE, null, from, to),
+                () -> delegate.getExpenseByCategory(from, to));
+    }
+
+    @Override
+    public Map<String, Long> getIncomeByCategoryAndAccount(Integer accountId, LocalDate from, LocalDate to) {
+        return cachedMap(new Key(Metric.BY_CATEGORY, OperationType.INCOME, accountId, from, to),
+                () -> delegate.getIncomeByCategoryAndAccount(accountId, from, to));
+    }
+
+    @Override
+    public Map<String, Long> getExpenseByCategoryAndAccount(Integer accountId, LocalDate from, LocalDate to) {
+        return cachedMap(new Key(Metric.BY_CATEGORY, OperationType.EXPENSE, accountId, from, to),
+                () -> delegate.getExpenseByCategoryAndAccount(accountId, from, to));
+    }
+
+    @Override
+    public long getTotalIncome(LocalDate from, LocalDate to) {
+        return cached(new Key(Metric.TOTAL, OperationType.INCOME, null, from, to),
+                () -> delegate.getTotalIncome(from, to));
+    }
+
+    @Override
+    public long getTotalExpense(LocalDate from, LocalDate to) {
+        return cached(new Key(Metric.TOTAL, OperationType.EXPENSE, null, from, to),
+                () -> delegate.getTotalExpense(from, to));
+    }
+
+    @Override
+    public AnalyticsReport report(LocalDate from, LocalDate to, Integer accountId) {
+        return cached(new Key(Metric.REPORT, null, accountId, from, to), () -> delegate.report(from, to, accountId));
+    }
+
+    @Override
+    public TimeSeries getSeries(LocalDate from, LocalDate to, Granularity granularity, OperationType type,
+                                Integer accountId) {
+        return cached(new Key(Metric.SERIES, type, accountId, from, to, granularity, 0),
+                () -> delegate.getSeries(from, to, granularity, type, accountId));
+    }
+
+    @Override
+    public List<Operation> getTopOperations(OperationType type, LocalDate from, LocalDate to, Integer accountId,
+                                            int limit) {
+        return cached(new Key(Metric.TOP_OPERATIONS, type, accountId, from, to, null, limit),
+                () -> List.copyOf(delegate.getTopOperations(type, from, to, accountId, limit)));
+    }
+
+    @Override
+    public Map<String, Long> getTopCategories(OperationType type, LocalDate from, LocalDate to, Integer accountId,
+                                              int limit) {
+        return cached(new Key(Metric.TOP_CATEGORIES, type, accountId, from, to, null, limit),
+                () -> Collections.unmodifiableMap(delegate.getTopCategories(type, from, to, accountId, limit)));
+    }
+
+    // Оценки по скетчам не кэшируются: они и так не обходят операции, а скетч
+    // обновляется каждой записью, так что кэш только добавил бы сбросы
+    @Override
+    public long getAmountQuantile(OperationType type, Integer categoryId, Integer accountId, double q) {
+        return delegate.getAmountQuantile(type, categoryId, accountId, q);
+    }
+
+    @Override
+    public long getOperationCount(OperationType type, Integer categoryId, Integer accountId) {
+        return delegate.getOperationCount(type, categoryId, accountId);
+    }
+
+    @Override
+    public long getDistinctDescriptions(Integer accountId) {
+        return delegate.getDistinctDescriptions(accountId);
+    }
+
+    @Override
+    public Map<String, Long> getFrequentDescriptions(int limit) {
+        return delegate.getFrequentDescriptions(limit);
+    }
+
+    @Override
+    public long getFrequencyErrorBound() {
+        return delegate.getFrequencyErrorBound();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, invalidations, entries.size());
+    }
+
+    public synchronized void clear() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    @Override
+    public void onSaved(Operation previous, Operation saved) {
+        invalidate(key -> key.covers(saved) || (previous != null && key.covers(previous)));
+    }
+
+    @Override
+    public void onDeleted(Operation deleted) {
+        invalidate(key -> key.covers(deleted));
+    }
+
+    // Загрузка пакета сбрасывает кэш один раз, а не проверяет его на каждую операцию
+    @Override
+    public void onLoaded(List<Operation> loaded) {
+        clear();
+    }
+
+    // Кэш хранит неизменяемую копию: вызывающий код не испортит закэшированный результат
+    private Map<String, Long> cachedMap(Key key, Supplier<Map<String, Long>> compute) {
+        return cached(key, () -> Collections.unmodifiableMap(new HashMap<>(compute.get())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(Key key, Supplier<T> compute) {
+        long started;
+        synchronized (this) {
+            Object value = entries.get(key);
+            if (value != null) {
+                hits++;
+                return (T) value;
+            }
+            misses++;
+            started = generation;
+        }
+        // Считаем без блокировки кэша: долгий отчет не задерживает остальные запросы
+        T value = compute.get();
+        synchronized (this) {
+            if (generation == started && capacity > 0) {
+                entries.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    private synchronized void invalidate(Predicate<Key> affected) {
+        generation++;
+        if (entries.isEmpty()) {
+            return;
+        }
+        for (Iterator<Key> keys = entries.keySet().iterator(); keys.hasNext(); ) {
+            if (affected.test(keys.next())) {
+                keys.remove();
+                invalidations++;
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ru.tigerbank.service.analytics;
+
+import org.springframework.stereotype.Component;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.OperationListener;
+import ru.tigerbank.repository.OperationQuery;
+import ru.tigerbank.repository.OperationRepository;
+import ru.tigerbank.repository.ParallelScan;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Помесячный куб (месяц, тип, счет, категория) -> сумма (в копейках) и количество операций.
+// Обновляется при каждом сохранении и удалении операции (в том числе при смене
+// категории). Целые месяцы периода берутся из куба, а неполные крайние месяцы
+// досчитываются обходом операций.
+@Component
+public class CategoryRollup implements OperationListener {
+
+    private record CellKey(OperationType type, int accountId, int categoryId) { }
+
+    private record Cell(long sum, long count) {
+        Cell plus(Cell other) {
+            return new Cell(sum + other.sum, count + other.count);
+        }
+    }
+
+    // Номер месяца (год * 12 + месяц - 1) -> ячейки этого месяца
+    private final NavigableMap<Integer, Map<CellKey, Cell>> months = new ConcurrentSkipListMap<>();
+    private final OperationRepository operationRepository;
+    private final ParallelScan scan;
+
+    public CategoryRollup(OperationRepository operationRepository, ParallelScan scan) {
+        this.operationRepository = operationRepository;
+        this.scan = scan;
+        operationRepository.addListener(this);
+    }
+
+    // Суммы по ID категорий за период; accountId == null — по всем счетам
+    public Map<Integer, Long> sumByCategory(OperationType type, LocalDate from, LocalDate to, Integer accountId) {
+        Map<Integer, Long> result = new HashMap<>();
+        if (from.isAfter(to)) {
+            return result;
+        }
+
+        // Первый и последний месяцы, целиком попадающие в период
+        YearMonth firstFull = from.getDayOfMonth() == 1 ? YearMonth.from(from) : YearMonth.from(from).plusMonths(1);
+        YearMonth lastFull = to.equals(YearMonth.from(to).atEndOfMonth())
+                ? YearMonth.from(to)
+                : YearMonth.from(to).minusMonths(1);
+
+        if (firstFull.isAfter(lastFull)) {
+            scan(type, from, to, accountId, result);
+            return result;
+        }
+
+        for (Map<CellKey, Cell> cells : months.subMap(index(firstFull), true, index(lastFull), true).values()) {
+            for (Map.Entry<CellKey, Cell> entry : cells.entrySet()) {
+                CellKey key = entry.getKey();
+                if (key.type() == type && (accountId == null || key.accountId() == accountId)) {
+                    result.merge(key.categoryId(), entry.getValue().sum(), Long::sum);
+                }
+            }
+        }
+
+        LocalDate fullStart = firstFull.atDay(1);
+        LocalDate fullEnd = lastFull.atEndOfMonth();
+        if (from.isBefore(fullStart)) {
+            scan(type, from, fullStart.minusDays(1), accountId, result);
+        }
+        if (to.isAfter(fullEnd)) {
+            scan(type, fullEnd.plusDays(1), to, accountId, result);
+        }
+        return result;
+    }
+
+    @Override
+    public void onSaved(Operation previous, Operation saved) {
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        apply(saved, 1);
+    }
+
+    @Override
+    public void onDeleted(Operation deleted) {
+        apply(deleted, -1);
+    }
+
+    private void scan(OperationType type, LocalDate from, LocalDate to, Integer accountId, Map<Integer, Long> result) {
+        OperationQuery query = OperationQuery.all().withType(type).withDateRange(from, to);
+        if (accountId != null) {
+            query = query.withAccount(accountId);
+        }
+        // Каждая часть обхода копит свою карту, карты сливаются по категориям
+        Map<Integer, Long> scanned = operationRepository.reduce(query, HashMap::new,
+                (sums, op) -> sums.merge(op.getCategoryId(), op.getAmount(), Long::sum),
+                CategoryRollup::mergeSums, scan);
+        scanned.forEach((categoryId, sum) -> result.merge(categoryId, sum, Long::sum));
+    }
+
+    private static Map<Integer, Long> mergeSums(Map<Integer, Long> left, Map<Integer, Long> right) {
+        right.forEach((categoryId, sum) -> left.merge(categoryId, sum, Long::sum));
+        return left;
+    }
+
+    // Вызывается под блокировкой записи репозитория, поэтому писатель всегда один
+    private void apply(Operation operation, int sign) {
+        int month = index(YearMonth.from(operation.getDate()));
+        CellKey key = new CellKey(operation.getType(), operation.getBankAccountId(), operation.getCategoryId());
+        Map<CellKey, Cell> cells = months.computeIfAbsent(month, k -> new ConcurrentHashMap<>());
+        Cell updated = cells.merge(key, new Cell(sign * operation.getAmount(), sign), Cell::plus);
+        // Пустые ячейки и месяцы удаляем, чтобы куб не рос от удаленных операций
+        if (updated.count() == 0) {
+            cells.remove(key);
+            if (cells.isEmpty()) {
+                months.remove(month);
+            }
+        }
+    }
+
+    private static int index(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+}
@@ -0,0 +1,119 @@
+package ru.tigerbank.service.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Частоты строк (count-min): depth строк по width счетчиков, оценка — минимум по строкам.
+// Оценка никогда не меньше точной и с вероятностью 1 - e^-depth превышает ее не больше
+// чем на e / width * (всего добавлений); при width = 4096, depth = 4 — на 0.07% от общего
+// числа с вероятностью 98%. Удаление уменьшает счетчики (частоты остаются неотрицательными).
+//
+// Для частых строк рядом держатся кандидаты — до candidateLimit строк с наибольшей
+// оценкой на момент добавления; при запросе их оценки пересчитываются.
+// Не потокобезопасен.
+public final class CountMinSketch {
+
+    public static final int DEFAULT_WIDTH = 4096;
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_CANDIDATES = 256;
+
+    private final int width;
+    private final long[][] counters;
+    private final int candidateLimit;
+    private final Map<String, Long> candidates = new HashMap<>();
+    private long total;
+
+    public CountMinSketch() {
+        this(DEFAULT_WIDTH, DEFAULT_DEPTH, DEFAULT_CANDIDATES);
+    }
+
+    public CountMinSketch(int width, int depth, int candidateLimit) {
+        if (width <= 0 || depth <= 0 || candidateLimit < 0) {
+            throw new IllegalArgumentException("Width and depth must be positive, candidates non-negative");
+        }
+        this.width = width;
+        this.counters = new long[depth][width];
+        this.candidateLimit = candidateLimit;
+    }
+
+    public void add(String value) {
+        long estimate = update(value, 1);
+        total++;
+        if (candidates.containsKey(value) || candidates.size() < candidateLimit) {
+            candidates.put(value, estimate);
+            return;
+        }
+        // Вытесняем самого редкого кандидата, если новая строка встречается чаще
+        Map.Entry<String, Long> rarest = null;
+        for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+            if (rarest == null || candidate.getValue() < rarest.getValue()) {
+                rarest = candidate;
+            }
+        }
+        if (rarest != null && estimate > rarest.getValue()) {
+            candidates.remove(rarest.getKey());
+            candidates.put(value, estimate);
+        }
+    }
+
+    public void remove(String value) {
+        update(value, -1);
+        total--;
+    }
+
+    public long estimate(String value) {
+        long hash = HyperLogLog.hash(value);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < counters.length; row++) {
+            estimate = Math.min(estimate, counters[row][column(hash, row)]);
+        }
+        return estimate;
+    }
+
+    // До limit самых частых строк среди кандидатов с текущими оценками, по убыванию
+    public Map<String, Long> topFrequent(int limit) {
+        List<Map.Entry<String, Long>> current = new ArrayList<>(candidates.size());
+        for (String candidate : candidates.keySet()) {
+            long estimate = estimate(candidate);
+            if (estimate > 0) {
+                current.add(Map.entry(candidate, estimate));
+            }
+        }
+        current.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : current.subList(0, Math.min(limit, current.size()))) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    // Граница завышения: e / width * total
+    public long getErrorBound() {
+        return (long) Math.ceil(Math.E / width * total);
+    }
+
+    private long update(String value, long delta) {
+        long hash = HyperLogLog.hash(value);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < counters.length; row++) {
+            int column = column(hash, row);
+            counters[row][column] += delta;
+            estimate = Math.min(estimate, counters[row][column]);
+        }
+        return estimate;
+    }
+
+    // Двойное хеширование: h1 + row * h2 дает независимые по строкам столбцы
+    private int column(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return Math.floorMod(h1 + row * h2, width);
+    }
+}
@@ -0,0 +1,44 @@
+package ru.tigerbank.service.analytics;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// Шаг временного ряда (AnalyticsService.getSeries). Корзины выровнены по календарю:
+// неделя начинается с понедельника, месяц — с первого числа; первая и последняя
+// корзины могут быть неполными.
+public enum Granularity {
+    DAY,
+    WEEK,
+    MONTH;
+
+    // Начало корзины, в которую попадает дата
+    public LocalDate bucketStart(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            // 1970-01-01 — четверг, поэтому сдвиг на 3 дня дает номер дня от понедельника
+            case WEEK -> date.minusDays(Math.floorMod(date.toEpochDay() + 3, 7));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate next(LocalDate bucketStart) {
+        return switch (this) {
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+            case MONTH -> bucketStart.plusMonths(1);
+        };
+    }
+
+    // Число корзин в периоде [from, to]
+    public int bucketCount(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return 0;
+        }
+        ChronoUnit unit = switch (this) {
+            case DAY -> ChronoUnit.DAYS;
+            case WEEK -> ChronoUnit.WEEKS;
+            case MONTH -> ChronoUnit.MONTHS;
+        };
+        return Math.toIntExact(unit.between(bucketStart(from), bucketStart(to)) + 1);
+    }
+}
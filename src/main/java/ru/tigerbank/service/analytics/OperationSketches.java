@@ -0,0 +1,139 @@
+package ru.tigerbank.service.analytics;
+
+import org.springframework.stereotype.Component;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.OperationListener;
+import ru.tigerbank.repository.OperationRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Приблизительная аналитика по всей истории операций для очень больших журналов:
+// скетчи обновляются при каждом сохранении и удалении операции, запрос не обходит
+// операции и занимает микросекунды. Границы ошибок:
+// - квантили сумм (QuantileSketch) — не больше 1% от значения, удаления учитываются;
+// - число различных описаний (HyperLogLog) — стандартная ошибка 0.8% (по счету — 1.6%),
+//   удаленные и замененные описания продолжают учитываться;
+// - частоты описаний (CountMinSketch) — не меньше точных и с вероятностью 98% завышены
+//   не больше чем на 0.07% от числа операций.
+// Описания сравниваются без учета регистра и крайних пробелов.
+@Component
+public class OperationSketches implements OperationListener {
+
+    // Разрез квантилей: categoryId и accountId == null — все операции типа
+    private record SliceKey(OperationType type, Integer categoryId, Integer accountId) { }
+
+    // Все поля ниже — под блокировкой this
+    private final Map<SliceKey, QuantileSketch> amounts = new HashMap<>();
+    private final HyperLogLog descriptions = new HyperLogLog();
+    private final Map<Integer, HyperLogLog> descriptionsByAccount = new HashMap<>();
+    private final CountMinSketch frequentDescriptions = new CountMinSketch();
+
+    public OperationSketches(OperationRepository operationRepository) {
+        operationRepository.addListener(this);
+    }
+
+    // Квантиль q сумм операций типа type (в копейках) по категории или по счету;
+    // null в обоих — по всем операциям типа, 0 — если операций нет
+    public synchronized long amountQuantile(OperationType type, Integer categoryId, Integer accountId, double q) {
+        if (categoryId != null && accountId != null) {
+            throw new IllegalArgumentException("Quantiles are kept either by category or by account");
+        }
+        QuantileSketch sketch = amounts.get(new SliceKey(type, categoryId, accountId));
+        if (sketch == null) {
+            if (q < 0 || q > 1) {
+                throw new IllegalArgumentException("Quantile must be in [0, 1]: " + q);
+            }
+            return 0;
+        }
+        return sketch.quantile(q);
+    }
+
+    // Число операций в разрезе — точное
+    public synchronized long amountCount(OperationType type, Integer categoryId, Integer accountId) {
+        QuantileSketch sketch = amounts.get(new SliceKey(type, categoryId, accountId));
+        return sketch == null ? 0 : sketch.getCount();
+    }
+
+    // Число различных описаний; accountId == null — по всем счетам
+    public synchronized long distinctDescriptions(Integer accountId) {
+        if (accountId == null) {
+            return descriptions.estimate();
+        }
+        HyperLogLog sketch = descriptionsByAccount.get(accountId);
+        return sketch == null ? 0 : sketch.estimate();
+    }
+
+    // До limit самых частых описаний с оценкой числа операций, по убыванию
+    public synchronized Map<String, Long> frequentDescriptions(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        return frequentDescriptions.topFrequent(limit);
+    }
+
+    // На сколько операций может быть завышена частота описания
+    public synchronized long frequencyErrorBound() {
+        return frequentDescriptions.getErrorBound();
+    }
+
+    @Override
+    public synchronized void onSaved(Operation previous, Operation saved) {
+        if (previous != null) {
+            remove(previous);
+        }
+        for (SliceKey key : slices(saved)) {
+            amounts.computeIfAbsent(key, k -> new QuantileSketch()).add(saved.getAmount());
+        }
+        String description = normalize(saved.getDescription());
+        if (description != null) {
+            descriptions.add(description);
+            descriptionsByAccount.computeIfAbsent(saved.getBankAccountId(), id -> new HyperLogLog(12))
+                    .add(description);
+            frequentDescriptions.add(description);
+        }
+    }
+
+    // Весь пакет — под одним захватом монитора
+    @Override
+    public synchronized void onLoaded(List<Operation> loaded) {
+        OperationListener.super.onLoaded(loaded);
+    }
+
+    @Override
+    public synchronized void onDeleted(Operation deleted) {
+        remove(deleted);
+    }
+
+    private void remove(Operation operation) {
+        for (SliceKey key : slices(operation)) {
+            QuantileSketch sketch = amounts.get(key);
+            sketch.remove(operation.getAmount());
+            if (sketch.getCount() == 0) {
+                amounts.remove(key);
+            }
+        }
+        String description = normalize(operation.getDescription());
+        if (description != null) {
+            frequentDescriptions.remove(description);
+        }
+    }
+
+    private static SliceKey[] slices(Operation operation) {
+        return new SliceKey[]{
+                new SliceKey(operation.getType(), null, null),
+                new SliceKey(operation.getType(), operation.getCategoryId(), null),
+                new SliceKey(operation.getType(), null, operation.getBankAccountId())
+        };
+    }
+
+    private static String normalize(String description) {
+        if (description == null || description.isBlank()) {
+            return null;
+        }
+        return description.strip().toLowerCase(Locale.ROOT);
+    }
+}
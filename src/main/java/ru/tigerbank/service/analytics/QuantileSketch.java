@@ -0,0 +1,103 @@
+package ru.tigerbank.service.analytics;
+
+import java.util.Arrays;
+
+// Квантили сумм с относительной ошибкой (схема DDSketch): сумма x попадает в корзину
+// ceil(log_gamma(x)), gamma = (1 + alpha) / (1 - alpha). Любой квантиль отличается
+// от точного значения не больше чем на alpha * значение (при alpha = 1% — на 1%).
+// В отличие от t-digest, корзины — просто счетчики: удаление операции уменьшает счетчик,
+// и скетч остается точным по составу. Слияние — сложение счетчиков.
+// Суммы — положительные, в копейках. Не потокобезопасен.
+public final class QuantileSketch {
+
+    public static final double DEFAULT_RELATIVE_ERROR = 0.01;
+
+    private final double relativeError;
+    private final double logGamma;
+    private long[] counts = new long[0];
+    private long count;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ERROR);
+    }
+
+    public QuantileSketch(double relativeError) {
+        if (!(relativeError > 0 && relativeError < 1)) {
+            throw new IllegalArgumentException("Relative error must be in (0, 1): " + relativeError);
+        }
+        this.relativeError = relativeError;
+        this.logGamma = Math.log((1 + relativeError) / (1 - relativeError));
+    }
+
+    public void add(long amount) {
+        int index = index(amount);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index]++;
+        count++;
+    }
+
+    public void remove(long amount) {
+        int index = index(amount);
+        if (index >= counts.length || counts[index] == 0) {
+            throw new IllegalStateException("Amount was not added to the sketch: " + amount);
+        }
+        counts[index]--;
+        count--;
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.relativeError != relativeError) {
+            throw new IllegalArgumentException("Sketches have different relative errors");
+        }
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int index = 0; index < other.counts.length; index++) {
+            counts[index] += other.counts[index];
+        }
+        count += other.count;
+    }
+
+    // Квантиль q из [0, 1]: оценка суммы, не больше которой q-я доля операций;
+    // 0 для пустого скетча
+    public long quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be in [0, 1]: " + q);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) (q * (count - 1));
+        long seen = 0;
+        for (int index = 0; index < counts.length; index++) {
+            seen += counts[index];
+            if (seen > rank) {
+                return value(index);
+            }
+        }
+        return value(counts.length - 1);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getRelativeError() {
+        return relativeError;
+    }
+
+    private int index(long amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be positive: " + amount);
+        }
+        return (int) Math.ceil(Math.log(amount) / logGamma);
+    }
+
+    // Середина корзины (gamma^(i-1), gamma^i] по относительной ошибке
+    private long value(int index) {
+        double gamma = Math.exp(logGamma);
+        return Math.max(1, Math.round(2 * Math.pow(gamma, index) / (gamma + 1)));
+    }
+}
@@ -0,0 +1,91 @@
+package ru.tigerbank.service.analytics;
+
+import ru.tigerbank.domain.OperationType;
+
+import java.time.LocalDate;
+
+// Временной ряд сумм (в копейках) по корзинам периода: плотные массивы, корзина i
+// начинается с дня startDays[i] (epoch day). type == null — разница доходов и расходов.
+// Неизменяемый: геттеры массивов возвращают копии.
+public final class TimeSeries {
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Granularity granularity;
+    private final OperationType type;
+    private final Integer accountId;
+    private final long[] startDays;
+    private final long[] sums;
+    private final int[] counts;
+
+    public TimeSeries(LocalDate from, LocalDate to, Granularity granularity, OperationType type, Integer accountId,
+                      long[] startDays, long[] sums, int[] counts) {
+        if (startDays.length != sums.length || sums.length != counts.length) {
+            throw new IllegalArgumentException("Series arrays must have the same length");
+        }
+        this.from = from;
+        this.to = to;
+        this.granularity = granularity;
+        this.type = type;
+        this.accountId = accountId;
+        this.startDays = startDays.clone();
+        this.sums = sums.clone();
+        this.counts = counts.clone();
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public OperationType getType() {
+        return type;
+    }
+
+    public Integer getAccountId() {
+        return accountId;
+    }
+
+    public int size() {
+        return sums.length;
+    }
+
+    public LocalDate bucketStart(int bucket) {
+        return LocalDate.ofEpochDay(startDays[bucket]);
+    }
+
+    public long sum(int bucket) {
+        return sums[bucket];
+    }
+
+    public int count(int bucket) {
+        return counts[bucket];
+    }
+
+    public long total() {
+        long total = 0;
+        for (long sum : sums) {
+            total += sum;
+        }
+        return total;
+    }
+
+    public long[] getStartDays() {
+        return startDays.clone();
+    }
+
+    public long[] getSums() {
+        return sums.clone();
+    }
+
+    public int[] getCounts() {
+        return counts.clone();
+    }
+}
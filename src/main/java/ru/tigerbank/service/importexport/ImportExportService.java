@@ -1,9 +1,11 @@
 package ru.tigerbank.service.importexport;
 
 import ru.tigerbank.service.importexport.model.DataSnapshot;
+import ru.tigerbank.service.operation.OperationResult;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.List;
 
 public interface ImportExportService {
 
@@ -19,6 +21,9 @@ public interface ImportExportService {
     DataSnapshot importFromYaml(InputStream inputStream);
     DataSnapshot importData(String format, InputStream inputStream);
 
-    // Применение импортированных данных
-    void applySnapshot(DataSnapshot snapshot, boolean overwrite);
+    // Применение импортированных данных; возвращает результат по каждой операции
+    List<OperationResult> applySnapshot(DataSnapshot snapshot, boolean overwrite);
+
+    // Сохранение бинарной контрольной точки для быстрого старта
+    void saveCheckpoint();
 }
\ No newline at end of file
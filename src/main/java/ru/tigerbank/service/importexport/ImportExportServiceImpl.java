@@ -2,17 +2,26 @@ package ru.tigerbank.service.importexport;
 
 import org.springframework.stereotype.Service;
 import ru.tigerbank.domain.BankAccount;
-import ru.tigerbank.domain.Category;
 import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
 import ru.tigerbank.repository.BankAccountRepository;
 import ru.tigerbank.repository.CategoryRepository;
 import ru.tigerbank.repository.OperationRepository;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.checkpoint.CheckpointManager;
+import ru.tigerbank.repository.snapshot.Snapshot;
+import ru.tigerbank.repository.snapshot.SnapshotManager;
+import ru.tigerbank.service.account.AccountBalanceLedger;
 import ru.tigerbank.service.importexport.exporter.DataExporter;
 import ru.tigerbank.service.importexport.importer.DataImporter;
 import ru.tigerbank.service.importexport.model.DataSnapshot;
+import ru.tigerbank.service.operation.OperationResult;
+import ru.tigerbank.service.operation.OperationService;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -24,6 +33,11 @@ public class ImportExportServiceImpl implements ImportExportService {
     private final BankAccountRepository accountRepository;
     private final CategoryRepository categoryRepository;
     private final OperationRepository operationRepository;
+    private final OperationService operationService;
+    private final CheckpointManager checkpointManager;
+    private final AccountBalanceLedger ledger;
+    private final SnapshotManager snapshotManager;
+    private final StringDictionary dictionary;
 
     private final Map<String, DataExporter> exporters;
     private final Map<String, DataImporter> importers;
@@ -32,12 +46,22 @@ public class ImportExportServiceImpl implements ImportExportService {
             BankAccountRepository accountRepository,
             CategoryRepository categoryRepository,
             OperationRepository operationRepository,
+            OperationService operationService,
+            CheckpointManager checkpointManager,
+            AccountBalanceLedger ledger,
+            SnapshotManager snapshotManager,
+            StringDictionary dictionary,
             List<DataExporter> exporters,
             List<DataImporter> importers) {
 
         this.accountRepository = accountRepository;
         this.categoryRepository = categoryRepository;
         this.operationRepository = operationRepository;
+        this.operationService = operationService;
+        this.checkpointManager = checkpointManager;
+        this.ledger = ledger;
+        this.snapshotManager = snapshotManager;
+        this.dictionary = dictionary;
 
         this.exporters = exporters.stream()
                 .collect(Collectors.toMap(DataExporter::getFormat, Function.identity()));
@@ -98,38 +122,62 @@ public class ImportExportServiceImpl implements ImportExportService {
     }
 
     @Override
-    public void applySnapshot(DataSnapshot snapshot, boolean overwrite) {
+    public List<OperationResult> applySnapshot(DataSnapshot snapshot, boolean overwrite) {
         if (overwrite) {
             // Очищаем все данные
-            operationRepository.findAll().forEach(op ->
-                    operationRepository.deleteById(op.getId()));
-            categoryRepository.findAll().forEach(cat ->
-                    categoryRepository.deleteById(cat.getId()));
-            accountRepository.findAll().forEach(acc ->
-                    accountRepository.deleteById(acc.getId()));
+            operationRepository.deleteAll();
+            categoryRepository.deleteAll();
+            accountRepository.deleteAll();
         }
 
-        // Сохраняем счета
-        for (BankAccount account : snapshot.getAccounts()) {
-            accountRepository.save(account);
-        }
+        // Счета и категории сохраняем до операций, чтобы ссылки прошли проверку
+        List<BankAccount> accounts = accountRepository.saveAll(snapshot.getAccounts());
+        categoryRepository.saveAll(snapshot.getCategories());
 
-        // Сохраняем категории
-        for (Category category : snapshot.getCategories()) {
-            categoryRepository.save(category);
-        }
+        List<OperationResult> results = operationService.createOperations(snapshot.getOperations());
 
-        // Сохраняем операции
-        for (Operation operation : snapshot.getOperations()) {
-            operationRepository.save(operation);
+        // В файле итоговый баланс, а в счете хранится корректировка к сумме операций,
+        // поэтому пересчитываем ее после загрузки операций
+        List<BankAccount> adjusted = new ArrayList<>(accounts.size());
+        for (BankAccount account : accounts) {
+            BankAccount imported = new BankAccount(account.getId(), account.getName());
+            imported.setBalance(ledger.adjustmentFor(account.getId(), account.getBalance()));
+            adjusted.add(imported);
         }
+        accountRepository.saveAll(adjusted);
+
+        // После перезаписи в словаре остаются описания удаленных операций
+        // и строки, отброшенные при разборе файла
+        dictionary.evictUnused();
+
+        return results;
     }
 
+    @Override
+    public void saveCheckpoint() {
+        checkpointManager.checkpoint();
+    }
+
+    // Все три списка берутся из одного снимка, поэтому операции не ссылаются на счета
+    // и категории, которых нет в выгрузке. Баланс считается по операциям того же снимка.
     private DataSnapshot createSnapshot() {
-        return new DataSnapshot(
-                accountRepository.findAll(),
-                categoryRepository.findAll(),
-                operationRepository.findAll()
-        );
+        try (Snapshot snapshot = snapshotManager.open()) {
+            List<Operation> operations = snapshot.getOperations();
+            Map<Integer, Long> operationsBalance = new HashMap<>();
+            for (Operation operation : operations) {
+                long signed = operation.getType() == OperationType.INCOME
+                        ? operation.getAmount()
+                        : -operation.getAmount();
+                operationsBalance.merge(operation.getBankAccountId(), signed, Long::sum);
+            }
+
+            List<BankAccount> accounts = new ArrayList<>();
+            for (BankAccount account : snapshot.getAccounts()) {
+                BankAccount exported = new BankAccount(account.getId(), account.getName());
+                exported.setBalance(account.getBalance() + operationsBalance.getOrDefault(account.getId(), 0L));
+                accounts.add(exported);
+            }
+            return new DataSnapshot(accounts, snapshot.getCategories(), operations);
+        }
     }
 }
@@ -3,6 +3,7 @@ package ru.tigerbank.service.importexport.exporter;
 import org.springframework.stereotype.Component;
 import ru.tigerbank.domain.BankAccount;
 import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.Money;
 import ru.tigerbank.domain.Operation;
 import ru.tigerbank.service.importexport.model.DataSnapshot;
 
@@ -26,10 +27,10 @@ public class CsvExporter implements DataExporter {
             writer.println("=== ACCOUNTS ===");
             writer.println("id,name,balance");
             for (BankAccount account : snapshot.getAccounts()) {
-                writer.printf("%d,%s,%.2f%n",
+                writer.printf("%d,%s,%s%n",
                         account.getId(),
                         account.getName(),
-                        account.getBalance()
+                        Money.format(account.getBalance())
                 );
             }
 
@@ -56,12 +57,12 @@ public class CsvExporter implements DataExporter {
                 if (description == null) {
                     description = "";
                 }
-                writer.printf("%d,%s,%d,%d,%.2f,%s,%s%n",
+                writer.printf("%d,%s,%d,%d,%s,%s,%s%n",
                         operation.getId(),
                         operation.getType(),
                         operation.getBankAccountId(),
                         operation.getCategoryId(),
-                        operation.getAmount(),
+                        Money.format(operation.getAmount()),
                         operation.getDate(),
                         description
                 );
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.stereotype.Component;
 import ru.tigerbank.service.importexport.model.DataSnapshot;
+import ru.tigerbank.service.importexport.model.MoneyModule;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -18,6 +19,7 @@ public class JsonExporter implements DataExporter {
     public JsonExporter() {
         this.objectMapper = new ObjectMapper()
                 .registerModule(new JavaTimeModule())
+                .registerModule(new MoneyModule())
                 .enable(SerializationFeature.INDENT_OUTPUT);
     }
 
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.stereotype.Component;
 import ru.tigerbank.service.importexport.model.DataSnapshot;
+import ru.tigerbank.service.importexport.model.MoneyModule;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -17,7 +18,8 @@ public class YamlExporter implements DataExporter {
 
     public YamlExporter() {
         this.objectMapper = new ObjectMapper(new YAMLFactory())
-                .registerModule(new JavaTimeModule());
+                .registerModule(new JavaTimeModule())
+                .registerModule(new MoneyModule());
     }
 
     @Override
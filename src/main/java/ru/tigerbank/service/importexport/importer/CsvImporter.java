@@ -3,8 +3,10 @@ package ru.tigerbank.service.importexport.importer;
 import org.springframework.stereotype.Component;
 import ru.tigerbank.domain.BankAccount;
 import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.Money;
 import ru.tigerbank.domain.Operation;
 import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.StringDictionary;
 import ru.tigerbank.service.importexport.model.DataSnapshot;
 
 import java.io.*;
@@ -16,6 +18,13 @@ import java.util.List;
 @Component
 public class CsvImporter implements DataImporter {
 
+    // Повторяющиеся описания и названия берутся из общего словаря, а не копируются на каждую строку
+    private final StringDictionary dictionary;
+
+    public CsvImporter(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
     @Override
     public DataSnapshot importData(InputStream inputStream) {
         List<BankAccount> accounts = new ArrayList<>();
@@ -85,8 +94,8 @@ public class CsvImporter implements DataImporter {
 
         try {
             Integer id = parseInteger(parts[0]);
-            String name = parts[1].trim();
-            Double balance = parseDouble(parts[2]);
+            String name = dictionary.intern(parts[1].trim());
+            Long balance = parseAmount(parts[2]);
 
             if (id != null && name != null && !name.isEmpty() && balance != null) {
                 BankAccount account = new BankAccount(id, name);
@@ -107,7 +116,7 @@ public class CsvImporter implements DataImporter {
         try {
             Integer id = parseInteger(parts[0]);
             String typeStr = parts[1].trim();
-            String name = parts[2].trim();
+            String name = dictionary.intern(parts[2].trim());
 
             if (id != null && typeStr != null && !typeStr.isEmpty() &&
                     name != null && !name.isEmpty()) {
@@ -134,7 +143,7 @@ public class CsvImporter implements DataImporter {
             String typeStr = parts[1].trim();
             Integer accountId = parseInteger(parts[2]);
             Integer categoryId = parseInteger(parts[3]);
-            Double amount = parseDouble(parts[4]);
+            Long amount = parseAmount(parts[4]);
             String dateStr = parts[5].trim();
             String description = parts.length > 6 ? parts[6].trim() : "";
 
@@ -151,7 +160,7 @@ public class CsvImporter implements DataImporter {
                     }
 
                     Operation operation = new Operation(
-                            id, type, accountId, categoryId, amount, date, description
+                            id, type, accountId, categoryId, amount, date, dictionary.intern(description)
                     );
                     operations.add(operation);
                 }
@@ -194,11 +203,12 @@ public class CsvImporter implements DataImporter {
         }
     }
 
-    private Double parseDouble(String str) {
+    // Сумма в копейках (см. Money)
+    private Long parseAmount(String str) {
         if (str == null) return null;
         try {
-            return Double.parseDouble(str.trim());
-        } catch (NumberFormatException e) {
+            return Money.parse(str.trim());
+        } catch (IllegalArgumentException | ArithmeticException e) {
             return null;
         }
     }
@@ -3,7 +3,9 @@ package ru.tigerbank.service.importexport.importer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.stereotype.Component;
+import ru.tigerbank.repository.StringDictionary;
 import ru.tigerbank.service.importexport.model.DataSnapshot;
+import ru.tigerbank.service.importexport.model.MoneyModule;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -14,9 +16,11 @@ public class JsonImporter implements DataImporter {
 
     private final ObjectMapper objectMapper;
 
-    public JsonImporter() {
+    public JsonImporter(StringDictionary dictionary) {
         this.objectMapper = new ObjectMapper()
-                .registerModule(new JavaTimeModule());
+                .registerModule(new JavaTimeModule())
+                .registerModule(new MoneyModule())
+                .registerModule(StringInterning.module(dictionary));
     }
 
     @Override
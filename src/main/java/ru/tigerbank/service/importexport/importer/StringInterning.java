@@ -0,0 +1,32 @@
+package ru.tigerbank.service.importexport.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import ru.tigerbank.repository.StringDictionary;
+
+import java.io.IOException;
+import java.util.Set;
+
+// Модуль Jackson: названия и описания при разборе берутся из общего словаря,
+// поэтому повторяющиеся строки не копируются на каждую запись. Прочие строковые
+// поля в словарь не попадают: хранилища держат в нем только названия и описания.
+final class StringInterning {
+
+    private static final Set<String> INTERNED_FIELDS = Set.of("name", "description");
+
+    private StringInterning() {
+    }
+
+    static SimpleModule module(StringDictionary dictionary) {
+        return new SimpleModule().addDeserializer(String.class, new JsonDeserializer<String>() {
+            @Override
+            public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                String value = StringDeserializer.instance.deserialize(parser, context);
+                return INTERNED_FIELDS.contains(parser.currentName()) ? dictionary.intern(value) : value;
+            }
+        });
+    }
+}
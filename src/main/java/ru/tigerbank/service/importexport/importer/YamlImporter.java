@@ -5,7 +5,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.stereotype.Component;
+import ru.tigerbank.repository.StringDictionary;
 import ru.tigerbank.service.importexport.model.DataSnapshot;
+import ru.tigerbank.service.importexport.model.MoneyModule;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -16,9 +18,11 @@ public class YamlImporter implements DataImporter {
 
     private final ObjectMapper objectMapper;
 
-    public YamlImporter() {
+    public YamlImporter(StringDictionary dictionary) {
         this.objectMapper = new ObjectMapper(new YAMLFactory())
                 .registerModule(new JavaTimeModule())
+                .registerModule(new MoneyModule())
+                .registerModule(StringInterning.module(dictionary))
                 .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
     }
 
@@ -0,0 +1,63 @@
+package ru.tigerbank.service.importexport.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Money;
+import ru.tigerbank.domain.Operation;
+
+import java.io.IOException;
+
+// Модуль Jackson для JSON и YAML: суммы в домене хранятся в копейках, а в файлах
+// остаются в рублях с двумя знаками ("amount": 1250.50), как и до перехода на long.
+// Аннотации навешиваются через mix-in, домен от Jackson не зависит.
+public class MoneyModule extends SimpleModule {
+
+    public MoneyModule() {
+        super("TigerBankMoney");
+        setMixInAnnotation(Operation.class, OperationMixIn.class);
+        setMixInAnnotation(BankAccount.class, BankAccountMixIn.class);
+    }
+
+    private abstract static class OperationMixIn {
+        @JsonSerialize(using = AmountSerializer.class)
+        @JsonDeserialize(using = AmountDeserializer.class)
+        long amount;
+    }
+
+    private abstract static class BankAccountMixIn {
+        @JsonSerialize(using = AmountSerializer.class)
+        @JsonDeserialize(using = AmountDeserializer.class)
+        long balance;
+    }
+
+    static final class AmountSerializer extends JsonSerializer<Long> {
+        @Override
+        public void serialize(Long value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeNumber(Money.format(value));
+        }
+    }
+
+    static final class AmountDeserializer extends JsonDeserializer<Long> {
+        @Override
+        public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            try {
+                return Money.parse(parser.getText());
+            } catch (IllegalArgumentException e) {
+                // Старые выгрузки писали double как есть: 0.30000000000000004, 1.0E7
+                if (parser.currentToken() == JsonToken.VALUE_NUMBER_FLOAT) {
+                    return Math.round(parser.getDoubleValue() * Money.SCALE);
+                }
+                throw e;
+            }
+        }
+    }
+}
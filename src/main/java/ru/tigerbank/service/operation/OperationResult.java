@@ -0,0 +1,27 @@
+package ru.tigerbank.service.operation;
+
+import ru.tigerbank.domain.Operation;
+
+// Результат создания одной операции в пакете: сохраненная операция или причина отказа
+public final class OperationResult {
+
+    private final Operation operation;
+    private final String error;
+
+    private OperationResult(Operation operation, String error) {
+        this.operation = operation;
+        this.error = error;
+    }
+
+    public static OperationResult success(Operation operation) {
+        return new OperationResult(operation, null);
+    }
+
+    public static OperationResult failure(String error) {
+        return new OperationResult(null, error);
+    }
+
+    public boolean isSuccess() { return error == null; }
+    public Operation getOperation() { return operation; }
+    public String getError() { return error; }
+}
@@ -2,6 +2,7 @@ package ru.tigerbank.service.operation;
 
 import ru.tigerbank.domain.Operation;
 import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.OperationQuery;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -14,7 +15,7 @@ public interface OperationService {
             OperationType type,
             Integer bankAccountId,
             Integer categoryId,
-            double amount,
+            long amount,
             LocalDate date,
             String description
     );
@@ -25,11 +26,15 @@ public interface OperationService {
             OperationType type,
             Integer bankAccountId,
             Integer categoryId,
-            double amount,
+            long amount,
             LocalDate date,
             String description
     );
 
+    // Пакетное создание (импорт, внешние загрузки). Операции без ID получают новые ID,
+    // с ID — сохраняются как есть. Результаты идут в порядке входного списка.
+    List<OperationResult> createOperations(List<Operation> operations);
+
     // Чтение
     Optional<Operation> getOperation(Integer id);
     List<Operation> getAllOperations();
@@ -38,6 +43,14 @@ public interface OperationService {
     List<Operation> getOperationsByDateRange(LocalDate from, LocalDate to);
     List<Operation> getOperationsByType(OperationType type);
 
+    // Постраничное чтение по ключу (см. OperationRepository.findPage)
+    List<Operation> getOperationsPage(Integer afterId, int limit, OperationQuery query);
+
+    // Поиск по нескольким условиям сразу (см. OperationQuery)
+    List<Operation> findOperations(OperationQuery query);
+    // Не больше limit самых крупных операций по запросу, по убыванию суммы
+    List<Operation> getLargestOperations(OperationQuery query, int limit);
+
     // Обновление
     Operation updateDescription(Integer id, String newDescription);
     Operation changeCategory(Integer id, Integer newCategoryId);
@@ -46,6 +59,6 @@ public interface OperationService {
     void deleteOperation(Integer id);
 
     // Аналитика (базовая, остальное будет в AnalyticsService)
-    double getTotalIncomeByAccount(Integer accountId, LocalDate from, LocalDate to);
-    double getTotalExpenseByAccount(Integer accountId, LocalDate from, LocalDate to);
+    long getTotalIncomeByAccount(Integer accountId, LocalDate from, LocalDate to);
+    long getTotalExpenseByAccount(Integer accountId, LocalDate from, LocalDate to);
 }
\ No newline at end of file
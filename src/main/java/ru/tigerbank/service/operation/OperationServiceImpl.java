@@ -6,10 +6,16 @@ import ru.tigerbank.domain.Operation;
 import ru.tigerbank.domain.OperationType;
 import ru.tigerbank.repository.BankAccountRepository;
 import ru.tigerbank.repository.CategoryRepository;
+import ru.tigerbank.repository.OperationQuery;
 import ru.tigerbank.repository.OperationRepository;
+import ru.tigerbank.repository.ParallelScan;
+import ru.tigerbank.service.analytics.AccountPeriodTotals;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -18,14 +24,20 @@ public class OperationServiceImpl implements OperationService {
     private final OperationRepository operationRepository;
     private final BankAccountRepository bankAccountRepository;
     private final CategoryRepository categoryRepository;
+    private final AccountPeriodTotals periodTotals;
+    private final ParallelScan scan;
 
     public OperationServiceImpl(
             OperationRepository operationRepository,
             BankAccountRepository bankAccountRepository,
-            CategoryRepository categoryRepository) {
+            CategoryRepository categoryRepository,
+            AccountPeriodTotals periodTotals,
+            ParallelScan scan) {
         this.operationRepository = operationRepository;
         this.bankAccountRepository = bankAccountRepository;
         this.categoryRepository = categoryRepository;
+        this.periodTotals = periodTotals;
+        this.scan = scan;
     }
 
     @Override
@@ -33,7 +45,7 @@ public class OperationServiceImpl implements OperationService {
             OperationType type,
             Integer bankAccountId,
             Integer categoryId,
-            double amount,
+            long amount,
             LocalDate date,
             String description) {
 
@@ -60,7 +72,7 @@ public class OperationServiceImpl implements OperationService {
             OperationType type,
             Integer bankAccountId,
             Integer categoryId,
-            double amount,
+            long amount,
             LocalDate date,
             String description) {
 
@@ -79,6 +91,40 @@ public class OperationServiceImpl implements OperationService {
         return operationRepository.save(operation);
     }
 
+    @Override
+    public List<OperationResult> createOperations(List<Operation> operations) {
+        // Проверяем каждый счет и каждую категорию один раз
+        Map<Integer, Boolean> accountExists = new HashMap<>();
+        Map<Integer, Boolean> categoryExists = new HashMap<>();
+
+        OperationResult[] results = new OperationResult[operations.size()];
+        List<Operation> valid = new ArrayList<>(operations.size());
+        int[] positions = new int[operations.size()];
+
+        for (int i = 0; i < operations.size(); i++) {
+            Operation operation = operations.get(i);
+            Integer bankAccountId = operation.getBankAccountId();
+            Integer categoryId = operation.getCategoryId();
+            if (bankAccountId == null
+                    || !accountExists.computeIfAbsent(bankAccountId, bankAccountRepository::existsById)) {
+                results[i] = OperationResult.failure("Bank account not found with id: " + bankAccountId);
+            } else if (categoryId == null
+                    || !categoryExists.computeIfAbsent(categoryId, categoryRepository::existsById)) {
+                results[i] = OperationResult.failure("Category not found with id: " + categoryId);
+            } else {
+                positions[valid.size()] = i;
+                valid.add(operation);
+            }
+        }
+
+        // Все прошедшие проверку операции сохраняются за один проход
+        List<Operation> saved = operationRepository.saveAll(valid);
+        for (int i = 0; i < saved.size(); i++) {
+            results[positions[i]] = OperationResult.success(saved.get(i));
+        }
+        return List.of(results);
+    }
+
     @Override
     public Optional<Operation> getOperation(Integer id) {
         return operationRepository.findById(id);
@@ -118,6 +164,27 @@ public class OperationServiceImpl implements OperationService {
         return operationRepository.findByType(type);
     }
 
+    @Override
+    public List<Operation> getOperationsPage(Integer afterId, int limit, OperationQuery query) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return operationRepository.findPage(afterId, limit, query);
+    }
+
+    @Override
+    public List<Operation> findOperations(OperationQuery query) {
+        return operationRepository.find(query);
+    }
+
+    @Override
+    public List<Operation> getLargestOperations(OperationQuery query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return operationRepository.findLargest(query, limit, scan);
+    }
+
     @Override
     public Operation updateDescription(Integer id, String newDescription) {
         Operation operation = operationRepository.findById(id)
@@ -176,20 +243,12 @@ public class OperationServiceImpl implements OperationService {
     }
 
     @Override
-    public double getTotalIncomeByAccount(Integer accountId, LocalDate from, LocalDate to) {
-        return operationRepository.findByBankAccountId(accountId).stream()
-                .filter(op -> op.getType() == OperationType.INCOME)
-                .filter(op -> !op.getDate().isBefore(from) && !op.getDate().isAfter(to))
-                .mapToDouble(Operation::getAmount)
-                .sum();
+    public long getTotalIncomeByAccount(Integer accountId, LocalDate from, LocalDate to) {
+        return periodTotals.getIncome(accountId, from, to);
     }
 
     @Override
-    public double getTotalExpenseByAccount(Integer accountId, LocalDate from, LocalDate to) {
-        return operationRepository.findByBankAccountId(accountId).stream()
-                .filter(op -> op.getType() == OperationType.EXPENSE)
-                .filter(op -> !op.getDate().isBefore(from) && !op.getDate().isAfter(to))
-                .mapToDouble(Operation::getAmount)
-                .sum();
+    public long getTotalExpenseByAccount(Integer accountId, LocalDate from, LocalDate to) {
+        return periodTotals.getExpense(accountId, from, to);
     }
 }
\ No newline at end of file
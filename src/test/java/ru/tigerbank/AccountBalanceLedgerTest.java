@@ -0,0 +1,75 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.inmemory.InMemoryBankAccountRepository;
+import ru.tigerbank.repository.inmemory.InMemoryOperationRepository;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.snapshot.VersionLog;
+import ru.tigerbank.service.account.AccountBalanceLedger;
+import ru.tigerbank.service.account.BankAccountServiceImpl;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AccountBalanceLedgerTest {
+
+    private InMemoryBankAccountRepository accountRepository;
+    private InMemoryOperationRepository operationRepository;
+    private BankAccountServiceImpl accountService;
+    private Integer accountId;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = new InMemoryBankAccountRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+        operationRepository = new InMemoryOperationRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+        accountId = accountRepository.save(new BankAccount(null, "Основной")).getId();
+        // Операция до подписки тоже должна попасть в баланс
+        operationRepository.save(createOp(null, OperationType.INCOME, 1000));
+        accountService = new BankAccountServiceImpl(
+                accountRepository, operationRepository, new AccountBalanceLedger(operationRepository));
+    }
+
+    @Test
+    @DisplayName("Баланс счета должен меняться при добавлении, изменении и удалении операций")
+    void shouldTrackBalanceOnOperationChanges() {
+        Operation expense = operationRepository.save(createOp(null, OperationType.EXPENSE, 300));
+        assertEquals(700, balance());
+
+        operationRepository.save(createOp(expense.getId(), OperationType.EXPENSE, 450));
+        assertEquals(550, balance());
+
+        operationRepository.deleteById(expense.getId());
+        assertEquals(1000, balance());
+
+        operationRepository.deleteByBankAccountId(accountId);
+        assertEquals(0, balance());
+    }
+
+    @Test
+    @DisplayName("Ручная корректировка сохраняется поверх операций, пересчет ее сбрасывает")
+    void shouldKeepAdjustmentUntilRecalculation() {
+        accountService.adjustBalance(accountId, 1500);
+        assertEquals(1500, balance());
+
+        operationRepository.save(createOp(null, OperationType.EXPENSE, 200));
+        assertEquals(1300, balance());
+
+        assertEquals(800, accountService.recalculateBalance(accountId));
+        assertEquals(800, balance());
+    }
+
+    private long balance() {
+        return accountService.getAccount(accountId).orElseThrow().getBalance();
+    }
+
+    private Operation createOp(Integer id, OperationType type, long amount) {
+        return new Operation(id, type, accountId, 1, amount, LocalDate.of(2025, 1, 15), null);
+    }
+}
@@ -0,0 +1,89 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.inmemory.InMemoryOperationRepository;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.snapshot.VersionLog;
+import ru.tigerbank.service.analytics.AccountPeriodTotals;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AccountPeriodTotalsTest {
+
+    @Test
+    @DisplayName("Суммы за период должны совпадать с полным перебором операций")
+    void shouldMatchFullScan() {
+        InMemoryOperationRepository repository = new InMemoryOperationRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+        AccountPeriodTotals totals = new AccountPeriodTotals(repository);
+        Random random = new Random(42);
+        LocalDate base = LocalDate.of(2025, 6, 1);
+
+        // Даты разбросаны в обе стороны от первой операции, чтобы деревья расширялись
+        for (int i = 0; i < 2000; i++) {
+            OperationType type = random.nextBoolean() ? OperationType.INCOME : OperationType.EXPENSE;
+            repository.save(new Operation(null, type, 1 + random.nextInt(3), 1,
+                    1 + random.nextInt(1000), base.plusDays(random.nextInt(1500) - 750), null));
+        }
+        for (int i = 0; i < 300; i++) {
+            repository.deleteById(1 + random.nextInt(2000));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            int accountId = 1 + random.nextInt(3);
+            LocalDate from = base.plusDays(random.nextInt(2000) - 1000);
+            LocalDate to = from.plusDays(random.nextInt(400));
+
+            long income = 0;
+            long expense = 0;
+            for (Operation op : repository.findByBankAccountId(accountId)) {
+                if (!op.getDate().isBefore(from) && !op.getDate().isAfter(to)) {
+                    if (op.getType() == OperationType.INCOME) {
+                        income += op.getAmount();
+                    } else {
+                        expense += op.getAmount();
+                    }
+                }
+            }
+
+            assertEquals(income, totals.getIncome(accountId, from, to));
+            assertEquals(expense, totals.getExpense(accountId, from, to));
+            assertEquals(income - expense, totals.getNet(accountId, from, to));
+        }
+    }
+
+    @Test
+    @DisplayName("Операции с датами далеко от остальных должны учитываться без огромных деревьев")
+    void shouldHandleOutlierDates() {
+        InMemoryOperationRepository repository = new InMemoryOperationRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+        AccountPeriodTotals totals = new AccountPeriodTotals(repository);
+        LocalDate today = LocalDate.of(2025, 6, 1);
+
+        // Первая операция счета — выброс: отрезок дней строится от нее
+        repository.save(new Operation(null, OperationType.INCOME, 1, 1, 5, LocalDate.of(1, 1, 1), null));
+        repository.save(new Operation(null, OperationType.INCOME, 1, 1, 100, today, null));
+        repository.save(new Operation(null, OperationType.INCOME, 1, 1, 7, LocalDate.of(9999, 12, 31), null));
+        repository.save(new Operation(null, OperationType.EXPENSE, 1, 1, 3, LocalDate.of(-9999, 1, 1), null));
+        // Пакетная загрузка со своим выбросом
+        repository.load(List.of(
+                new Operation(100, OperationType.INCOME, 2, 1, 10, today, null),
+                new Operation(101, OperationType.INCOME, 2, 1, 20, LocalDate.of(1, 1, 1), null)));
+
+        assertEquals(112, totals.getIncome(1, LocalDate.MIN, LocalDate.MAX));
+        assertEquals(100, totals.getIncome(1, today.minusYears(1), today.plusYears(1)));
+        assertEquals(5, totals.getIncome(1, LocalDate.of(1, 1, 1), LocalDate.of(1, 1, 1)));
+        assertEquals(3, totals.getExpense(1, LocalDate.MIN, today));
+        assertEquals(10, totals.getIncome(2, today, today));
+        assertEquals(30, totals.getIncome(2, LocalDate.MIN, LocalDate.MAX));
+
+        repository.deleteById(1);
+        assertEquals(107, totals.getIncome(1, LocalDate.MIN, LocalDate.MAX));
+    }
+}
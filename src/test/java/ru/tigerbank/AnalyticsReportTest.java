@@ -0,0 +1,157 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.OperationQuery;
+import ru.tigerbank.repository.ParallelScan;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.columnar.ColumnarOperationRepository;
+import ru.tigerbank.repository.inmemory.InMemoryCategoryRepository;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.snapshot.VersionLog;
+import ru.tigerbank.service.analytics.AccountPeriodTotals;
+import ru.tigerbank.service.analytics.AnalyticsReport;
+import ru.tigerbank.service.analytics.AnalyticsServiceImpl;
+import ru.tigerbank.service.analytics.CategoryRollup;
+import ru.tigerbank.service.analytics.OperationSketches;
+import ru.tigerbank.service.analytics.Granularity;
+import ru.tigerbank.service.analytics.TimeSeries;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnalyticsReportTest {
+
+    @Test
+    @DisplayName("Сводный отчет должен совпадать с отдельными запросами аналитики")
+    void shouldMatchSeparateQueries() {
+        ColumnarOperationRepository operations =
+                new ColumnarOperationRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+        InMemoryCategoryRepository categories = new InMemoryCategoryRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+        categories.save(new Category(1, OperationType.INCOME, "Зарплата"));
+        categories.save(new Category(2, OperationType.EXPENSE, "Еда"));
+        categories.save(new Category(3, OperationType.EXPENSE, "Транспорт"));
+
+        Random random = new Random(3);
+        LocalDate base = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < 2000; i++) {
+            int categoryId = 1 + random.nextInt(3);
+            OperationType type = categoryId == 1 ? OperationType.INCOME : OperationType.EXPENSE;
+            operations.save(new Operation(null, type, 1 + random.nextInt(2), categoryId,
+                    1 + random.nextInt(100_000), base.plusDays(random.nextInt(365)), null));
+        }
+
+        try (ParallelScan scan = ParallelScan.parallel(4, 100)) {
+            AnalyticsServiceImpl analytics = new AnalyticsServiceImpl(operations, categories,
+                    new AccountPeriodTotals(operations), new CategoryRollup(operations, scan),
+                    new OperationSketches(operations), scan);
+            LocalDate from = LocalDate.of(2025, 2, 10);
+            LocalDate to = LocalDate.of(2025, 8, 20);
+
+            AnalyticsReport report = analytics.report(from, to, null);
+            assertEquals(analytics.getTotalIncome(from, to), report.totalIncome());
+            assertEquals(analytics.getTotalExpense(from, to), report.totalExpense());
+            assertEquals(analytics.getNetBalance(from, to), report.net());
+            assertEquals(analytics.getIncomeByCategory(from, to), report.incomeByCategory());
+            assertEquals(analytics.getExpenseByCategory(from, to), report.expenseByCategory());
+            assertEquals(operations.find(OperationQuery.all().withDateRange(from, to)).size(),
+                    report.operationCount());
+
+            AnalyticsReport byAccount = analytics.report(from, to, 2);
+            assertEquals(analytics.getNetBalanceByAccount(2, from, to), byAccount.net());
+            assertEquals(analytics.getExpenseByCategoryAndAccount(2, from, to), byAccount.expenseByCategory());
+            // Категории по убыванию суммы, сам отчет неизменяемый
+            List<Long> sums = List.copyOf(byAccount.expenseByCategory().values());
+            assertEquals(sums.stream().sorted((a, b) -> Long.compare(b, a)).toList(), sums);
+            assertThrows(UnsupportedOperationException.class, () -> byAccount.incomeByCategory().clear());
+
+            // Топ категорий — начало упорядоченной карты отчета
+            assertEquals(byAccount.expenseByCategory().keySet().stream().limit(1).toList(),
+                    List.copyOf(analytics.getTopCategories(OperationType.EXPENSE, from, to, 2, 1).keySet()));
+            assertEquals(report.expenseByCategory(),
+                    analytics.getTopCategories(OperationType.EXPENSE, from, to, null, 10));
+        }
+    }
+
+    @Test
+    @DisplayName("Топ категорий должен сводить одинаковые названия и пропускать удаленные категории")
+    void shouldRankCategoriesByMergedNames() {
+        ColumnarOperationRepository operations =
+                new ColumnarOperationRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+        InMemoryCategoryRepository categories = new InMemoryCategoryRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+        categories.save(new Category(1, OperationType.EXPENSE, "Еда"));
+        categories.save(new Category(2, OperationType.EXPENSE, "Еда"));
+        categories.save(new Category(3, OperationType.EXPENSE, "Транспорт"));
+        categories.save(new Category(4, OperationType.EXPENSE, "Удаленная"));
+        LocalDate date = LocalDate.of(2025, 3, 15);
+        long[] amounts = {0, 60, 60, 80, 500};
+        for (int categoryId = 1; categoryId <= 4; categoryId++) {
+            operations.save(new Operation(null, OperationType.EXPENSE, 1, categoryId, amounts[categoryId], date, null));
+        }
+        categories.deleteById(4);
+
+        AnalyticsServiceImpl analytics = new AnalyticsServiceImpl(operations, categories,
+                new AccountPeriodTotals(operations), new CategoryRollup(operations, ParallelScan.sequential()),
+                new OperationSketches(operations), ParallelScan.sequential());
+        LocalDate from = date.withDayOfMonth(1);
+        LocalDate to = date.plusMonths(1);
+
+        assertEquals(List.of("Еда"),
+                List.copyOf(analytics.getTopCategories(OperationType.EXPENSE, from, to, null, 1).keySet()));
+        assertEquals(120, analytics.getTopCategories(OperationType.EXPENSE, from, to, null, 1).get("Еда"));
+        assertEquals(List.of("Еда", "Транспорт"),
+                List.copyOf(analytics.getTopCategories(OperationType.EXPENSE, from, to, null, 5).keySet()));
+        assertEquals(List.of("Еда", "Транспорт"),
+                List.copyOf(analytics.report(from, to, null).expenseByCategory().keySet()));
+    }
+
+    @Test
+    @DisplayName("Временной ряд должен совпадать с суммами за каждую корзину")
+    void shouldBuildSeriesByBuckets() {
+        ColumnarOperationRepository operations =
+                new ColumnarOperationRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+        InMemoryCategoryRepository categories = new InMemoryCategoryRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+        Random random = new Random(5);
+        LocalDate base = LocalDate.of(2024, 11, 1);
+        for (int i = 0; i < 1500; i++) {
+            OperationType type = random.nextInt(3) == 0 ? OperationType.INCOME : OperationType.EXPENSE;
+            operations.save(new Operation(null, type, 1 + random.nextInt(2), 1,
+                    1 + random.nextInt(10_000), base.plusDays(random.nextInt(200)), null));
+        }
+        AnalyticsServiceImpl analytics = new AnalyticsServiceImpl(operations, categories,
+                new AccountPeriodTotals(operations), new CategoryRollup(operations, ParallelScan.sequential()),
+                new OperationSketches(operations), ParallelScan.sequential());
+        // Среда: первая неделя неполная, с понедельника 2024-12-09
+        LocalDate from = LocalDate.of(2024, 12, 11);
+        LocalDate to = LocalDate.of(2025, 3, 14);
+
+        for (Granularity granularity : Granularity.values()) {
+            for (OperationType type : new OperationType[]{null, OperationType.EXPENSE}) {
+                TimeSeries series = analytics.getSeries(from, to, granularity, type, null);
+                assertEquals(granularity.bucketStart(from), series.bucketStart(0));
+                for (int bucket = 0; bucket < series.size(); bucket++) {
+                    LocalDate start = series.bucketStart(bucket);
+                    LocalDate first = start.isBefore(from) ? from : start;
+                    LocalDate last = granularity.next(start).minusDays(1);
+                    last = last.isAfter(to) ? to : last;
+                    long expected = type == null
+                            ? analytics.getNetBalance(first, last)
+                            : analytics.getTotalExpense(first, last);
+                    assertEquals(expected, series.sum(bucket), granularity + " " + start);
+                }
+                assertTrue(granularity.next(series.bucketStart(series.size() - 1)).isAfter(to));
+            }
+        }
+        assertEquals(LocalDate.of(2024, 12, 9), Granularity.WEEK.bucketStart(from));
+        assertEquals(14, Granularity.WEEK.bucketCount(from, to));
+        assertEquals(0, analytics.getSeries(to, from, Granularity.DAY, null, 1).size());
+    }
+}
@@ -4,7 +4,6 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.tigerbank.domain.Category;
@@ -12,7 +11,11 @@ import ru.tigerbank.domain.Operation;
 import ru.tigerbank.domain.OperationType;
 import ru.tigerbank.repository.CategoryRepository;
 import ru.tigerbank.repository.OperationRepository;
+import ru.tigerbank.repository.ParallelScan;
+import ru.tigerbank.service.analytics.AccountPeriodTotals;
 import ru.tigerbank.service.analytics.AnalyticsServiceImpl;
+import ru.tigerbank.service.analytics.CategoryRollup;
+import ru.tigerbank.service.analytics.OperationSketches;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -22,7 +25,6 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class AnalyticsServiceImplTest {
@@ -33,7 +35,8 @@ class AnalyticsServiceImplTest {
     @Mock
     private CategoryRepository categoryRepository;
 
-    @InjectMocks
+    private AccountPeriodTotals periodTotals;
+
     private AnalyticsServiceImpl analyticsService;
 
     private final Integer accountId = 1001;
@@ -45,7 +48,10 @@ class AnalyticsServiceImplTest {
 
     @BeforeEach
     void setUp() {
-
+        periodTotals = new AccountPeriodTotals(operationRepository);
+        analyticsService = new AnalyticsServiceImpl(operationRepository, categoryRepository,
+                periodTotals, new CategoryRollup(operationRepository, ParallelScan.sequential()),
+                new OperationSketches(operationRepository), ParallelScan.sequential());
     }
 
     @Test
@@ -58,9 +64,9 @@ class AnalyticsServiceImplTest {
                 createOp(4, accountId, 1, 890,   OperationType.EXPENSE, LocalDate.of(2025, 3, 20))
         );
 
-        when(operationRepository.findByBankAccountId(accountId)).thenReturn(operations);
+        operations.forEach(op -> periodTotals.onSaved(null, op));
 
-        double net = analyticsService.getNetBalanceByAccount(accountId, from, to);
+        long net = analyticsService.getNetBalanceByAccount(accountId, from, to);
 
         assertEquals(15000 + 48000 - 3200 - 890, net);
     }
@@ -68,18 +74,16 @@ class AnalyticsServiceImplTest {
     @Test
     @DisplayName("getNetBalanceByAccount должен возвращать 0 если нет операций в периоде")
     void shouldReturnZeroWhenNoOperationsInPeriod() {
-        when(operationRepository.findByBankAccountId(accountId))
-                .thenReturn(List.of(
-                        createOp(5, accountId, 1, 1000, OperationType.EXPENSE, LocalDate.of(2024, 12, 30))
-                ));
+        periodTotals.onSaved(null,
+                createOp(5, accountId, 1, 1000, OperationType.EXPENSE, LocalDate.of(2024, 12, 30)));
 
-        double net = analyticsService.getNetBalanceByAccount(accountId, from, to);
+        long net = analyticsService.getNetBalanceByAccount(accountId, from, to);
 
         assertEquals(0, net);
     }
 
     private Operation createOp(Integer id, Integer accountId, Integer categoryId,
-                               double amount, OperationType type, LocalDate date) {
+                               long amount, OperationType type, LocalDate date) {
         return new Operation(id, type, accountId, categoryId, amount, date, "");
     }
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.ParallelScan;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.inmemory.InMemoryCategoryRepository;
+import ru.tigerbank.repository.inmemory.InMemoryOperationRepository;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.snapshot.VersionLog;
+import ru.tigerbank.service.analytics.AccountPeriodTotals;
+import ru.tigerbank.service.analytics.AnalyticsServiceImpl;
+import ru.tigerbank.service.analytics.CachingAnalyticsService;
+import ru.tigerbank.service.analytics.CategoryRollup;
+import ru.tigerbank.service.analytics.OperationSketches;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CachingAnalyticsServiceTest {
+
+    private final LocalDate january = LocalDate.of(2025, 1, 1);
+    private final LocalDate endOfJanuary = LocalDate.of(2025, 1, 31);
+
+    @Test
+    @DisplayName("Кэш должен сбрасывать только результаты за период, который задела запись")
+    void shouldInvalidateByTouchedDates() {
+        VersionLog versions = new VersionLog();
+        InMemoryOperationRepository operations =
+                new InMemoryOperationRepository(Journal.disabled(), versions, new StringDictionary());
+        InMemoryCategoryRepository categories = new InMemoryCategoryRepository(Journal.disabled(), versions, new StringDictionary());
+        categories.save(new Category(1, OperationType.EXPENSE, "Еда"));
+        AnalyticsServiceImpl analytics = new AnalyticsServiceImpl(operations, categories,
+                new AccountPeriodTotals(operations), new CategoryRollup(operations, ParallelScan.sequential()),
+                new OperationSketches(operations), ParallelScan.sequential());
+        CachingAnalyticsService cache = new CachingAnalyticsService(analytics, operations, categories, 2);
+
+        operations.save(new Operation(null, OperationType.EXPENSE, 1, 1, 500, january.plusDays(3), null));
+        assertEquals(500, cache.getTotalExpense(january, endOfJanuary));
+        assertEquals(500, cache.getTotalExpense(january, endOfJanuary));
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(1, cache.getStats().misses());
+
+        // Запись за февраль январский результат не трогает
+        operations.save(new Operation(null, OperationType.EXPENSE, 1, 1, 700, january.plusMonths(1), null));
+        assertEquals(500, cache.getTotalExpense(january, endOfJanuary));
+        assertEquals(2, cache.getStats().hits());
+
+        Operation changed = operations.save(new Operation(null, OperationType.EXPENSE, 1, 1, 300, endOfJanuary, null));
+        assertEquals(800, cache.getTotalExpense(january, endOfJanuary));
+        assertEquals(1, cache.getStats().invalidations());
+
+        // Переименование категории сбрасывает результаты с названиями
+        assertEquals(Map.of("Еда", 800L), cache.getExpenseByCategory(january, endOfJanuary));
+        categories.save(new Category(1, OperationType.EXPENSE, "Продукты"));
+        assertEquals(Map.of("Продукты", 800L), cache.getExpenseByCategory(january, endOfJanuary));
+
+        // Удаление возвращает прежнюю сумму, третий ключ вытесняет самый старый
+        operations.deleteById(changed.getId());
+        assertEquals(500, cache.getTotalExpense(january, endOfJanuary));
+        assertEquals(1200, cache.getTotalExpense(january, january.plusMonths(1)));
+        assertEquals(-500, cache.getNetBalance(january, endOfJanuary));
+        assertEquals(1, cache.getStats().evictions());
+        assertEquals(2, cache.getStats().size());
+    }
+
+    @Test
+    @DisplayName("Оценки по скетчам должны идти мимо кэша и сразу учитывать записи")
+    void shouldPassApproximateQueriesThrough() {
+        VersionLog versions = new VersionLog();
+        InMemoryOperationRepository operations =
+                new InMemoryOperationRepository(Journal.disabled(), versions, new StringDictionary());
+        InMemoryCategoryRepository categories =
+                new InMemoryCategoryRepository(Journal.disabled(), versions, new StringDictionary());
+        AnalyticsServiceImpl analytics = new AnalyticsServiceImpl(operations, categories,
+                new AccountPeriodTotals(operations), new CategoryRollup(operations, ParallelScan.sequential()),
+                new OperationSketches(operations), ParallelScan.sequential());
+        CachingAnalyticsService cache = new CachingAnalyticsService(analytics, operations, categories, 2);
+
+        operations.save(new Operation(null, OperationType.EXPENSE, 1, 1, 500, january, "Кофе"));
+        assertEquals(1, cache.getOperationCount(OperationType.EXPENSE, null, null));
+        assertEquals(500, cache.getAmountQuantile(OperationType.EXPENSE, 1, null, 0.5), 5);
+
+        operations.save(new Operation(null, OperationType.EXPENSE, 1, 1, 700, january, "кофе"));
+        assertEquals(2, cache.getOperationCount(OperationType.EXPENSE, null, null));
+        assertEquals(1, cache.getDistinctDescriptions(1));
+        assertEquals(Map.of("кофе", 2L), Map.copyOf(cache.getFrequentDescriptions(1)));
+        assertEquals(0, cache.getStats().size());
+    }
+}
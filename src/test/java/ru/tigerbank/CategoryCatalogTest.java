@@ -0,0 +1,78 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.CategoryCatalog;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.inmemory.InMemoryCategoryRepository;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.snapshot.VersionLog;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CategoryCatalogTest {
+
+    @Test
+    @DisplayName("Снимок категорий должен пересобираться при изменениях и не меняться у читателя")
+    void shouldRebuildCatalogOnChanges() {
+        InMemoryCategoryRepository repository = new InMemoryCategoryRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+        repository.saveAll(List.of(
+                new Category(null, OperationType.INCOME, "Зарплата"),
+                new Category(null, OperationType.EXPENSE, "Кафе"),
+                new Category(null, OperationType.EXPENSE, "Транспорт")));
+        CategoryCatalog before = repository.catalog();
+
+        repository.save(new Category(2, OperationType.EXPENSE, "Рестораны"));
+        repository.deleteById(3);
+        // Импорт с большим ID: индекс строится по карте, а не по массиву
+        repository.save(new Category(1_000_000, OperationType.EXPENSE, "Прочее"));
+
+        assertEquals(3, before.size());
+        assertEquals("Кафе", before.get(2).getName());
+
+        CategoryCatalog after = repository.catalog();
+        assertEquals(3, after.size());
+        assertEquals("Рестораны", after.get(2).getName());
+        assertNull(after.get(3));
+        assertSame(after.at(after.indexOf(1_000_000)), repository.findById(1_000_000).orElseThrow());
+        assertEquals(List.of("Рестораны", "Прочее"),
+                repository.findByType(OperationType.EXPENSE).stream().map(Category::getName).toList());
+        assertTrue(repository.existsById(1) && !repository.existsById(3));
+    }
+
+    @Test
+    @DisplayName("Точечные изменения снимка должны совпадать с полной пересборкой")
+    void shouldMatchFullRebuild() {
+        List<Category> source = List.of(
+                new Category(5, OperationType.EXPENSE, "Кафе"),
+                new Category(-3, OperationType.INCOME, "Старый импорт"),
+                new Category(1, OperationType.INCOME, "Зарплата"));
+        CategoryCatalog catalog = CategoryCatalog.of(source)
+                .withSaved(new Category(3, OperationType.EXPENSE, "Транспорт"))
+                .withSaved(new Category(5, OperationType.EXPENSE, "Рестораны"))
+                .without(1)
+                .without(42);
+        CategoryCatalog rebuilt = CategoryCatalog.of(List.of(
+                new Category(-3, OperationType.INCOME, "Старый импорт"),
+                new Category(3, OperationType.EXPENSE, "Транспорт"),
+                new Category(5, OperationType.EXPENSE, "Рестораны")));
+
+        assertEquals(rebuilt.all().stream().map(Category::getId).toList(),
+                catalog.all().stream().map(Category::getId).toList());
+        assertEquals("Рестораны", catalog.get(5).getName());
+        // Отрицательный ID не ломает индекс по массиву
+        assertEquals("Старый импорт", catalog.get(-3).getName());
+        assertNull(catalog.get(-1));
+        assertNull(catalog.get(1));
+        assertEquals(List.of("Транспорт", "Рестораны"),
+                catalog.byType(OperationType.EXPENSE).stream().map(Category::getName).toList());
+        assertEquals(0, catalog.without(-3).without(3).without(5).size());
+    }
+}
@@ -0,0 +1,72 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.ParallelScan;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.inmemory.InMemoryOperationRepository;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.snapshot.VersionLog;
+import ru.tigerbank.service.analytics.CategoryRollup;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CategoryRollupTest {
+
+    @Test
+    @DisplayName("Суммы по категориям из куба должны совпадать с полным перебором")
+    void shouldMatchFullScan() {
+        InMemoryOperationRepository repository = new InMemoryOperationRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+        CategoryRollup rollup = new CategoryRollup(repository, ParallelScan.sequential());
+        Random random = new Random(7);
+        LocalDate base = LocalDate.of(2023, 1, 1);
+
+        for (int i = 0; i < 3000; i++) {
+            OperationType type = random.nextBoolean() ? OperationType.INCOME : OperationType.EXPENSE;
+            repository.save(new Operation(null, type, 1 + random.nextInt(3), 1 + random.nextInt(5),
+                    1 + random.nextInt(500), base.plusDays(random.nextInt(1000)), null));
+        }
+        // Удаления и смена категории должны уходить из куба
+        for (int i = 0; i < 300; i++) {
+            repository.deleteById(1 + random.nextInt(3000));
+        }
+        for (int i = 0; i < 300; i++) {
+            repository.findById(1 + random.nextInt(3000)).ifPresent(op -> repository.save(new Operation(
+                    op.getId(), op.getType(), op.getBankAccountId(), 1 + random.nextInt(5),
+                    op.getAmount(), op.getDate(), op.getDescription())));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            OperationType type = random.nextBoolean() ? OperationType.INCOME : OperationType.EXPENSE;
+            Integer accountId = random.nextBoolean() ? null : 1 + random.nextInt(3);
+            LocalDate from = base.plusDays(random.nextInt(1000) - 30);
+            // Часть периодов выровнена по месяцам
+            if (random.nextBoolean()) {
+                from = from.withDayOfMonth(1);
+            }
+            LocalDate to = from.plusDays(random.nextInt(500));
+
+            Map<Integer, Long> expected = new HashMap<>();
+            for (Operation op : repository.findAll()) {
+                if (op.getType() == type
+                        && (accountId == null || op.getBankAccountId().equals(accountId))
+                        && !op.getDate().isBefore(from) && !op.getDate().isAfter(to)) {
+                    expected.merge(op.getCategoryId(), op.getAmount(), Long::sum);
+                }
+            }
+
+            Map<Integer, Long> actual = rollup.sumByCategory(type, from, to, accountId);
+            assertEquals(expected.keySet(), actual.keySet());
+            for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+                assertEquals(entry.getValue(), actual.get(entry.getKey()));
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.tigerbank;
+
+import ru.tigerbank.repository.OperationRepository;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.columnar.ColumnarOperationRepository;
+import ru.tigerbank.repository.snapshot.VersionLog;
+
+class ColumnarOperationRepositoryTest extends OperationRepositoryContractTest {
+
+    @Override
+    protected OperationRepository createRepository() {
+        return new ColumnarOperationRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+    }
+}
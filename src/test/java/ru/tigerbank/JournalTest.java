@@ -0,0 +1,274 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.checkpoint.CheckpointManager;
+import ru.tigerbank.repository.checkpoint.RestoreResult;
+import ru.tigerbank.repository.inmemory.InMemoryBankAccountRepository;
+import ru.tigerbank.repository.inmemory.InMemoryCategoryRepository;
+import ru.tigerbank.repository.inmemory.InMemoryOperationRepository;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.journal.JournalReplayer;
+import ru.tigerbank.repository.snapshot.SnapshotManager;
+import ru.tigerbank.repository.snapshot.VersionLog;
+import ru.tigerbank.service.analytics.AccountPeriodTotals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalTest {
+
+    private Path directory;
+    private Path path;
+    private Path checkpointPath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("tigerbank-journal");
+        path = directory.resolve("journal.bin");
+        checkpointPath = directory.resolve("checkpoint.bin");
+        System.setProperty(CheckpointManager.PATH_PROPERTY, checkpointPath.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        System.clearProperty(CheckpointManager.PATH_PROPERTY);
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(checkpointPath);
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    @DisplayName("После перезапуска состояние репозиториев должно восстанавливаться из журнала")
+    void shouldRestoreRepositoriesFromJournal() {
+        try (Journal journal = new Journal(path)) {
+            Repositories repositories = new Repositories(journal);
+            BankAccount account = repositories.accounts.save(new BankAccount(null, "Основной"));
+            repositories.accounts.save(new BankAccount(null, "Удаляемый"));
+            repositories.accounts.deleteById(2);
+            Category food = repositories.categories.save(new Category(null, OperationType.EXPENSE, "Еда"));
+            repositories.operations.save(new Operation(null, OperationType.EXPENSE, account.getId(), food.getId(),
+                    25050, LocalDate.of(2025, 1, 10), "Кофе"));
+            repositories.operations.save(new Operation(null, OperationType.EXPENSE, account.getId(), food.getId(),
+                    100, LocalDate.of(2025, 1, 11), null));
+            repositories.operations.deleteById(2);
+        }
+
+        try (Journal journal = new Journal(path)) {
+            Repositories restored = new Repositories(journal);
+            new JournalReplayer(restored.accounts, restored.categories, restored.operations).replay(journal, 0);
+
+            assertEquals(1, restored.accounts.findAll().size());
+            assertEquals("Основной", restored.accounts.findById(1).orElseThrow().getName());
+            assertEquals("Еда", restored.categories.findById(1).orElseThrow().getName());
+            assertEquals(1, restored.operations.findAll().size());
+            Operation operation = restored.operations.findById(1).orElseThrow();
+            assertEquals(25050, operation.getAmount());
+            assertEquals("Кофе", operation.getDescription());
+            assertEquals(LocalDate.of(2025, 1, 10), operation.getDate());
+
+            // Новые ID продолжают последовательность, а не начинаются заново
+            assertEquals(3, restored.operations.save(new Operation(null, OperationType.EXPENSE, 1, 1,
+                    1, LocalDate.of(2025, 1, 12), null)).getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Состояние должно восстанавливаться из контрольной точки и хвоста журнала")
+    void shouldRestoreFromCheckpointAndJournalTail() {
+        try (Journal journal = new Journal(path)) {
+            Repositories repositories = new Repositories(journal);
+            CheckpointManager checkpoints = repositories.checkpointManager(journal);
+            repositories.accounts.save(new BankAccount(null, "Основной"));
+            repositories.categories.save(new Category(null, OperationType.INCOME, "Зарплата"));
+            repositories.operations.save(new Operation(null, OperationType.INCOME, 1, 1,
+                    1000, LocalDate.of(2025, 2, 1), "Аванс"));
+            checkpoints.checkpoint();
+            // Изменения после контрольной точки есть только в журнале
+            repositories.operations.deleteById(1);
+            repositories.operations.save(new Operation(null, OperationType.INCOME, 1, 1,
+                    2000, LocalDate.of(2025, 2, 15), null));
+        }
+
+        try (Journal journal = new Journal(path)) {
+            Repositories restored = new Repositories(journal);
+            CheckpointManager checkpoints = restored.checkpointManager(journal);
+
+            // Одна операция из контрольной точки, удаление и сохранение — из журнала
+            assertEquals(new RestoreResult(1, 2), checkpoints.getRestoreResult());
+            assertEquals("Основной", restored.accounts.findById(1).orElseThrow().getName());
+            assertEquals("Зарплата", restored.categories.findById(1).orElseThrow().getName());
+            assertEquals(1, restored.operations.findAll().size());
+            assertEquals(2000, restored.operations.findById(2).orElseThrow().getAmount());
+
+            // Контрольная точка при остановке очищает журнал
+            checkpoints.close();
+        }
+
+        try (Journal journal = new Journal(path)) {
+            assertEquals(0, journal.replay(0, record -> { }));
+            Repositories restored = new Repositories(journal);
+            // Подписчик до восстановления получает операции контрольной точки одним пакетом
+            AccountPeriodTotals totals = new AccountPeriodTotals(restored.operations);
+            assertEquals(new RestoreResult(1, 0), restored.checkpointManager(journal).getRestoreResult());
+            assertEquals(1, restored.operations.findAll().size());
+            assertEquals(2000, totals.getIncome(1, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)));
+        }
+    }
+
+    @Test
+    @DisplayName("Недописанная последняя запись должна отбрасываться при воспроизведении")
+    void shouldDropTornTail() throws IOException {
+        try (Journal journal = new Journal(path)) {
+            Repositories repositories = new Repositories(journal);
+            repositories.accounts.save(new BankAccount(null, "Первый"));
+            repositories.accounts.save(new BankAccount(null, "Второй"));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (Journal journal = new Journal(path)) {
+            List<Integer> ids = new ArrayList<>();
+            assertEquals(1, journal.replay(0, record -> ids.add(record.getId())));
+            assertEquals(List.of(1), ids);
+        }
+    }
+
+    @Test
+    @DisplayName("Описание длиннее 65 535 байт должно записываться в журнал и восстанавливаться")
+    void shouldRestoreLongDescription() {
+        String description = "Чек ".repeat(20_000);
+        try (Journal journal = new Journal(path)) {
+            Repositories repositories = new Repositories(journal);
+            repositories.operations.save(new Operation(null, OperationType.EXPENSE, 1, 1,
+                    100, LocalDate.of(2025, 1, 10), description));
+        }
+
+        try (Journal journal = new Journal(path)) {
+            Repositories restored = new Repositories(journal);
+            new JournalReplayer(restored.accounts, restored.categories, restored.operations).replay(journal, 0);
+
+            assertEquals(description, restored.operations.findById(1).orElseThrow().getDescription());
+        }
+    }
+
+    @Test
+    @DisplayName("Параллельные записи должны попадать в журнал без потерь")
+    void shouldKeepAllConcurrentWrites() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        try (Journal journal = new Journal(path)) {
+            InMemoryOperationRepository operations = new InMemoryOperationRepository(journal, new VersionLog(), new StringDictionary());
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread worker = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        operations.save(new Operation(null, OperationType.INCOME, 1, 1,
+                                10, LocalDate.of(2025, 1, 1), null));
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+
+        try (Journal journal = new Journal(path)) {
+            InMemoryOperationRepository restored = new InMemoryOperationRepository(journal, new VersionLog(), new StringDictionary());
+            assertEquals(threads * perThread, journal.replay(0, record -> restored.save(record.getOperation())));
+            assertEquals(threads * perThread, restored.findAll().size());
+            assertTrue(restored.existsByBankAccountId(1));
+        }
+    }
+
+    @Test
+    @DisplayName("Запись без журнала в одном потоке не должна терять записи других потоков")
+    void shouldSuspendLoggingOnlyForCallingThread() throws Exception {
+        try (Journal journal = new Journal(path)) {
+            InMemoryBankAccountRepository accounts = new InMemoryBankAccountRepository(journal, new VersionLog(), new StringDictionary());
+            Thread writer = new Thread(() -> accounts.save(new BankAccount(null, "Из другого потока")));
+            journal.runWithoutLogging(() -> {
+                accounts.save(new BankAccount(null, "Без журнала"));
+                writer.start();
+                try {
+                    writer.join();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        try (Journal journal = new Journal(path)) {
+            InMemoryBankAccountRepository restored = new InMemoryBankAccountRepository(journal, new VersionLog(), new StringDictionary());
+            assertEquals(1, journal.replay(0, record -> restored.save(record.getAccount())));
+            assertEquals("Из другого потока", restored.findById(2).orElseThrow().getName());
+        }
+    }
+
+    @Test
+    @DisplayName("После сбоя fsync изменение остается видимым, а журнал отклоняет следующие записи")
+    void shouldRejectWritesAfterFsyncFailure() {
+        Journal journal = new Journal(path);
+        Repositories repositories = new Repositories(journal);
+        repositories.accounts.save(new BankAccount(null, "Сохранен"));
+
+        // Прерванный поток закрывает канал при записи: fsync завершается ошибкой
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(UncheckedIOException.class,
+                    () -> repositories.accounts.save(new BankAccount(null, "Не на диске")));
+        } finally {
+            Thread.interrupted();
+        }
+        assertTrue(repositories.accounts.findById(2).isPresent());
+        assertThrows(UncheckedIOException.class,
+                () -> repositories.accounts.save(new BankAccount(null, "Отклонен")));
+        journal.close();
+
+        try (Journal reopened = new Journal(path)) {
+            Repositories restored = new Repositories(reopened);
+            new JournalReplayer(restored.accounts, restored.categories, restored.operations).replay(reopened, 0);
+            assertEquals(1, restored.accounts.findAll().size());
+        }
+    }
+
+    private static class Repositories {
+        final InMemoryBankAccountRepository accounts;
+        final InMemoryCategoryRepository categories;
+        final InMemoryOperationRepository operations;
+        final VersionLog versions = new VersionLog();
+        final StringDictionary dictionary = new StringDictionary();
+
+        Repositories(Journal journal) {
+            accounts = new InMemoryBankAccountRepository(journal, versions, dictionary);
+            categories = new InMemoryCategoryRepository(journal, versions, dictionary);
+            operations = new InMemoryOperationRepository(journal, versions, dictionary);
+        }
+
+        CheckpointManager checkpointManager(Journal journal) {
+            return new CheckpointManager(journal, new JournalReplayer(accounts, categories, operations),
+                    accounts, categories, operations, new SnapshotManager(versions, accounts, categories, operations));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.domain.Money;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    @Test
+    @DisplayName("Суммы должны разбираться в копейки и форматироваться обратно без потерь")
+    void shouldParseAndFormat() {
+        assertEquals(125050, Money.parse("1250.50"));
+        assertEquals(125050, Money.parse("1250,5"));
+        assertEquals(-5, Money.parse("-0.05"));
+        assertEquals(70, Money.parse(".7"));
+        assertEquals(300, Money.parse("3"));
+
+        assertEquals("1250.50", Money.format(125050));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("0.00", Money.format(0));
+        assertEquals(Long.MAX_VALUE, Money.parse(Money.format(Long.MAX_VALUE)));
+
+        // Сумма в копейках точная: 0.1 + 0.2 == 0.3
+        assertEquals(Money.parse("0.3"), Money.parse("0.1") + Money.parse("0.2"));
+    }
+
+    @Test
+    @DisplayName("Некорректные суммы должны отклоняться")
+    void shouldRejectInvalidAmounts() {
+        assertThrows(IllegalArgumentException.class, () -> Money.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("-"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("1.005"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("12a"));
+        assertThrows(ArithmeticException.class, () -> Money.parse("99999999999999999999"));
+    }
+}
@@ -0,0 +1,42 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.OperationRepository;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.offheap.OffHeapOperationRepository;
+import ru.tigerbank.repository.snapshot.VersionLog;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OffHeapOperationRepositoryTest extends OperationRepositoryContractTest {
+
+    @Override
+    protected OperationRepository createRepository() {
+        return new OffHeapOperationRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+    }
+
+    @Test
+    @DisplayName("close должен освобождать блоки и закрывать хранилище")
+    void shouldReleaseMemoryOnClose() {
+        StringDictionary dictionary = new StringDictionary(true);
+        OffHeapOperationRepository offHeap = new OffHeapOperationRepository(Journal.disabled(), new VersionLog(), dictionary);
+        for (int i = 0; i < 70_000; i++) {
+            offHeap.save(createOp(null, 1, 1, 1 + i, OperationType.EXPENSE, LocalDate.of(2025, 1, 1)));
+        }
+
+        offHeap.close();
+        offHeap.close();
+
+        assertThrows(IllegalStateException.class, offHeap::findAll);
+        assertThrows(IllegalStateException.class,
+                () -> offHeap.save(createOp(null, 1, 1, 1, OperationType.EXPENSE, LocalDate.of(2025, 1, 1))));
+        // Описания записей освобождены в общем словаре
+        assertEquals(1, dictionary.evictUnused());
+    }
+}
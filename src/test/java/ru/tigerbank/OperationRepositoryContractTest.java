@@ -0,0 +1,480 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.OperationListener;
+import ru.tigerbank.repository.OperationQuery;
+import ru.tigerbank.repository.OperationRepository;
+import ru.tigerbank.repository.ParallelScan;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Общий контракт для всех реализаций OperationRepository
+abstract class OperationRepositoryContractTest {
+
+    protected OperationRepository repository;
+
+    protected abstract OperationRepository createRepository();
+
+    @BeforeEach
+    void setUp() {
+        repository = createRepository();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (repository instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    @DisplayName("save без ID должен выдавать последовательные ID")
+    void shouldGenerateIdsForNewOperations() {
+        Operation first = repository.save(createOp(null, 1, 1, 100, OperationType.INCOME, LocalDate.of(2025, 1, 1)));
+        Operation second = repository.save(createOp(null, 1, 1, 200, OperationType.INCOME, LocalDate.of(2025, 1, 2)));
+
+        assertNotNull(first.getId());
+        assertEquals(first.getId() + 1, second.getId());
+        assertEquals(2, repository.findAll().size());
+    }
+
+    @Test
+    @DisplayName("save с заданным ID должен заменять операцию и сдвигать генератор")
+    void shouldReplaceOperationWithSameId() {
+        repository.save(createOp(10, 1, 1, 100, OperationType.EXPENSE, LocalDate.of(2025, 1, 1)));
+        repository.save(createOp(10, 2, 3, 250, OperationType.EXPENSE, LocalDate.of(2025, 2, 1)));
+
+        Operation stored = repository.findById(10).orElseThrow();
+        assertEquals(2, stored.getBankAccountId());
+        assertEquals(3, stored.getCategoryId());
+        assertEquals(250, stored.getAmount());
+        assertEquals(1, repository.findAll().size());
+        assertFalse(repository.existsByBankAccountId(1));
+        assertTrue(repository.findByCategoryId(1).isEmpty());
+
+        Operation next = repository.save(createOp(null, 1, 1, 1, OperationType.INCOME, LocalDate.of(2025, 1, 1)));
+        assertEquals(11, next.getId());
+    }
+
+    @Test
+    @DisplayName("Поиск по счету, категории и типу должен возвращать только подходящие операции")
+    void shouldFindByAccountCategoryAndType() {
+        repository.save(createOp(1, 1, 1, 100, OperationType.INCOME, LocalDate.of(2025, 1, 1)));
+        repository.save(createOp(2, 1, 2, 50, OperationType.EXPENSE, LocalDate.of(2025, 1, 2)));
+        repository.save(createOp(3, 2, 2, 70, OperationType.EXPENSE, LocalDate.of(2025, 1, 3)));
+
+        assertEquals(2, repository.findByBankAccountId(1).size());
+        assertEquals(1, repository.findByBankAccountId(2).size());
+        assertTrue(repository.findByBankAccountId(3).isEmpty());
+        assertEquals(2, repository.findByCategoryId(2).size());
+        assertEquals(1, repository.findByType(OperationType.INCOME).size());
+        assertEquals(2, repository.findByType(OperationType.EXPENSE).size());
+        assertTrue(repository.existsByBankAccountId(2));
+        assertTrue(repository.existsByCategoryId(1));
+        assertFalse(repository.existsByCategoryId(5));
+    }
+
+    @Test
+    @DisplayName("findByDateBetween должен учитывать границы и возвращать операции по порядку дат")
+    void shouldFindByDateRangeInChronologicalOrder() {
+        repository.save(createOp(1, 1, 1, 10, OperationType.INCOME, LocalDate.of(2025, 3, 31)));
+        repository.save(createOp(2, 1, 1, 20, OperationType.INCOME, LocalDate.of(2025, 1, 1)));
+        repository.save(createOp(3, 1, 1, 30, OperationType.INCOME, LocalDate.of(2024, 12, 31)));
+        repository.save(createOp(4, 1, 1, 40, OperationType.INCOME, LocalDate.of(2025, 2, 15)));
+
+        List<Operation> found = repository.findByDateBetween(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31));
+
+        assertEquals(List.of(2, 4, 1), found.stream().map(Operation::getId).toList());
+        assertTrue(repository.findByDateBetween(LocalDate.of(2025, 4, 1), LocalDate.of(2025, 3, 1)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Удаление по ID и по счету должно убирать операции из всех выборок")
+    void shouldDeleteByIdAndByAccount() {
+        for (int id = 1; id <= 6; id++) {
+            repository.save(createOp(id, id % 2 == 0 ? 1 : 2, 1, id, OperationType.EXPENSE, LocalDate.of(2025, 1, id)));
+        }
+
+        repository.deleteById(3);
+        repository.deleteById(100);
+        assertTrue(repository.findById(3).isEmpty());
+        assertEquals(5, repository.findAll().size());
+
+        repository.deleteByBankAccountId(1);
+        assertFalse(repository.existsByBankAccountId(1));
+        assertEquals(List.of(1, 5), repository.findByBankAccountId(2).stream().map(Operation::getId).sorted().toList());
+        assertEquals(2, repository.findByDateBetween(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31)).size());
+        assertEquals(5, repository.findById(5).orElseThrow().getAmount());
+    }
+
+    @Test
+    @DisplayName("Описание операции должно сохраняться, включая null")
+    void shouldKeepDescriptions() {
+        repository.save(new Operation(1, OperationType.INCOME, 1, 1, 10, LocalDate.of(2025, 1, 1), "Зарплата"));
+        repository.save(new Operation(2, OperationType.INCOME, 1, 1, 10, LocalDate.of(2025, 1, 1), null));
+
+        assertEquals("Зарплата", repository.findById(1).orElseThrow().getDescription());
+        assertNull(repository.findById(2).orElseThrow().getDescription());
+    }
+
+    @Test
+    @DisplayName("saveAll должен выдавать ID блоком после заданных ID и сохранять порядок")
+    void shouldSaveAllInOrder() {
+        repository.save(createOp(null, 1, 1, 10, OperationType.INCOME, LocalDate.of(2025, 1, 1)));
+
+        List<Operation> saved = repository.saveAll(List.of(
+                createOp(null, 1, 1, 20, OperationType.INCOME, LocalDate.of(2025, 1, 2)),
+                createOp(5, 2, 1, 30, OperationType.EXPENSE, LocalDate.of(2025, 1, 3)),
+                createOp(null, 2, 2, 40, OperationType.EXPENSE, LocalDate.of(2025, 1, 4))
+        ));
+
+        assertEquals(List.of(6, 5, 7), saved.stream().map(Operation::getId).toList());
+        assertEquals(4, repository.findAll().size());
+        assertEquals(40, repository.findById(7).orElseThrow().getAmount());
+        assertEquals(8, repository.save(createOp(null, 1, 1, 50, OperationType.INCOME, LocalDate.of(2025, 1, 5))).getId());
+    }
+
+    @Test
+    @DisplayName("deleteAll должен очищать хранилище и индексы")
+    void shouldDeleteAll() {
+        repository.save(createOp(null, 1, 1, 10, OperationType.INCOME, LocalDate.of(2025, 1, 1)));
+        repository.save(createOp(null, 2, 3, 20, OperationType.EXPENSE, LocalDate.of(2025, 1, 2)));
+
+        repository.deleteAll();
+
+        assertTrue(repository.findAll().isEmpty());
+        assertFalse(repository.existsByBankAccountId(1));
+        assertFalse(repository.existsByCategoryId(3));
+        assertTrue(repository.findByType(OperationType.EXPENSE).isEmpty());
+        assertTrue(repository.findByDateBetween(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31)).isEmpty());
+
+        // Хранилище остается рабочим, ID не переиспользуются
+        assertEquals(3, repository.save(createOp(null, 1, 1, 30, OperationType.INCOME, LocalDate.of(2025, 1, 3))).getId());
+        assertEquals(1, repository.findByBankAccountId(1).size());
+    }
+
+    @Test
+    @DisplayName("Удаление во время постраничного обхода не должно терять оставшиеся операции")
+    void shouldNotLoseOperationsDeletedDuringPaging() {
+        List<Operation> operations = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            operations.add(createOp(null, 1 + i % 3, 1, 1 + i, OperationType.EXPENSE, LocalDate.of(2025, 1, 1)));
+        }
+        repository.saveAll(operations);
+
+        List<Integer> seen = new ArrayList<>();
+        List<Operation> page = repository.findPage(null, 1, OperationQuery.all());
+        page.forEach(op -> seen.add(op.getId()));
+        // Уже пройденные операции удаляются: на их места переезжают еще не прочитанные
+        for (int id = 1; id <= 100; id++) {
+            repository.deleteById(id);
+        }
+        while (!page.isEmpty()) {
+            page = repository.findPage(page.get(page.size() - 1).getId(), 500, OperationQuery.all());
+            page.forEach(op -> seen.add(op.getId()));
+        }
+
+        assertEquals(seen.size(), new HashSet<>(seen).size());
+        for (int id = 101; id <= 3000; id++) {
+            assertTrue(seen.contains(id), "Operation " + id + " was skipped");
+        }
+    }
+
+    @Test
+    @DisplayName("load должен добавлять пакет целиком и уведомлять подписчиков одним вызовом")
+    void shouldLoadBatch() {
+        repository.save(createOp(5, 1, 1, 100, OperationType.INCOME, LocalDate.of(2025, 1, 1)));
+        List<Integer> batchSizes = new ArrayList<>();
+        repository.addListener(new OperationListener() {
+            @Override
+            public void onSaved(Operation previous, Operation saved) {
+                batchSizes.add(-1);
+            }
+
+            @Override
+            public void onDeleted(Operation deleted) {
+            }
+
+            @Override
+            public void onLoaded(List<Operation> loaded) {
+                batchSizes.add(loaded.size());
+            }
+        });
+
+        repository.load(List.of(
+                createOp(7, 2, 1, 200, OperationType.EXPENSE, LocalDate.of(2025, 1, 2)),
+                createOp(6, 2, 2, 300, OperationType.EXPENSE, LocalDate.of(2025, 1, 3))));
+
+        assertEquals(List.of(1, 2), batchSizes);
+        assertEquals(3, repository.findAll().size());
+        assertEquals(2, repository.findByBankAccountId(2).size());
+        assertEquals(8, repository.save(createOp(null, 1, 1, 1, OperationType.INCOME, LocalDate.of(2025, 1, 4))).getId());
+        // Занятый ID отклоняет весь пакет
+        assertThrows(IllegalArgumentException.class, () -> repository.load(List.of(
+                createOp(9, 1, 1, 1, OperationType.INCOME, LocalDate.of(2025, 1, 5)),
+                createOp(5, 1, 1, 1, OperationType.INCOME, LocalDate.of(2025, 1, 5)))));
+        assertTrue(repository.findById(9).isEmpty());
+    }
+
+    @Test
+    @DisplayName("findPage должен листать операции по возрастанию ID с учетом запроса")
+    void shouldPageByKey() {
+        for (int i = 1; i <= 25; i++) {
+            repository.save(createOp(null, 1 + i % 2, 1, i, OperationType.INCOME, LocalDate.of(2025, 1, 1)));
+        }
+        repository.deleteById(4);
+
+        List<Integer> ids = new ArrayList<>();
+        Integer afterId = null;
+        List<Operation> page;
+        do {
+            page = repository.findPage(afterId, 5, OperationQuery.all().withAccount(1));
+            page.forEach(op -> ids.add(op.getId()));
+            afterId = page.isEmpty() ? afterId : page.get(page.size() - 1).getId();
+        } while (page.size() == 5);
+
+        assertEquals(List.of(2, 6, 8, 10, 12, 14, 16, 18, 20, 22, 24), ids);
+        assertEquals(List.of(24, 25), repository.findPage(23, 10, OperationQuery.all()).stream()
+                .map(Operation::getId).toList());
+        assertTrue(repository.findPage(Integer.MAX_VALUE, 10, OperationQuery.all()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Разреженные ID не должны раздувать индекс и замедлять листание")
+    void shouldHandleSparseIds() {
+        repository.save(createOp(1, 1, 1, 100, OperationType.INCOME, LocalDate.of(2025, 1, 1)));
+        repository.save(createOp(Integer.MAX_VALUE - 1, 1, 1, 200, OperationType.INCOME, LocalDate.of(2025, 1, 2)));
+
+        assertEquals(200, repository.findById(Integer.MAX_VALUE - 1).orElseThrow().getAmount());
+        assertEquals(List.of(1, Integer.MAX_VALUE - 1), repository.findPage(null, 10, OperationQuery.all()).stream()
+                .map(Operation::getId).toList());
+        assertEquals(List.of(Integer.MAX_VALUE - 1), repository.findPage(1, 10, OperationQuery.all()).stream()
+                .map(Operation::getId).toList());
+
+        repository.deleteById(1);
+        assertEquals(1, repository.findAll().size());
+        assertEquals(Integer.MAX_VALUE, repository.save(
+                createOp(null, 1, 1, 300, OperationType.EXPENSE, LocalDate.of(2025, 1, 3))).getId());
+    }
+
+    @Test
+    @DisplayName("Недопустимые операции должны отклоняться одинаково, не меняя хранилище")
+    void shouldRejectInvalidOperationsWithoutChanges() {
+        repository.save(createOp(1, 1, 1, 100, OperationType.INCOME, LocalDate.of(2025, 1, 1)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.save(createOp(null, 2, 2, 50, OperationType.INCOME, LocalDate.MAX)));
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.save(createOp(1, 2, 2, 50, OperationType.INCOME, LocalDate.MIN)));
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.save(createOp(-5, 2, 2, 50, OperationType.INCOME, LocalDate.of(2025, 1, 1))));
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.save(createOp(null, null, 2, 50, OperationType.INCOME, LocalDate.of(2025, 1, 1))));
+        assertThrows(IllegalArgumentException.class, () -> repository.saveAll(List.of(
+                createOp(null, 2, 2, 50, OperationType.INCOME, LocalDate.of(2025, 1, 2)),
+                createOp(null, 2, 2, 50, OperationType.INCOME, LocalDate.MAX))));
+        assertThrows(IllegalArgumentException.class, () -> repository.load(List.of(
+                createOp(-1, 2, 2, 50, OperationType.INCOME, LocalDate.of(2025, 1, 2)))));
+
+        // Старая версия операции 1 осталась на месте и во всех группах
+        assertEquals(1, repository.findAll().size());
+        assertEquals(100, repository.findById(1).orElseThrow().getAmount());
+        assertEquals(1, repository.findByBankAccountId(1).size());
+        assertEquals(1, repository.findByCategoryId(1).size());
+        assertFalse(repository.existsByBankAccountId(2));
+        assertEquals(2, repository.save(createOp(null, 1, 1, 1, OperationType.INCOME, LocalDate.of(2025, 1, 3))).getId());
+    }
+
+    @Test
+    @DisplayName("find по OperationQuery должен совпадать с полной фильтрацией при любом плане")
+    void shouldFindByQuery() {
+        List<Operation> all = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            OperationType type = i % 3 == 0 ? OperationType.EXPENSE : OperationType.INCOME;
+            String description = i % 5 == 0 ? null : "op " + (i % 7);
+            all.add(repository.save(new Operation(null, type, 1 + i % 4, 1 + i % 6, i + 1,
+                    LocalDate.of(2025, 1, 1).plusDays(i), description)));
+        }
+
+        List<OperationQuery> queries = List.of(
+                OperationQuery.all(),
+                OperationQuery.all().withAccount(2),
+                OperationQuery.all().withAccounts(List.of(1, 3)).withType(OperationType.EXPENSE),
+                OperationQuery.all().withCategory(5).withAmountRange(50, 150),
+                OperationQuery.all().withDateRange(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 10)),
+                OperationQuery.all().withAccount(1).withCategory(3)
+                        .withDateRange(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 6, 1)),
+                OperationQuery.all().withDescription(d -> d != null && d.endsWith("3")),
+                OperationQuery.all().withDescription(d -> d == null).withType(OperationType.INCOME),
+                OperationQuery.all().withAccount(99)
+        );
+        for (OperationQuery query : queries) {
+            List<Integer> expected = all.stream().filter(query::matches).map(Operation::getId).sorted().toList();
+            assertEquals(expected, repository.find(query).stream().map(Operation::getId).sorted().toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Суммы по запросу должны совпадать с суммированием найденных операций")
+    void shouldSumByQuery() {
+        List<Operation> all = new ArrayList<>();
+        for (int i = 0; i < 1003; i++) {
+            OperationType type = i % 3 == 0 ? OperationType.EXPENSE : OperationType.INCOME;
+            all.add(repository.save(new Operation(null, type, 1 + i % 4, 1 + i % 6, i * 37 % 1000 + 1,
+                    LocalDate.of(2025, 1, 1).plusDays(i % 400), "op " + i % 7)));
+        }
+        repository.deleteById(5);
+        all.removeIf(op -> op.getId() == 5);
+
+        List<OperationQuery> queries = List.of(
+                OperationQuery.all(),
+                OperationQuery.all().withAccount(2),
+                OperationQuery.all().withAccount(3).withType(OperationType.EXPENSE)
+                        .withDateRange(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 9, 30)),
+                OperationQuery.all().withType(OperationType.INCOME).withDateRange(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 10)),
+                OperationQuery.all().withAccounts(List.of(1, 3)),
+                OperationQuery.all().withAccount(1).withCategory(5),
+                OperationQuery.all().withAccount(4).withAmountRange(100, 500),
+                OperationQuery.all().withAccount(99)
+        );
+        // Порог в одну строку: части считаются на пуле даже на маленькой таблице
+        try (ParallelScan parallel = ParallelScan.parallel(4, 1)) {
+            for (OperationQuery query : queries) {
+                List<Operation> matching = all.stream().filter(query::matches).toList();
+                long amounts = matching.stream().mapToLong(Operation::getAmount).sum();
+                long net = matching.stream()
+                        .mapToLong(op -> op.getType() == OperationType.EXPENSE ? -op.getAmount() : op.getAmount())
+                        .sum();
+                assertEquals(amounts, repository.sumAmounts(query));
+                assertEquals(net, repository.sumNet(query));
+                assertEquals(amounts, repository.sumAmounts(query, parallel));
+                assertEquals(net, repository.sumNet(query, parallel));
+
+                Map<Integer, Long> byCategory = matching.stream()
+                        .collect(Collectors.groupingBy(Operation::getCategoryId, Collectors.summingLong(Operation::getAmount)));
+                assertEquals(byCategory, repository.<Map<Integer, Long>>reduce(query, HashMap::new,
+                        (sums, op) -> sums.merge(op.getCategoryId(), op.getAmount(), Long::sum),
+                        (left, right) -> {
+                            right.forEach((id, sum) -> left.merge(id, sum, Long::sum));
+                            return left;
+                        }, parallel));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Самые крупные операции должны совпадать с началом полной сортировки")
+    void shouldFindLargestOperations() {
+        List<Operation> all = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            OperationType type = i % 4 == 0 ? OperationType.INCOME : OperationType.EXPENSE;
+            all.add(repository.save(createOp(null, 1 + i % 3, 1, 1 + i * 7919 % 250, type,
+                    LocalDate.of(2025, 1, 1).plusDays(i % 90))));
+        }
+        OperationQuery query = OperationQuery.all().withType(OperationType.EXPENSE)
+                .withDateRange(LocalDate.of(2025, 1, 10), LocalDate.of(2025, 2, 20));
+        List<Integer> expected = all.stream().filter(query::matches)
+                .sorted(Comparator.comparingLong(Operation::getAmount).reversed().thenComparing(Operation::getId))
+                .limit(20)
+                .map(Operation::getId)
+                .toList();
+
+        try (ParallelScan parallel = ParallelScan.parallel(4, 1)) {
+            assertEquals(expected, repository.findLargest(query, 20, ParallelScan.sequential())
+                    .stream().map(Operation::getId).toList());
+            assertEquals(expected, repository.findLargest(query, 20, parallel)
+                    .stream().map(Operation::getId).toList());
+        }
+        assertTrue(repository.findLargest(query, 0, ParallelScan.sequential()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Группы по счетам и категориям должны оставаться верными после изменений и удалений")
+    void shouldKeepAccountAndCategoryGroups() {
+        for (int i = 0; i < 300; i++) {
+            repository.save(createOp(null, 1 + i % 7, 1 + i % 5, i + 1, OperationType.INCOME, LocalDate.of(2025, 1, 1)));
+        }
+        for (int id = 1; id <= 300; id += 4) {
+            repository.save(createOp(id, 8, 6, id, OperationType.EXPENSE, LocalDate.of(2025, 1, 2)));
+        }
+        for (int id = 2; id <= 300; id += 9) {
+            repository.deleteById(id);
+        }
+        repository.deleteByBankAccountId(3);
+        repository.deleteByBankAccountId(8);
+
+        List<Operation> all = repository.findAll();
+        for (int key = 1; key <= 8; key++) {
+            int accountId = key;
+            int categoryId = key;
+            List<Integer> byAccount = all.stream().filter(op -> op.getBankAccountId() == accountId)
+                    .map(Operation::getId).sorted().toList();
+            List<Integer> byCategory = all.stream().filter(op -> op.getCategoryId() == categoryId)
+                    .map(Operation::getId).sorted().toList();
+            assertEquals(byAccount, repository.findByBankAccountId(accountId).stream()
+                    .map(Operation::getId).sorted().toList());
+            assertEquals(byCategory, repository.findByCategoryId(categoryId).stream()
+                    .map(Operation::getId).sorted().toList());
+            assertEquals(!byAccount.isEmpty(), repository.existsByBankAccountId(accountId));
+            assertEquals(!byCategory.isEmpty(), repository.existsByCategoryId(categoryId));
+        }
+        assertFalse(repository.existsByCategoryId(6));
+    }
+
+    @Test
+    @DisplayName("Подписчик должен получать существующие операции и все изменения")
+    void shouldNotifyListeners() {
+        repository.save(createOp(1, 1, 1, 100, OperationType.INCOME, LocalDate.of(2025, 1, 1)));
+
+        List<String> events = new ArrayList<>();
+        repository.addListener(new OperationListener() {
+            @Override
+            public void onSaved(Operation previous, Operation saved) {
+                events.add("save " + (previous == null ? "-" : previous.getAmount()) + " -> " + saved.getAmount());
+            }
+
+            @Override
+            public void onDeleted(Operation deleted) {
+                events.add("delete " + deleted.getId());
+            }
+        });
+
+        repository.save(createOp(1, 1, 1, 150, OperationType.INCOME, LocalDate.of(2025, 1, 1)));
+        repository.save(createOp(2, 2, 1, 70, OperationType.EXPENSE, LocalDate.of(2025, 1, 2)));
+        repository.deleteById(1);
+        repository.deleteByBankAccountId(2);
+        repository.deleteById(1);
+
+        assertEquals(List.of(
+                "save - -> 100",
+                "save 100 -> 150",
+                "save - -> 70",
+                "delete 1",
+                "delete 2"
+        ), events);
+    }
+
+    protected Operation createOp(Integer id, Integer accountId, Integer categoryId,
+                                 long amount, OperationType type, LocalDate date) {
+        return new Operation(id, type, accountId, categoryId, amount, date, "");
+    }
+}
@@ -0,0 +1,84 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.inmemory.InMemoryOperationRepository;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.snapshot.VersionLog;
+import ru.tigerbank.service.analytics.CountMinSketch;
+import ru.tigerbank.service.analytics.HyperLogLog;
+import ru.tigerbank.service.analytics.OperationSketches;
+import ru.tigerbank.service.analytics.QuantileSketch;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OperationSketchesTest {
+
+    @Test
+    @DisplayName("Оценки скетчей должны укладываться в заявленные границы ошибок")
+    void shouldStayWithinErrorBounds() {
+        Random random = new Random(11);
+        QuantileSketch quantiles = new QuantileSketch();
+        long[] amounts = new long[50_000];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = 1 + (long) Math.exp(random.nextDouble() * 16);
+            quantiles.add(amounts[i]);
+        }
+        Arrays.sort(amounts);
+        for (double q : new double[]{0.01, 0.5, 0.9, 0.99, 1}) {
+            long exact = amounts[(int) (q * (amounts.length - 1))];
+            long estimate = quantiles.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= exact * 0.01 + 1, "q=" + q + ": " + estimate + " vs " + exact);
+        }
+
+        HyperLogLog distinct = new HyperLogLog();
+        for (int i = 0; i < 200_000; i++) {
+            distinct.add("merchant-" + (i % 100_000));
+        }
+        assertEquals(100_000, distinct.estimate(), 100_000 * 0.03);
+
+        CountMinSketch frequencies = new CountMinSketch();
+        for (int i = 0; i < 100_000; i++) {
+            frequencies.add(i % 10 == 0 ? "кофе" : "покупка " + i);
+        }
+        long coffee = frequencies.estimate("кофе");
+        assertTrue(coffee >= 10_000 && coffee <= 10_000 + frequencies.getErrorBound());
+        assertEquals("кофе", frequencies.topFrequent(1).keySet().iterator().next());
+    }
+
+    @Test
+    @DisplayName("Скетчи должны обновляться при сохранении, изменении и удалении операций")
+    void shouldFollowRepositoryChanges() {
+        InMemoryOperationRepository repository = new InMemoryOperationRepository(Journal.disabled(), new VersionLog(), new StringDictionary());
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        repository.save(new Operation(null, OperationType.EXPENSE, 1, 1, 100_00, date, "Такси"));
+        OperationSketches sketches = new OperationSketches(repository);
+
+        repository.save(new Operation(null, OperationType.EXPENSE, 1, 2, 500_00, date, "такси "));
+        repository.save(new Operation(null, OperationType.EXPENSE, 2, 2, 900_00, date, "Аптека"));
+        repository.save(new Operation(null, OperationType.INCOME, 2, 3, 50_000_00, date, "Зарплата"));
+
+        assertEquals(3, sketches.amountCount(OperationType.EXPENSE, null, null));
+        assertEquals(2, sketches.amountCount(OperationType.EXPENSE, 2, null));
+        assertEquals(900_00, sketches.amountQuantile(OperationType.EXPENSE, 2, null, 1), 900_00 * 0.01);
+        assertEquals(3, sketches.distinctDescriptions(null));
+        assertEquals(Map.of("такси", 2L), Map.copyOf(sketches.frequentDescriptions(1)));
+
+        // Перенос операции в другую категорию и удаление уходят из квантилей и частот
+        repository.save(new Operation(2, OperationType.EXPENSE, 1, 1, 500_00, date, "Такси"));
+        repository.deleteById(3);
+        assertEquals(0, sketches.amountCount(OperationType.EXPENSE, 2, null));
+        assertEquals(2, sketches.amountCount(OperationType.EXPENSE, null, 1));
+        assertEquals(List.of("такси", "зарплата"), List.copyOf(sketches.frequentDescriptions(5).keySet()));
+    }
+}
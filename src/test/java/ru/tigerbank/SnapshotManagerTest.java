@@ -0,0 +1,114 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.inmemory.InMemoryBankAccountRepository;
+import ru.tigerbank.repository.inmemory.InMemoryCategoryRepository;
+import ru.tigerbank.repository.inmemory.InMemoryOperationRepository;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.snapshot.Snapshot;
+import ru.tigerbank.repository.snapshot.SnapshotManager;
+import ru.tigerbank.repository.snapshot.VersionLog;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotManagerTest {
+
+    private InMemoryBankAccountRepository accounts;
+    private InMemoryCategoryRepository categories;
+    private InMemoryOperationRepository operations;
+    private SnapshotManager snapshotManager;
+
+    @BeforeEach
+    void setUp() {
+        VersionLog versions = new VersionLog();
+        StringDictionary dictionary = new StringDictionary();
+        accounts = new InMemoryBankAccountRepository(Journal.disabled(), versions, dictionary);
+        categories = new InMemoryCategoryRepository(Journal.disabled(), versions, dictionary);
+        operations = new InMemoryOperationRepository(Journal.disabled(), versions, dictionary);
+        snapshotManager = new SnapshotManager(versions, accounts, categories, operations);
+
+        accounts.save(new BankAccount(null, "Основной"));
+        categories.save(new Category(null, OperationType.INCOME, "Зарплата"));
+        for (int i = 0; i < 3000; i++) {
+            operations.save(createOp(null, 1, i + 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Снимок не должен видеть изменений, сделанных после открытия")
+    void shouldKeepStateAtOpen() {
+        try (Snapshot snapshot = snapshotManager.open()) {
+            accounts.save(new BankAccount(2, "Новый"));
+            accounts.deleteById(1);
+            categories.save(new Category(1, OperationType.INCOME, "Премия"));
+            operations.save(createOp(10, 1, 999));
+            operations.deleteById(20);
+            operations.deleteByBankAccountId(1);
+            operations.save(createOp(null, 2, 5));
+
+            assertEquals(List.of("Основной"), snapshot.getAccounts().stream().map(BankAccount::getName).toList());
+            assertEquals("Зарплата", snapshot.findCategory(1).orElseThrow().getName());
+            assertEquals(10, snapshot.findOperation(10).orElseThrow().getAmount());
+            assertTrue(snapshot.findOperation(3001).isEmpty());
+
+            List<Operation> seen = snapshot.getOperations();
+            assertEquals(3000, seen.size());
+            assertEquals(1, seen.get(0).getId());
+            assertEquals(3000, seen.get(seen.size() - 1).getId());
+            assertEquals(3000L * 3001 / 2, seen.stream().mapToLong(Operation::getAmount).sum());
+        }
+
+        assertEquals(1, operations.findAll().size());
+        assertEquals(List.of("Новый"), accounts.findAll().stream().map(BankAccount::getName).toList());
+    }
+
+    @Test
+    @DisplayName("Чтение снимка во время параллельной записи должно давать одно и то же состояние")
+    void shouldStayConsistentUnderConcurrentWrites() throws Exception {
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                operations.save(createOp(null, 1, 1));
+                operations.deleteById(i + 1);
+            }
+        });
+
+        try (Snapshot snapshot = snapshotManager.open()) {
+            writer.start();
+            for (int pass = 0; pass < 5; pass++) {
+                long[] sum = new long[1];
+                int[] count = new int[1];
+                snapshot.forEachOperation(op -> {
+                    sum[0] += op.getAmount();
+                    count[0]++;
+                });
+                assertEquals(3000, count[0]);
+                assertEquals(3000L * 3001 / 2, sum[0]);
+            }
+            writer.join();
+        }
+    }
+
+    @Test
+    @DisplayName("Закрытый снимок нельзя читать")
+    void shouldRejectReadsAfterClose() {
+        Snapshot snapshot = snapshotManager.open();
+        snapshot.close();
+        assertThrows(IllegalStateException.class, snapshot::getAccounts);
+    }
+
+    private Operation createOp(Integer id, Integer accountId, long amount) {
+        return new Operation(id, OperationType.INCOME, accountId, 1, amount, LocalDate.of(2025, 1, 1), null);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.domain.BankAccount;
+import ru.tigerbank.domain.Category;
+import ru.tigerbank.domain.Operation;
+import ru.tigerbank.domain.OperationType;
+import ru.tigerbank.repository.StringDictionary;
+import ru.tigerbank.repository.columnar.ColumnarOperationRepository;
+import ru.tigerbank.repository.inmemory.InMemoryBankAccountRepository;
+import ru.tigerbank.repository.inmemory.InMemoryCategoryRepository;
+import ru.tigerbank.repository.journal.Journal;
+import ru.tigerbank.repository.snapshot.VersionLog;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StringDictionaryTest {
+
+    @Test
+    @DisplayName("Одинаковые строки должны получать один код, неиспользуемые — вытесняться")
+    void shouldShareCodesAndEvictUnused() {
+        StringDictionary dictionary = new StringDictionary(true);
+
+        int coffee = dictionary.acquire(new String("Кофе"));
+        assertEquals(coffee, dictionary.acquire(new String("Кофе")));
+        assertSame(dictionary.decode(coffee), dictionary.intern(new String("Кофе")));
+        assertEquals(StringDictionary.NULL_CODE, dictionary.acquire(null));
+        assertNull(dictionary.decode(StringDictionary.NULL_CODE));
+
+        int salary = dictionary.acquire("Зарплата");
+        dictionary.release(salary);
+        dictionary.release(coffee);
+        assertEquals(1, dictionary.evictUnused());
+        assertEquals(1, dictionary.size());
+        assertEquals("Кофе", dictionary.decode(coffee));
+
+        // Код вытесненной строки используется повторно
+        assertEquals(salary, dictionary.acquire("Такси"));
+    }
+
+    @Test
+    @DisplayName("Освобождение уже вытесненной строки не должно падать и портить словарь")
+    void shouldIgnoreReleaseAfterEviction() {
+        StringDictionary dictionary = new StringDictionary(true);
+
+        int coffee = dictionary.acquire("Кофе");
+        dictionary.release("Кофе");
+        assertEquals(1, dictionary.evictUnused());
+
+        dictionary.release("Кофе");
+        dictionary.release(coffee);
+        assertEquals(0, dictionary.size());
+
+        int taxi = dictionary.acquire("Такси");
+        dictionary.release("Такси");
+        dictionary.release("Такси");
+        // Лишнее освобождение не уводит счетчик в минус: строка снова вытесняется
+        assertEquals(1, dictionary.evictUnused());
+        assertEquals(taxi, dictionary.acquire("Такси"));
+        assertEquals("Такси", dictionary.decode(taxi));
+    }
+
+    @Test
+    @DisplayName("Описания удаленных операций должны освобождаться в общем словаре")
+    void shouldReleaseDescriptionsOfRemovedOperations() {
+        StringDictionary dictionary = new StringDictionary(true);
+        ColumnarOperationRepository repository =
+                new ColumnarOperationRepository(Journal.disabled(), new VersionLog(), dictionary);
+        LocalDate date = LocalDate.of(2025, 1, 1);
+
+        for (int i = 0; i < 100; i++) {
+            repository.save(new Operation(null, OperationType.EXPENSE, 1, 1, i + 1, date, "Кофе " + i % 10));
+        }
+        repository.save(new Operation(1, OperationType.EXPENSE, 1, 1, 1, date, "Такси"));
+        assertEquals(11, dictionary.size());
+
+        repository.deleteById(2);
+        assertEquals(0, dictionary.evictUnused());
+
+        repository.deleteByBankAccountId(1);
+        assertEquals(11, dictionary.evictUnused());
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    @DisplayName("Названия счетов и категорий должны учитываться в словаре и вытесняться после удаления")
+    void shouldTrackAccountAndCategoryNames() {
+        StringDictionary dictionary = new StringDictionary(true);
+        VersionLog versions = new VersionLog();
+        InMemoryBankAccountRepository accounts =
+                new InMemoryBankAccountRepository(Journal.disabled(), versions, dictionary);
+        InMemoryCategoryRepository categories =
+                new InMemoryCategoryRepository(Journal.disabled(), versions, dictionary);
+
+        BankAccount account = accounts.save(new BankAccount(null, new String("Еда")));
+        Category category = categories.save(new Category(null, OperationType.EXPENSE, new String("Еда")));
+        assertSame(account.getName(), category.getName());
+        assertEquals(1, dictionary.size());
+
+        categories.deleteById(category.getId());
+        assertEquals(0, dictionary.evictUnused());
+        accounts.save(new BankAccount(account.getId(), "Основной"));
+        assertEquals(1, dictionary.evictUnused());
+
+        for (int i = 0; i < 2000; i++) {
+            accounts.save(new BankAccount(null, "Счет " + i));
+        }
+        accounts.deleteAll();
+        // Освобожденные строки вытесняются сами, без вызова evictUnused
+        assertTrue(dictionary.size() < 1000);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.tigerbank;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.tigerbank.repository.columnar.SumKernel;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SumKernelTest {
+
+    @Test
+    @DisplayName("Лучшее доступное ядро должно считать так же, как скалярное")
+    void bestKernelShouldMatchScalar() {
+        Random random = new Random(42);
+        SumKernel best = SumKernel.best();
+        for (int size : new int[]{0, 1, 7, 64, 1001}) {
+            int[] days = new int[size + 5];
+            int[] types = new int[size + 5];
+            int[] accounts = new int[size + 5];
+            long[] amounts = new long[size + 5];
+            for (int row = 0; row < days.length; row++) {
+                days[row] = 20000 + random.nextInt(365);
+                types[row] = random.nextInt(2);
+                accounts[row] = 1 + random.nextInt(5);
+                amounts[row] = 1 + random.nextInt(1_000_000);
+            }
+            for (int type : new int[]{SumKernel.ANY, 0, 1}) {
+                for (int account : new int[]{SumKernel.ANY, 3}) {
+                    for (boolean signed : new boolean[]{false, true}) {
+                        assertEquals(
+                                SumKernel.scalar().sum(0, size, days, types, accounts, amounts, 20100, 20200, type, account, signed),
+                                best.sum(0, size, days, types, accounts, amounts, 20100, 20200, type, account, signed),
+                                best.getName() + " size=" + size);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.tigerbank.repository.columnar;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+import ru.tigerbank.domain.OperationType;
+
+// Векторное ядро на jdk.incubator.vector. Суммы — long, а дни, типы и счета — int,
+// поэтому int-вектор берется вдвое уже long-вектора: число дорожек совпадает,
+// и маску условий можно перенести на суммы через cast.
+// Загружается только через SumKernel.best().
+final class VectorSumKernel implements SumKernel {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+    private static final int EXPENSE = OperationType.EXPENSE.ordinal();
+
+    @Override
+    public long sum(int from, int to, int[] days, int[] types, int[] accounts, long[] amounts,
+                    int fromDay, int toDay, int type, int accountId, boolean signed) {
+        boolean anyType = type == ANY;
+        boolean anyAccount = accountId == ANY;
+        LongVector total = LongVector.zero(LONGS);
+        int bound = from + LONGS.loopBound(to - from);
+        int row = from;
+        for (; row < bound; row += LONGS.length()) {
+            IntVector day = IntVector.fromArray(INTS, days, row);
+            VectorMask<Integer> matches = day.compare(VectorOperators.GE, fromDay)
+                    .and(day.compare(VectorOperators.LE, toDay));
+            if (!anyAccount) {
+                matches = matches.and(IntVector.fromArray(INTS, accounts, row).compare(VectorOperators.EQ, accountId));
+            }
+            LongVector amount = LongVector.fromArray(LONGS, amounts, row);
+            if (!anyType || signed) {
+                IntVector rowTypes = IntVector.fromArray(INTS, types, row);
+                if (!anyType) {
+                    matches = matches.and(rowTypes.compare(VectorOperators.EQ, type));
+                }
+                if (signed) {
+                    VectorMask<Long> expense = rowTypes.compare(VectorOperators.EQ, EXPENSE).cast(LONGS);
+                    amount = amount.lanewise(VectorOperators.NEG, expense);
+                }
+            }
+            total = total.add(amount, matches.cast(LONGS));
+        }
+        return total.reduceLanes(VectorOperators.ADD)
+                + ScalarSumKernel.INSTANCE.sum(row, to, days, types, accounts, amounts,
+                        fromDay, toDay, type, accountId, signed);
+    }
+
+    @Override
+    public String getName() {
+        return "vector " + LONGS.length() + "x64";
+    }
+}